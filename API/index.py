@@ -1,7 +1,8 @@
-from flask import Flask, jsonify, request
+from flask import Flask, jsonify, request, Response, stream_with_context
 from functools import wraps
+from urllib.parse import quote
 from datetime import datetime, timezone, timedelta
-import os, jwt, requests
+import os, jwt, requests, json, time, threading
 import uuid
 from dotenv import load_dotenv
 import os
@@ -36,6 +37,27 @@ NOT_FOUND = 404
 CONFLICT= 409
 SERVER_ERROR = 500
 
+# Largest page of SOS events returned by one /sos/events call
+MAX_EVENTS_PAGE = 100
+
+# User tokens live 8h and can be refreshed for 7 days after expiring,
+# but never past 30 days after the password login that started the session
+TOKEN_LIFETIME = timedelta(hours=8)
+TOKEN_REFRESH_GRACE = timedelta(days=7)
+SESSION_LIFETIME = timedelta(days=30)
+
+# SOS stream settings (serverless functions are short lived, clients reconnect after each window).
+# A poll costs one or two Supabase queries, so a connected dashboard costs what the app's old
+# 5 s /sos/active poll did. Changes made through this instance wake its streams right away.
+STREAM_WINDOW_SECONDS = 25
+STREAM_POLL_SECONDS = 5
+STREAM_WAKE = threading.Condition()
+
+def wake_streams():
+    """Make the SOS streams of this instance poll now instead of at their next tick."""
+    with STREAM_WAKE:
+        STREAM_WAKE.notify_all()
+
 ##################################### Supabase Request Headers ########################################
 def supabase_headers():
     return {
@@ -45,6 +67,29 @@ def supabase_headers():
         "Prefer": "return=representation"
     }
 
+# ================================== CONDITIONAL RESPONSES ==================================
+def conditional_json(data):
+    """JSON response with an ETag so clients can revalidate cached copies and get a 304."""
+    response = jsonify(data)
+    response.add_etag()
+    # Private: the body depends on the caller's token. no-cache: always revalidate before reuse
+    response.headers["Cache-Control"] = "private, no-cache"
+    response.headers["Vary"] = "Authorization"
+    return response.make_conditional(request)
+
+def desired_state(field):
+    """Requested state of a set-or-toggle endpoint: True/False, or None for a plain toggle."""
+    value = (request.get_json(silent=True) or {}).get(field)
+    return value if isinstance(value, bool) else None
+
+def idempotent_json(data):
+    """JSON response that echoes the client's Idempotency-Key so it can match replies to its outbox."""
+    response = jsonify(data)
+    key = request.headers.get("Idempotency-Key")
+    if key:
+        response.headers["Idempotency-Key"] = key
+    return response
+
 @app.route('/', methods=['GET'])
 def home():
     return jsonify({"message": "Welcome to the QuickFix API!"})
@@ -112,6 +157,17 @@ def auth_device(f):
         return f(*args, **kwargs)
     return decorated
 
+# ================================== USER TOKENS ==================================
+def issue_user_token(user_id, email, auth_time=None):
+    """auth_time (epoch seconds) is when the user last typed their password; refreshes keep it."""
+    now = datetime.now(timezone.utc)
+    return jwt.encode(
+        {"id": user_id, "email": email,
+        "auth_time": auth_time if auth_time is not None else int(now.timestamp()),
+        "exp":  now + TOKEN_LIFETIME},
+        app.config["SECRET_KEY"], algorithm="HS256"
+    )
+
 #|---------------------------------------------------------------------------------------------------|
 #|                                      USER ENDPOINTS                                               |                               
 #|---------------------------------------------------------------------------------------------------|
@@ -164,13 +220,41 @@ def login_user():
     if encrypted_pass != user["user_password"]:
         return jsonify({"message": "Invalid credentials"}), UNAUTHORIZED
 
-    token = jwt.encode(
-        {"id": user["user_id"], "email": user["user_email"],
-        "exp":  datetime.now(timezone.utc) + timedelta(hours=8)},
-        app.config["SECRET_KEY"], algorithm="HS256"
-    )
+    token = issue_user_token(user["user_id"], user["user_email"])
     return jsonify({"token": token, "userId": user["user_id"]}), OK
 
+# =============================== REFRESH TOKEN ======================================
+@app.route("/token/refresh", methods=["POST"])
+def refresh_token():
+    """Swap a valid or recently expired user token for a new one"""
+
+    auth = request.headers.get("Authorization")
+    if not auth:
+        return jsonify({"message": "Token is missing"}), UNAUTHORIZED
+
+    # Signature is still checked, only the expiry is handled below
+    try:
+        data = jwt.decode(auth, app.config["SECRET_KEY"], algorithms=["HS256"],
+                          options={"verify_exp": False})
+    except Exception:
+        return jsonify({"message": "Invalid token"}), UNAUTHORIZED
+
+    if "id" not in data:
+        return jsonify({"message": "Invalid token"}), UNAUTHORIZED
+
+    now = datetime.now(timezone.utc)
+    expired_at = datetime.fromtimestamp(data.get("exp", 0), timezone.utc)
+    if now - expired_at > TOKEN_REFRESH_GRACE:
+        return jsonify({"message": "Session expired, login again"}), UNAUTHORIZED
+
+    # Tokens from before auth_time existed have no known start, so they can't be renewed either
+    auth_time = data.get("auth_time")
+    if not isinstance(auth_time, int) or now - datetime.fromtimestamp(auth_time, timezone.utc) > SESSION_LIFETIME:
+        return jsonify({"message": "Session expired, login again"}), UNAUTHORIZED
+
+    token = issue_user_token(data["id"], data.get("email"), auth_time)
+    return jsonify({"token": token, "userId": data["id"]}), OK
+
 # =============================== GET PROFILE ======================================
 @app.route("/user/me", methods=["GET"])
 @auth_user
@@ -258,7 +342,7 @@ def list_connections():
             "other_user_email": u.get("user_email"),
             "last_sos": last_sos
         })
-    return jsonify(enriched), OK
+    return conditional_json(enriched)
 
 
 #|---------------------------------------------------------------------------------------------------|
@@ -403,7 +487,11 @@ def list_devices():
 # ================================== TOGGLE SOS EVENT ==================================
 @app.route("/sos", methods=["POST"])
 def toggle_sos():
-    """Toggle SOS state from app or device."""
+    """Toggle SOS state from app or device.
+
+    The app may send {"active": true|false} to ask for a state instead of a toggle; a request
+    for the state the user is already in changes nothing, so replays are safe.
+    """
 
     # Determine source (frontend (JWT) or device (device_id))
     auth_header = request.headers.get("Authorization")
@@ -432,6 +520,14 @@ def toggle_sos():
     active_res = requests.get(active_url, headers=supabase_headers())
     active_events = active_res.json()
 
+    # Already in the requested state (e.g. a replayed request from the app's outbox)
+    desired = desired_state("active")
+    if desired is True and active_events:
+        return idempotent_json({"message": "SOS already active", "active": True,
+                                "event_id": active_events[0]["event_id"]}), OK
+    if desired is False and not active_events:
+        return idempotent_json({"message": "SOS already stopped", "active": False}), OK
+
     # Stop SOS
     if active_events:
         active_event = active_events[0]
@@ -456,7 +552,8 @@ def toggle_sos():
                 json={"is_online": False}
             )
 
-        return jsonify({"message": "SOS stopped", "active": False}), OK
+        wake_streams()
+        return idempotent_json({"message": "SOS stopped", "active": False}), OK
 
     # Start SOS (frontend only)
     if not device_id:
@@ -492,7 +589,8 @@ def toggle_sos():
         json={"is_online": True, "last_triggered_at": now}
     )
 
-    return jsonify({
+    wake_streams()
+    return idempotent_json({
         "message": "SOS triggered",
         "active": True,
         "event_id": event_info["event_id"],
@@ -503,13 +601,32 @@ def toggle_sos():
 @app.route("/sos/events", methods=["GET"])
 @auth_user
 def list_sos_events():
-    """Return SOS events for a user by email."""
+    """Return SOS events for a user by email, newest first.
+
+    Optional keyset paging: `limit` caps the page size and `before` / `before_id` (on_at and
+    event_id of the last event already shown) return only the events after it in that order.
+    `order=asc` returns the oldest first instead, and `after` / `after_id` then return only the
+    events newer than the ones a client has already read (used to update statistics).
+    """
 
     triggered_email = request.args.get("triggered_email")
+    before = request.args.get("before")
+    before_id = request.args.get("before_id")
+    after = request.args.get("after")
+    after_id = request.args.get("after_id")
+    ascending = request.args.get("order") == "asc"
+    limit = request.args.get("limit", type=int)
 
     if not triggered_email:
         return jsonify({"message": "Missing triggered_email parameter"}), BAD_REQUEST
 
+    if limit is not None and limit <= 0:
+        return jsonify({"message": "limit must be positive"}), BAD_REQUEST
+
+    # A cursor only makes sense in the direction it pages
+    if (before and ascending) or (after and not ascending):
+        return jsonify({"message": "before needs the default order, after needs order=asc"}), BAD_REQUEST
+
     # Get user by email
     user_query = f"{USER_URL}?user_email=eq.{triggered_email}"
     user_response = requests.get(user_query, headers=supabase_headers())
@@ -521,44 +638,139 @@ def list_sos_events():
     user_id = user_data[0]["user_id"]
 
     # Get user's SOS events
+    direction = "asc" if ascending else "desc"
     events_query = (
-        f"{EVENT_URL}?triggered_by=eq.{user_id}&order=on_at.desc"
+        f"{EVENT_URL}?triggered_by=eq.{user_id}&order=on_at.{direction},event_id.{direction}"
     )
+    # Seek past the cursor instead of skipping rows with an offset, so deep pages stay cheap
+    if before:
+        before = quote(before)
+        if before_id:
+            # Several events can share an on_at, the id breaks the tie
+            events_query += f"&or=(on_at.lt.{before},and(on_at.eq.{before},event_id.lt.{quote(before_id)}))"
+        else:
+            events_query += f"&on_at=lt.{before}"
+    if after:
+        after = quote(after)
+        if after_id:
+            events_query += f"&or=(on_at.gt.{after},and(on_at.eq.{after},event_id.gt.{quote(after_id)}))"
+        else:
+            events_query += f"&on_at=gt.{after}"
+    if limit is not None:
+        events_query += f"&limit={min(limit, MAX_EVENTS_PAGE)}"
     events_response = requests.get(events_query, headers=supabase_headers())
 
     if events_response.status_code != OK:
         return jsonify({"message": "Failed to retrieve events"}), SERVER_ERROR
 
     events = events_response.json()
-    return jsonify(events if events else []), OK
+    return conditional_json(events if events else [])
     
+# ================================== SHARED SOS QUERIES ==================================
+def fetch_active_sos_user_ids():
+    """Sorted ids of the users with an active SOS event, or None when Supabase fails."""
+    res = requests.get(f"{EVENT_URL}?handled=is.false&select=triggered_by", headers=supabase_headers())
+    if res.status_code != OK:
+        return None
+    return sorted({e["triggered_by"] for e in res.json()})
+
+
+def fetch_users(user_ids):
+    """User rows for the given ids, or None when Supabase fails."""
+    if not user_ids:
+        return []
+    user_query = "or=(" + ",".join([f"user_id.eq.{uid}" for uid in user_ids]) + ")"
+    res = requests.get(f"{USER_URL}?{user_query}", headers=supabase_headers())
+    if res.status_code != OK:
+        return None
+    return res.json()
+
+
+def fetch_connection_device_ids(user_id):
+    """Device ids of the user's connections, the devices whose help state the user may see."""
+    res = requests.get(f"{CONNECTION_URL}?or=(user1_id.eq.{user_id},user2_id.eq.{user_id})",
+                       headers=supabase_headers())
+    if res.status_code != OK:
+        return None
+    others = {c["user2_id"] if c["user1_id"] == user_id else c["user1_id"] for c in res.json()}
+    if not others:
+        return set()
+    dev_res = requests.get(f"{DEVICE_URL}?owner_id=in.({','.join(others)})&select=device_id",
+                           headers=supabase_headers())
+    if dev_res.status_code != OK:
+        return None
+    return {d["device_id"] for d in dev_res.json()}
+
+
+def fetch_active_help(device_ids):
+    """The given devices that have help on the way, or None when Supabase fails."""
+    res = requests.get(f"{HELP_URL}?active=eq.true&device_id=in.({','.join(device_ids)})&select=device_id",
+                       headers=supabase_headers())
+    if res.status_code != OK:
+        return None
+    return {h["device_id"] for h in res.json()}
+
 # ================================== LIST ACTIVE SOS USERS ==================================
 @app.route("/sos/active", methods=["GET"])
 @auth_user
 def list_active_sos():
     """Return all users who currently have active SOS events."""
 
-    res = requests.get(f"{EVENT_URL}?handled=is.false", headers=supabase_headers())
-    if res.status_code != OK:
+    user_ids = fetch_active_sos_user_ids()
+    if user_ids is None:
         return jsonify({"message": "Failed to fetch active SOS users"}), SERVER_ERROR
 
-    events = res.json()
-    if not events:
-        return jsonify([]), OK
-
-    active_user_ids = [e["triggered_by"] for e in events]
-
-    # Get user details for each ID
-    if not active_user_ids:
-        return jsonify([]), OK
-
-    user_query = "or=(" + ",".join([f"user_id.eq.{uid}" for uid in active_user_ids]) + ")"
-    users_res = requests.get(f"{USER_URL}?{user_query}", headers=supabase_headers())
-
-    if users_res.status_code != OK:
+    users = fetch_users(user_ids)
+    if users is None:
         return jsonify({"message": "Failed to fetch users"}), SERVER_ERROR
 
-    return jsonify(users_res.json()), OK
+    return jsonify(users), OK
+
+# ================================== SOS STREAM ==================================
+@app.route("/sos/stream", methods=["GET"])
+@auth_user
+def sos_stream():
+    """Server-Sent Events stream of active SOS users and help state changes.
+
+    Help changes are only sent for the devices of the caller's connections. Each poll asks for
+    the ids of the active SOS users; the users themselves are only fetched when those change.
+    """
+
+    # Connections don't change within one window
+    device_ids = fetch_connection_device_ids(request.user_id)
+
+    def generate():
+        last_ids = None
+        last_help = None
+        deadline = time.time() + STREAM_WINDOW_SECONDS
+        # Tell the client how soon to come back once this window closes
+        yield "retry: 1000\n\n"
+
+        while time.time() < deadline:
+            user_ids = fetch_active_sos_user_ids()
+            # Only push when the set of active users changed
+            if user_ids is not None and user_ids != last_ids:
+                users = fetch_users(user_ids)
+                if users is not None:
+                    last_ids = user_ids
+                    yield f"event: sos\ndata: {json.dumps(users)}\n\n"
+
+            help_devices = fetch_active_help(device_ids) if device_ids else None
+            if help_devices is not None:
+                if last_help is not None:
+                    for device_id in help_devices ^ last_help:
+                        payload = {"device_id": device_id, "help": device_id in help_devices}
+                        yield f"event: help\ndata: {json.dumps(payload)}\n\n"
+                last_help = help_devices
+
+            # Comment line keeps proxies from closing an idle connection
+            yield ": keep-alive\n\n"
+            # Sleep until the next poll, or until a toggle on this instance changes something
+            with STREAM_WAKE:
+                STREAM_WAKE.wait(max(0, min(STREAM_POLL_SECONDS, deadline - time.time())))
+
+    headers = {"Cache-Control": "no-cache", "X-Accel-Buffering": "no"}
+    return Response(stream_with_context(generate()), mimetype="text/event-stream", headers=headers)
 
 
 #|---------------------------------------------------------------------------------------------------|
@@ -568,7 +780,10 @@ def list_active_sos():
 @app.route("/help/toggle", methods=["POST"])
 @auth_user
 def toggle_help():
-    """Toggle help_event for a device and record caregiver email."""
+    """Toggle help_event for a device and record caregiver email.
+
+    Like /sos, an optional "help": true|false asks for a state and replays are no-ops.
+    """
 
     content = request.get_json() or {}
 
@@ -595,6 +810,13 @@ def toggle_help():
     res = requests.get(active_url, headers=supabase_headers())
     active_events = res.json()
 
+    desired = desired_state("help")
+    if desired is True and active_events:
+        return idempotent_json({"message": "Help already on the way", "help": True,
+                                "help_id": active_events[0]["help_id"]}), OK
+    if desired is False and not active_events:
+        return idempotent_json({"message": "Help already cancelled", "help": False}), OK
+
     # close active help_event
     if active_events:
         help_id = active_events[0]["help_id"]
@@ -623,8 +845,9 @@ def toggle_help():
                 json={"handled": True, "handled_by": caregiver_email}
             )
 
-        
-        return jsonify({"help": False}), OK
+
+        wake_streams()
+        return idempotent_json({"help": False}), OK
 
     # create new help_event
     new_event = {
@@ -653,7 +876,8 @@ def toggle_help():
             json={"handled_by": caregiver_email}
         )
 
-    return jsonify({
+    wake_streams()
+    return idempotent_json({
         "message": "Help on the way!",
         "help": True,
         "help_id": created["help_id"]
@@ -677,9 +901,27 @@ def help_get_state(device_id):
 @app.route("/notifications", methods=["GET"])
 @auth_user
 def get_notifications():
-    """List notifications sent to the current user"""
-    res = requests.get(f"{NOTIF_URL}?notified_user=eq.{request.user_id}", headers=supabase_headers())
-    return jsonify(res.json()), OK
+    """List notifications sent to the current user, oldest first.
+
+    Optional delta sync: `after` (sent_at) and `after_id` (id) of the newest notification the
+    client already has return only the ones sent after it.
+    """
+    query = f"{NOTIF_URL}?notified_user=eq.{request.user_id}&order=sent_at.asc,id.asc"
+
+    after = request.args.get("after")
+    after_id = request.args.get("after_id")
+    if after:
+        after = quote(after)
+        if after_id:
+            # Several notifications can share a sent_at, the id breaks the tie
+            query += f"&or=(sent_at.gt.{after},and(sent_at.eq.{after},id.gt.{quote(after_id)}))"
+        else:
+            query += f"&sent_at=gt.{after}"
+
+    res = requests.get(query, headers=supabase_headers())
+    if res.status_code != OK:
+        return jsonify({"message": "Failed to retrieve notifications"}), SERVER_ERROR
+    return conditional_json(res.json())
 
 # ================================== NOTIFY SOS START ==================================
 @app.route("/sos/notify/<uuid:event_id>", methods=["POST"])
@@ -15,16 +15,35 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Backend the app talks to, see safesenior.baseUrl in gradle.properties
+        val baseUrl = providers.gradleProperty("safesenior.baseUrl").get()
+        buildConfigField("String", "API_BASE_URL", "\"$baseUrl\"")
+        // Plain http is only allowed for a local backend
+        manifestPlaceholders["usesCleartextTraffic"] = baseUrl.startsWith("http://").toString()
+    }
+
+    buildFeatures {
+        buildConfig = true
     }
 
     buildTypes {
         release {
-            isMinifyEnabled = false
+            // R8 shrinking and optimisation; keep rules for reflection are in proguard-rules.pro
+            isMinifyEnabled = true
+            isShrinkResources = true
             proguardFiles(
                 getDefaultProguardFile("proguard-android-optimize.txt"),
                 "proguard-rules.pro"
             )
         }
+        // Release code signed with the debug key, measured by the :macrobenchmark module
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+            isDebuggable = false
+        }
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_1_8
@@ -47,4 +66,10 @@ dependencies {
     implementation("com.squareup.retrofit2:converter-gson:2.11.0")
     implementation("com.squareup.okhttp3:okhttp:4.12.0")
     implementation("com.squareup.okhttp3:logging-interceptor:4.12.0")
+    implementation("com.squareup.okhttp3:okhttp-sse:4.12.0")
+    // Installs the baseline profile on sideloaded builds too (Play does it on install).
+    // The profile is not checked in: run :macrobenchmark's BaselineProfileGenerator on a
+    // device and copy its output to app/src/main/baseline-prof.txt. Until then this is a no-op.
+    implementation("androidx.profileinstaller:profileinstaller:1.4.1")
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
 }
\ No newline at end of file
@@ -18,4 +18,22 @@
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+#-renamesourcefileattribute SourceFile
+
+# ---- SafeSenior ----
+
+# The API models are read and written by ModelTypeAdapters without reflection,
+# so R8 may rename and strip their fields like any other code
+
+# Generic type of TypeToken subclasses (e.g. List<Connection> in SosStreamClient)
+-keepattributes Signature
+-keep class * extends com.google.gson.reflect.TypeToken
+
+# PriorityCallFactory looks for @Critical on the service method at runtime
+-keepattributes RuntimeVisibleAnnotations
+-keep @interface gabriellopes.safesenior.app.safeseniorapp.network.Critical
+
+# NetworkMetrics labels endpoints with the ApiInterface method name
+-keepclassmembernames interface gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface {
+    <methods>;
+}
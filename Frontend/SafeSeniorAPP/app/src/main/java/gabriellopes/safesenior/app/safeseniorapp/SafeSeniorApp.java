@@ -0,0 +1,52 @@
+package gabriellopes.safesenior.app.safeseniorapp;
+
+import android.app.Application;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.Toast;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import gabriellopes.safesenior.app.safeseniorapp.activities.LoginActivity;
+import gabriellopes.safesenior.app.safeseniorapp.data.NotificationSync;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiClient;
+import gabriellopes.safesenior.app.safeseniorapp.network.AuthSession;
+import gabriellopes.safesenior.app.safeseniorapp.services.SosWatcherJob;
+
+// Process-wide setup that has to happen before any screen makes a request.
+// Disk reads and building the network stack run on a startup thread while the first activity
+// is created and inflated; AuthSession.get() and ApiClient wait for it if a screen is faster.
+public class SafeSeniorApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Disk cache directory for the shared OkHttp client
+        ApiClient.init(this);
+
+        ExecutorService startup = Executors.newSingleThreadExecutor();
+        // Read the saved token once, requests use the in-memory copy
+        AuthSession.initInBackground(this, startup);
+        startup.execute(() -> {
+            // OkHttp client, call factory and Retrofit, so the first screen only creates its service
+            ApiClient.getClient();
+            // Notification cursor used by the first dashboard load
+            NotificationSync.get(this);
+            // A session the server no longer renews sends whatever screen is open back to login
+            AuthSession.get().setListener(() -> new Handler(Looper.getMainLooper()).post(this::showLogin));
+            // Keep watching for SOS alerts while the app is closed
+            if (AuthSession.get().isLoggedIn()) SosWatcherJob.schedule(this);
+        });
+        // The thread ends once the tasks above are done
+        startup.shutdown();
+    }
+
+    private void showLogin() {
+        SosWatcherJob.cancel(this);
+        Toast.makeText(this, "Session expired, please log in again", Toast.LENGTH_LONG).show();
+        startActivity(new Intent(this, LoginActivity.class)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK));
+    }
+}
@@ -0,0 +1,112 @@
+package gabriellopes.safesenior.app.safeseniorapp.activities;
+
+import android.os.Bundle;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.app.AppCompatDelegate;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Locale;
+
+import gabriellopes.safesenior.app.safeseniorapp.R;
+import gabriellopes.safesenior.app.safeseniorapp.data.EventCache;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiClient;
+import gabriellopes.safesenior.app.safeseniorapp.network.NetworkMetrics;
+import gabriellopes.safesenior.app.safeseniorapp.network.SingleFlightInterceptor;
+import gabriellopes.safesenior.app.safeseniorapp.services.WatcherStats;
+import gabriellopes.safesenior.app.safeseniorapp.utils.AdaptivePollScheduler;
+
+// Shows the per-endpoint latency percentiles, the queue wait of each request lane, how many GETs
+// shared a call, the dashboard's polling, the event history cache's hit rate and the background
+// watcher's wakeups and alert delay, and writes them to a file that can be attached to a field
+// report (Android/data/<package>/files/network-latency.txt)
+public class DiagnosticsActivity extends AppCompatActivity {
+    // Poll counters of the dashboard that opened this screen, -1 when opened from elsewhere
+    public static final String EXTRA_POLLS_MADE = "polls_made";
+    public static final String EXTRA_POLLS_SAVED = "polls_saved";
+
+    private static final String REPORT_FILE = "network-latency.txt";
+
+    private TextView txtMetrics;
+    private NetworkMetrics metrics;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
+        setContentView(R.layout.activity_diagnostics);
+
+        txtMetrics = findViewById(R.id.txtMetrics);
+        metrics = ApiClient.getNetworkMetrics();
+
+        findViewById(R.id.btnSaveReport).setOnClickListener(v -> saveReport());
+        findViewById(R.id.btnResetMetrics).setOnClickListener(v -> {
+            metrics.reset();
+            ApiClient.getCallFactory().resetStats();
+            SingleFlightInterceptor singleFlight = ApiClient.getSingleFlight();
+            if (singleFlight != null) singleFlight.resetStats();
+            EventCache.get().resetStats();
+            showMetrics();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showMetrics();
+    }
+
+    private void showMetrics() {
+        String report = report();
+        txtMetrics.setText(metrics.getEndpoints().isEmpty() ? "No requests recorded yet\n\n" + report : report);
+    }
+
+    private String report() {
+        StringWriter out = new StringWriter();
+        try {
+            metrics.dump(out);
+            ApiClient.getCallFactory().dump(out);
+            SingleFlightInterceptor singleFlight = ApiClient.getSingleFlight();
+            if (singleFlight != null) singleFlight.dump(out);
+            dumpPolling(out);
+            EventCache.get().dump(out);
+            WatcherStats.get(this).dump(out, System.currentTimeMillis());
+        } catch (IOException ignored) {}
+        return out.toString();
+    }
+
+    // Same format as NetworkMetrics.dump()
+    private void dumpPolling(Writer out) throws IOException {
+        long made = getIntent().getLongExtra(EXTRA_POLLS_MADE, -1);
+        long saved = getIntent().getLongExtra(EXTRA_POLLS_SAVED, -1);
+        if (made < 0) return;
+        out.write("Dashboard polling (since the dashboard opened)\n");
+        out.write(String.format(Locale.US, "  polls    n=%-5d saved=%d vs a fixed %d s loop%n",
+                made, saved, AdaptivePollScheduler.BASELINE_INTERVAL_MS / 1000));
+    }
+
+    // Written off the main thread because it touches disk
+    private void saveReport() {
+        String report = report();
+        File dir = getExternalFilesDir(null);
+        File file = new File(dir != null ? dir : getFilesDir(), REPORT_FILE);
+        new Thread(() -> {
+            boolean saved;
+            try (Writer writer = new FileWriter(file)) {
+                writer.write(report);
+                saved = true;
+            } catch (IOException e) {
+                saved = false;
+            }
+            String message = saved ? "Saved to " + file.getAbsolutePath() : "Could not save report";
+            runOnUiThread(() -> Toast.makeText(this, message, Toast.LENGTH_LONG).show());
+        }).start();
+    }
+}
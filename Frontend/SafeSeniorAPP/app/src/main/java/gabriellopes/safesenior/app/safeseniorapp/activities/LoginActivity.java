@@ -15,7 +15,8 @@ import gabriellopes.safesenior.app.safeseniorapp.models.LoginRequest;
 import gabriellopes.safesenior.app.safeseniorapp.models.LoginResponse;
 import gabriellopes.safesenior.app.safeseniorapp.network.ApiClient;
 import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
-import gabriellopes.safesenior.app.safeseniorapp.network.SharedPrefHelper;
+import gabriellopes.safesenior.app.safeseniorapp.network.AuthSession;
+import gabriellopes.safesenior.app.safeseniorapp.services.SosWatcherJob;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -25,7 +26,7 @@ public class LoginActivity extends AppCompatActivity {
     EditText emailInput, passwordInput;
     Button loginButton;
     TextView registerLink;
-    SharedPrefHelper prefHelper;
+    AuthSession session;
     ApiInterface api;
 
     @Override
@@ -33,13 +34,19 @@ public class LoginActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         // Force light theme
         AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
+        session = AuthSession.get();
+        // Saved session: go straight to the dashboard without inflating the login form
+        if (session.isLoggedIn()) {
+            startActivity(new Intent(this, MainActivity.class));
+            finish();
+            return;
+        }
         setContentView(R.layout.activity_login);
 
         emailInput = findViewById(R.id.inputEmail);
         passwordInput = findViewById(R.id.inputPassword);
         loginButton = findViewById(R.id.btnLogin);
         registerLink = findViewById(R.id.txtRegister);
-        prefHelper = new SharedPrefHelper(this);
         api = ApiClient.getClient().create(ApiInterface.class);
 
         // Login action
@@ -64,8 +71,9 @@ public class LoginActivity extends AppCompatActivity {
             @Override
             public void onResponse(Call<LoginResponse> call, Response<LoginResponse> response) {
                 if (response.isSuccessful() && response.body() != null) {
-                    // Save token and userId locally
-                    prefHelper.saveAuth(response.body().token, response.body().userId);
+                    // Keep token and userId in memory and on disk
+                    session.save(response.body().token, response.body().userId);
+                    SosWatcherJob.schedule(LoginActivity.this);
 
                     startActivity(new Intent(LoginActivity.this, MainActivity.class));
                     finish();
@@ -1,54 +1,85 @@
 package gabriellopes.safesenior.app.safeseniorapp.activities;
 
+import android.Manifest;
 import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.Button;
+import android.widget.EditText;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
+import androidx.lifecycle.Lifecycle;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.google.gson.JsonObject;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import gabriellopes.safesenior.app.safeseniorapp.R;
 import gabriellopes.safesenior.app.safeseniorapp.adapters.ConnectionsAdapter;
+import gabriellopes.safesenior.app.safeseniorapp.data.AlertLog;
+import gabriellopes.safesenior.app.safeseniorapp.data.DashboardRepository;
+import gabriellopes.safesenior.app.safeseniorapp.data.EventCache;
+import gabriellopes.safesenior.app.safeseniorapp.data.EventPrefetcher;
+import gabriellopes.safesenior.app.safeseniorapp.data.LocalStore;
+import gabriellopes.safesenior.app.safeseniorapp.data.NotificationSync;
+import gabriellopes.safesenior.app.safeseniorapp.data.Outbox;
 import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.DashboardSnapshot;
 import gabriellopes.safesenior.app.safeseniorapp.models.Notification;
-import gabriellopes.safesenior.app.safeseniorapp.models.SosStartResponse;
 import gabriellopes.safesenior.app.safeseniorapp.network.ApiClient;
 import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
-import gabriellopes.safesenior.app.safeseniorapp.network.SharedPrefHelper;
+import gabriellopes.safesenior.app.safeseniorapp.network.AuthSession;
+import gabriellopes.safesenior.app.safeseniorapp.network.SosStreamClient;
+import gabriellopes.safesenior.app.safeseniorapp.services.SosWatcherJob;
+import gabriellopes.safesenior.app.safeseniorapp.utils.AdaptivePollScheduler;
+import gabriellopes.safesenior.app.safeseniorapp.utils.BlinkClock;
+import gabriellopes.safesenior.app.safeseniorapp.utils.ConnectionIndex;
+import gabriellopes.safesenior.app.safeseniorapp.utils.StartupTimer;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
 public class MainActivity extends AppCompatActivity {
+    private static final int REQUEST_NOTIFICATIONS = 1;
 
     private android.widget.TextView sosAlertText;
     private View flashOverlay;
-    private android.animation.ObjectAnimator alertBlinkAnimator;
     private RecyclerView recyclerView;
     private ConnectionsAdapter adapter;
     private FloatingActionButton sosButton;
+    private EditText searchField;
+    private Button sortButton;
     private boolean sosActive = false;
-    private android.animation.ObjectAnimator blinkAnimator;
-    private SharedPrefHelper prefHelper;
+    // Only one "will send later" toast per offline stretch
+    private boolean queuedNoticeShown = false;
+    private AuthSession session;
+    private LocalStore localStore;
+    // SOS notifications already alerted (shared with the background watcher)
+    private AlertLog alertLog;
+    // Where the last notification sync stopped
+    private NotificationSync notificationSync;
+    // Durable queue for SOS/help changes
+    private Outbox outbox;
     private ApiInterface api;
-    private final android.os.Handler activeRefreshHandler = new android.os.Handler();
-
-    // Periodically refreshes the SOS status of all connections for real-time UI updates
-    private final Runnable activeRefreshRunnable = new Runnable() {
-        @Override
-        public void run() {
-            loadActiveSOS();
-            activeRefreshHandler.postDelayed(this, 5000);
-        }
-    };
+    // Loads the three dashboard lists in parallel
+    private DashboardRepository dashboardRepository;
+    // Push channel for SOS/help changes, polling is only used while it is down; null while stopped
+    private SosStreamClient sosStream;
+    // Periodically refreshes the SOS status of all connections (paused in background/offline)
+    private AdaptivePollScheduler activeRefreshScheduler;
+    // Loads the SOS history of users likely to be opened next into memory
+    private EventPrefetcher eventPrefetcher;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -56,6 +87,26 @@ public class MainActivity extends AppCompatActivity {
         // Force light theme because dark mode breaks visibility of SOS visuals
         AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
 
+        // Signed-in user (token is attached to requests by JwtInterceptor)
+        session = AuthSession.get();
+        // On-device copy of connections/notifications for instant first render
+        localStore = new LocalStore(this);
+        alertLog = AlertLog.get(this);
+        notificationSync = NotificationSync.get(this);
+        // SOS/help changes are queued here and sent (again) until the server has them
+        outbox = Outbox.get(this);
+        outbox.setListener(outboxListener);
+
+        // Retrofit instance used for all API requests (built by SafeSeniorApp during startup)
+        api = ApiClient.getClient().create(ApiInterface.class);
+        dashboardRepository = new DashboardRepository(api, notificationSync, this::runOnUiThread);
+        activeRefreshScheduler = new AdaptivePollScheduler(this, this, this::loadActiveSOS);
+        eventPrefetcher = new EventPrefetcher(api, EventCache.get());
+
+        // Start the cache read and the dashboard calls before inflating the layout; their results
+        // are posted to the main thread, so they are applied after onCreate
+        if (!loadConnections()) return;
+
         // Inflate the main dashboard layout
         setContentView(R.layout.activity_main);
 
@@ -63,22 +114,37 @@ public class MainActivity extends AppCompatActivity {
         sosAlertText = findViewById(R.id.sosAlertText);
         flashOverlay = findViewById(R.id.flashOverlay);
 
-        // Load saved authentication token and user details
-        prefHelper = new SharedPrefHelper(this);
-
-        // Retrofit instance used for all API requests
-        api = ApiClient.getClient().create(ApiInterface.class);
-
         // Main dashboard table (list of user connections)
         recyclerView = findViewById(R.id.recyclerConnections);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        StartupTimer.watch(this, recyclerView);
+
+        // Search and order of the connections, applied by the adapter in the background
+        searchField = findViewById(R.id.searchConnections);
+        searchField.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                if (adapter != null) adapter.setQuery(s.toString());
+            }
+        });
+        sortButton = findViewById(R.id.btnSort);
+        sortButton.setOnClickListener(v -> cycleOrder());
 
         // floating SOS button (toggle between start/stop)
         sosButton = findViewById(R.id.btnSOS);
         sosButton.setOnClickListener(v -> toggleSOS());
 
-        // Load connections and prepare dashboard
-        loadConnections();
+        // System notifications need a runtime permission from Android 13
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && checkSelfPermission(Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            requestPermissions(new String[]{Manifest.permission.POST_NOTIFICATIONS}, REQUEST_NOTIFICATIONS);
+        }
     }
 
     @Override
@@ -91,98 +157,139 @@ public class MainActivity extends AppCompatActivity {
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
         // Logout
         if (item.getItemId() == R.id.action_logout) {
-            prefHelper.clearAuth();
+            session.clear();
+            SosWatcherJob.cancel(this);
+            AlertLog.get(this).clear();
+            notificationSync.clear();
+            localStore.clear();
+            EventCache.get().clear();
+            ApiClient.clearCache();
             startActivity(new Intent(MainActivity.this, LoginActivity.class));
             finish();
             return true;
         }
+        if (item.getItemId() == R.id.action_diagnostics) {
+            Intent i = new Intent(this, DiagnosticsActivity.class);
+            i.putExtra(DiagnosticsActivity.EXTRA_POLLS_MADE, activeRefreshScheduler.getRequestsMade());
+            i.putExtra(DiagnosticsActivity.EXTRA_POLLS_SAVED, activeRefreshScheduler.getRequestsSaved());
+            startActivity(i);
+            return true;
+        }
         return super.onOptionsItemSelected(item);
     }
 
-    // Populate the dashboard with all the users that the current user is connected to
-    private void loadConnections() {
-        String token = prefHelper.getToken();
-        if (token == null) {
+    // Populate the dashboard with all the users that the current user is connected to.
+    // Cached connections are shown first, then replaced by one snapshot of connections,
+    // active SOS users and notifications that are loaded in parallel.
+    // False when there is no session and the login screen was opened instead.
+    private boolean loadConnections() {
+        if (!session.isLoggedIn()) {
             Toast.makeText(this, "No token found, redirecting to login", Toast.LENGTH_SHORT).show();
             startActivity(new Intent(this, LoginActivity.class));
             finish();
-            return;
+            return false;
         }
+        String userId = session.getUserId();
 
-        api.getConnections(token).enqueue(new Callback<List<Connection>>() {
+        // Render saved data on the first frame (the network answer usually comes later)
+        localStore.loadConnections(userId, cached -> {
+            if (adapter == null && !cached.isEmpty()) showConnections(cached);
+        });
+
+        dashboardRepository.load(snapshot -> showSnapshot(snapshot, userId));
+        return true;
+    }
+
+    // Apply a dashboard snapshot; parts whose call failed keep what is on screen
+    private void showSnapshot(DashboardSnapshot snapshot, String userId) {
+        if (snapshot.connections != null) {
+            localStore.saveConnections(userId, snapshot.connections);
+            if (!snapshot.connections.isEmpty()) {
+                showConnections(snapshot.connections);
+            } else {
+                if (adapter != null) adapter.setConnections(new ArrayList<>());
+                Toast.makeText(this, "No connections found", Toast.LENGTH_SHORT).show();
+            }
+        } else if (adapter != null) {
+            Toast.makeText(this, "Offline, showing saved data", Toast.LENGTH_SHORT).show();
+        } else {
+            Toast.makeText(this, snapshot.error, Toast.LENGTH_LONG).show();
+        }
+
+        if (snapshot.activeSosUsers != null) showActiveSOS(snapshot.activeSosUsers);
+        if (snapshot.notifications != null) showNotifications(snapshot.notifications);
+    }
+
+    // Attach the adapter the first time, afterwards just swap the list
+    private void showConnections(List<Connection> connections) {
+        if (adapter != null) {
+            adapter.setConnections(connections);
+            return;
+        }
+        // Attach adapter and load initial dashboard data
+        adapter = new ConnectionsAdapter(connections, new ConnectionsAdapter.OnConnectionClickListener() {
             @Override
-            public void onResponse(@NonNull Call<List<Connection>> call, @NonNull Response<List<Connection>> response) {
-                // If connections exist, build adapter
-                if (response.isSuccessful() && response.body() != null && !response.body().isEmpty()) {
-                    // Attach adapter and load initial dashboard data
-                    adapter = new ConnectionsAdapter(response.body(), new ConnectionsAdapter.OnConnectionClickListener() {
-                        @Override
-                        public void onConnectionClick(Connection connection) {
-                            // Open user SOS events history
-                            Intent i = new Intent(MainActivity.this, UserEventsActivity.class);
-                            i.putExtra("email", connection.user_email);
-                            i.putExtra("name", connection.user_name);
-                            startActivity(i);
-                        }
-
-                        @Override
-                        public void onSendMessageClick(Connection c) {
-                            // Help event requires the user device's ID
-                            if (c.device_id == null || c.device_id.isEmpty()) {
-                                Toast.makeText(MainActivity.this, "No device ID for this user", Toast.LENGTH_SHORT).show();
-                                return;
-                            }
-
-                            JsonObject body = new JsonObject();
-                            body.addProperty("device_id", c.device_id);
-                            // Toggle help event
-                            api.toggleHelp(token, body).enqueue(new Callback<Void>() {
-                                @Override
-                                public void onResponse(Call<Void> call, Response<Void> response) {
-
-                                }
-
-                                @Override
-                                public void onFailure(Call<Void> call, Throwable t) {
-                                    Toast.makeText(MainActivity.this, "Failed to send help", Toast.LENGTH_SHORT).show();
-                                }
-                            });
-                        }
-                    });
-                    recyclerView.setAdapter(adapter);
-                    loadActiveSOS();
-                    loadNotifications();
-                    startActiveSOSAutoRefresh();
-                } else if (response.isSuccessful()) {
-                    Toast.makeText(MainActivity.this, "No connections found", Toast.LENGTH_SHORT).show();
-                } else {
-                    String msg = "Failed: " + response.code();
-                    try {
-                        if (response.errorBody() != null)
-                            msg += " | " + response.errorBody().string();
-                    } catch (Exception ignored) {}
-                    Toast.makeText(MainActivity.this, msg, Toast.LENGTH_LONG).show();
-                }
+            public void onConnectionClick(Connection connection) {
+                // Open user SOS events history
+                Intent i = new Intent(MainActivity.this, UserEventsActivity.class);
+                i.putExtra("email", connection.user_email);
+                i.putExtra("name", connection.user_name);
+                startActivity(i);
             }
 
             @Override
-            public void onFailure(@NonNull Call<List<Connection>> call, @NonNull Throwable t) {
-                Toast.makeText(MainActivity.this, "Network failure: " + t.getMessage(), Toast.LENGTH_LONG).show();
+            public void onSendMessageClick(Connection c) {
+                // Help event requires the user device's ID
+                if (c.device_id == null || c.device_id.isEmpty()) {
+                    Toast.makeText(MainActivity.this, "No device ID for this user", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+
+                // The adapter already flipped the row; queue that state so it survives a bad network
+                outbox.setHelp(c.device_id, c.isOnTheWay());
             }
         });
+        // Text typed before the first list arrived
+        adapter.setQuery(searchField.getText().toString());
+        recyclerView.setAdapter(adapter);
+        // A list that arrives while in the background waits for onStart
+        if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) startSosStream();
+    }
+
+    // SOS first -> most recent SOS -> server order -> SOS first
+    private void cycleOrder() {
+        if (adapter == null) return;
+        ConnectionIndex.Order next;
+        String label;
+        switch (adapter.getOrder()) {
+            case SOS_FIRST:
+                next = ConnectionIndex.Order.RECENT_SOS;
+                label = "Recent SOS";
+                break;
+            case RECENT_SOS:
+                next = ConnectionIndex.Order.SERVER;
+                label = "Default";
+                break;
+            default:
+                next = ConnectionIndex.Order.SOS_FIRST;
+                label = "SOS first";
+                break;
+        }
+        adapter.setOrder(next);
+        sortButton.setText(label);
+        recyclerView.scrollToPosition(0);
     }
 
     // Refresh dashboard SOS state
     private void loadActiveSOS() {
-        String token = prefHelper.getToken();
-        if (token == null || adapter == null)
+        if (!session.isLoggedIn() || adapter == null)
             return;
         // Get the list of users who currently have an active SOS from API
-        api.getActiveSosUsers(token).enqueue(new Callback<List<Connection>>() {
+        api.getActiveSosUsers().enqueue(new Callback<List<Connection>>() {
             @Override
             public void onResponse(Call<List<Connection>> call, Response<List<Connection>> response) {
                 if (response.isSuccessful() && response.body() != null) {
-                    adapter.setActiveSOSUsers(response.body());
+                    showActiveSOS(response.body());
                 }
             }
 
@@ -191,130 +298,195 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
-    // Display unseen notifications
-    private void loadNotifications() {
-        String token = prefHelper.getToken();
-        if (token == null) return;
+    private void showActiveSOS(List<Connection> activeUsers) {
+        if (adapter == null) return;
+        adapter.setActiveSOSUsers(activeUsers);
+        eventPrefetcher.onActiveSosUsers(activeUsers);
+        activeRefreshScheduler.reportResult(!activeUsers.isEmpty());
+    }
+
+    // Apply the notifications that arrived since the last sync in one go:
+    // one list update for all highlighted users and one toast
+    private void showNotifications(List<Notification> notifications) {
+        if (notifications.isEmpty()) return;
+
+        Set<String> emails = new HashSet<>();
+        List<String> newAlerts = new ArrayList<>();
+        for (Notification n : notifications) {
+            if (n.seen_at != null || n.trigger_name == null) continue;
+            if (n.trigger_email != null) emails.add(n.trigger_email);
+            // The background watcher may have alerted already
+            if (alertLog.markShown(n.id)) newAlerts.add(n.trigger_name);
+        }
+        if (adapter != null && !emails.isEmpty()) adapter.highlightUsersByEmail(emails);
+        if (newAlerts.size() == 1) {
+            Toast.makeText(this, newAlerts.get(0) + " triggered an SOS!", Toast.LENGTH_LONG).show();
+        } else if (newAlerts.size() > 1) {
+            Toast.makeText(this, newAlerts.size() + " new SOS alerts", Toast.LENGTH_LONG).show();
+        }
+        notificationSync.advance(notifications);
+    }
 
-        api.getNotifications(token).enqueue(new Callback<List<Notification>>() {
+    // Receive SOS start/stop and help changes as they happen
+    private void startSosStream() {
+        if (sosStream != null) sosStream.stop();
+        sosStream = new SosStreamClient(new SosStreamClient.Listener() {
             @Override
-            public void onResponse(@NonNull Call<List<Notification>> call,
-                                   @NonNull Response<List<Notification>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    // highlight unseen SOS alerts
-                    for (Notification n : response.body()) {
-                        if (n.seen_at == null && n.trigger_name != null) {
-                            Toast.makeText(MainActivity.this,n.trigger_name + " triggered an SOS!",
-                                    Toast.LENGTH_LONG).show();
-                            if (adapter != null && n.trigger_email != null) {
-                                adapter.highlightUserByEmail(n.trigger_email);
-                            }
-                        }
-                    }
-                }
+            public void onActiveSosUsers(List<Connection> activeUsers) {
+                if (adapter == null) return;
+                adapter.setActiveSOSUsers(activeUsers);
+                eventPrefetcher.onActiveSosUsers(activeUsers);
             }
 
             @Override
-            public void onFailure(@NonNull Call<List<Notification>> call, @NonNull Throwable t) {}
-        });
+            public void onHelpStateChanged(String deviceId, boolean help) {
+                if (adapter != null) adapter.setHelpState(deviceId, help);
+            }
+
+            @Override
+            public void onStreamStateChanged(boolean connected) {
+                // Fall back to polling only while the stream is down
+                if (connected) stopActiveSOSAutoRefresh();
+                else startActiveSOSAutoRefresh();
+            }
+        }, this::runOnUiThread);
+        sosStream.start();
     }
 
     // Keeps the dashboard updated without user interaction
     private void startActiveSOSAutoRefresh() {
-        activeRefreshHandler.removeCallbacks(activeRefreshRunnable);
-        activeRefreshHandler.post(activeRefreshRunnable);
+        activeRefreshScheduler.start();
+    }
+
+    private void stopActiveSOSAutoRefresh() {
+        activeRefreshScheduler.stop();
+    }
+
+    // Every open stream costs the server a Supabase poll per second, so like the poll scheduler
+    // it only runs while the dashboard is visible
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (adapter != null && sosStream == null) startSosStream();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (sosStream != null) {
+            sosStream.stop();
+            sosStream = null;
+        }
+    }
+
+    // Back from a history screen (or the background): refresh the recently opened ones that got old
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (session.isLoggedIn()) eventPrefetcher.prefetchRecent();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        activeRefreshHandler.removeCallbacks(activeRefreshRunnable);
+        stopActiveSOSAutoRefresh();
+        eventPrefetcher.stop();
+        if (sosStream != null) sosStream.stop();
+        outbox.setListener(null);
     }
 
-    //  Toggle SOS (same endpoint for start and stop)
+    //  Toggle SOS: show the new state right away and let the outbox deliver it
     private void toggleSOS() {
-        String token = prefHelper.getToken();
-        if (token == null) {
+        if (!session.isLoggedIn()) {
             Toast.makeText(this, "Not authenticated", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        api.toggleSos(token).enqueue(new Callback<SosStartResponse>() {
-            @Override
-            public void onResponse(@NonNull Call<SosStartResponse> call, @NonNull Response<SosStartResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    // Use response.active to decide if SOS was started or stopped and update UI
-                    SosStartResponse sosResponse = response.body();
-                    if (sosResponse.active) {
-                        sosActive = true;
-                        startFlashingButton();
-                        Toast.makeText(MainActivity.this, "SOS TRIGGERED", Toast.LENGTH_SHORT).show();
-                    } else {
-                        sosActive = false;
-                        stopFlashingButton();
-                        Toast.makeText(MainActivity.this, "SOS STOPPED", Toast.LENGTH_SHORT).show();
-                    }
-                    // refresh dashboard states
-                    loadActiveSOS();
-                } else {
-                    Toast.makeText(MainActivity.this, "Failed to toggle SOS", Toast.LENGTH_SHORT).show();
-                }
-            }
+        showSosState(!sosActive);
+        outbox.setSos(sosActive);
+    }
 
-            @Override
-            public void onFailure(@NonNull Call<SosStartResponse> call, @NonNull Throwable t) {
-                Toast.makeText(MainActivity.this, "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        });
+    private void showSosState(boolean active) {
+        if (active == sosActive) return;
+        sosActive = active;
+        if (active) startFlashingButton();
+        else stopFlashingButton();
     }
 
+    // Results of queued SOS/help changes; the server state wins over what the UI assumed
+    private final Outbox.Listener outboxListener = new Outbox.Listener() {
+        @Override
+        public void onSosState(boolean active) {
+            queuedNoticeShown = false;
+            showSosState(active);
+            Toast.makeText(MainActivity.this, active ? "SOS TRIGGERED" : "SOS STOPPED", Toast.LENGTH_SHORT).show();
+            // refresh dashboard states
+            loadActiveSOS();
+        }
+
+        @Override
+        public void onHelpState(String deviceId, boolean help) {
+            queuedNoticeShown = false;
+            if (adapter != null) adapter.setHelpState(deviceId, help);
+        }
+
+        @Override
+        public void onQueued(int pending) {
+            if (queuedNoticeShown) return;
+            queuedNoticeShown = true;
+            Toast.makeText(MainActivity.this, "No connection, will send when back online", Toast.LENGTH_SHORT).show();
+        }
+
+        @Override
+        public void onFailed(Outbox.Entry entry, int code) {
+            queuedNoticeShown = false;
+            // The server never recorded the change: take back what the UI assumed
+            boolean expired = code == Outbox.EXPIRED;
+            if (Outbox.TYPE_SOS.equals(entry.type)) {
+                if (sosActive == entry.desired) showSosState(!entry.desired);
+                Toast.makeText(MainActivity.this, expired ? "SOS not sent, no connection for too long"
+                        : "Failed to toggle SOS", Toast.LENGTH_LONG).show();
+            } else {
+                if (adapter != null) adapter.setHelpState(entry.target, !entry.desired);
+                Toast.makeText(MainActivity.this, expired ? "Help not sent, no connection for too long"
+                        : "Failed to send help", Toast.LENGTH_SHORT).show();
+            }
+        }
+    };
+
     // Start all SOS visual alerts (button blink, text blink and screen overlay)
     private void startFlashingButton() {
+        BlinkClock clock = BlinkClock.get();
 
-        // Animation that repeatedly fades the SOS button in/out
-        blinkAnimator = android.animation.ObjectAnimator.ofFloat(sosButton, "alpha", 1f, 0.3f);
-        blinkAnimator.setDuration(500);
-        blinkAnimator.setRepeatMode(android.animation.ValueAnimator.REVERSE);
-        blinkAnimator.setRepeatCount(android.animation.ValueAnimator.INFINITE);
-        blinkAnimator.start();
+        // Repeatedly fade the SOS button in/out
+        clock.subscribe(sosButton, 1f, 0.3f, 500);
 
         // Turn the SOS button visibly red while active
         sosButton.setColorFilter(getColor(android.R.color.holo_red_dark));
 
         // Show and blink the red "SOS ALERT" label
         sosAlertText.setVisibility(View.VISIBLE);
-        android.animation.ObjectAnimator alertBlink = android.animation.ObjectAnimator.ofFloat(sosAlertText, "alpha", 1f, 0.3f);
-        alertBlink.setDuration(600);
-        alertBlink.setRepeatMode(android.animation.ValueAnimator.REVERSE);
-        alertBlink.setRepeatCount(android.animation.ValueAnimator.INFINITE);
-        alertBlink.start();
+        clock.subscribe(sosAlertText, 1f, 0.3f, 600);
 
-        // Show the full-screen red overlay with a pulsing fade effect
+        // Show the full-screen red overlay with a pulsing fade effect,
+        // drawn from a hardware layer so each frame only changes the layer alpha
         flashOverlay.setVisibility(View.VISIBLE);
-        android.animation.ObjectAnimator flashAnim = android.animation.ObjectAnimator.ofFloat(flashOverlay, "alpha", 0.8f, 0f);
-        flashAnim.setDuration(700);
-        flashAnim.setRepeatMode(android.animation.ValueAnimator.REVERSE);
-        flashAnim.setRepeatCount(android.animation.ValueAnimator.INFINITE);
-        flashAnim.start();
-
-        // Keep reference so animation can be stopped later
-        alertBlinkAnimator = flashAnim;
+        flashOverlay.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        clock.subscribe(flashOverlay, 0.8f, 0f, 700);
     }
 
     // Stop all SOS visual alerts (button blink, text blink and screen overlay)
     private void stopFlashingButton() {
-        // Stop blinking animation on the SOS button
-        if (blinkAnimator != null) {
-            blinkAnimator.cancel();
-            sosButton.setAlpha(1f);
-        }
-        // Remove red tint from the button
+        BlinkClock clock = BlinkClock.get();
+
+        // Stop blinking on the SOS button and remove the red tint
+        clock.unsubscribe(sosButton);
         sosButton.clearColorFilter();
 
-        // Stop overlay animation if active
-        if (alertBlinkAnimator != null) {
-            alertBlinkAnimator.cancel();
-        }
+        // Stop label and overlay blinking
+        clock.unsubscribe(sosAlertText);
+        clock.unsubscribe(flashOverlay);
+        flashOverlay.setLayerType(View.LAYER_TYPE_NONE, null);
 
         // Hide flashing UI elements
         flashOverlay.setVisibility(View.GONE);
@@ -1,6 +1,9 @@
 package gabriellopes.safesenior.app.safeseniorapp.activities;
 
+import android.graphics.Color;
 import android.os.Bundle;
+import android.view.View;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
@@ -9,25 +12,40 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import gabriellopes.safesenior.app.safeseniorapp.R;
 import gabriellopes.safesenior.app.safeseniorapp.adapters.EventsAdapter;
-import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.data.EventCache;
+import gabriellopes.safesenior.app.safeseniorapp.data.EventPager;
+import gabriellopes.safesenior.app.safeseniorapp.data.EventStats;
+import gabriellopes.safesenior.app.safeseniorapp.data.EventStatsSync;
+import gabriellopes.safesenior.app.safeseniorapp.data.SqliteEventStatsStore;
+import gabriellopes.safesenior.app.safeseniorapp.data.LocalStore;
+import gabriellopes.safesenior.app.safeseniorapp.models.EventRow;
 import gabriellopes.safesenior.app.safeseniorapp.network.ApiClient;
 import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
-import gabriellopes.safesenior.app.safeseniorapp.network.SharedPrefHelper;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import gabriellopes.safesenior.app.safeseniorapp.network.AuthSession;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
 
 public class UserEventsActivity extends AppCompatActivity {
+    // Rows left below the screen when the next page is requested
+    private static final int PREFETCH_DISTANCE = 5;
+    // Responders listed by name in the statistics
+    private static final int TOP_RESPONDERS = 3;
 
     private RecyclerView recyclerEvents;
+    private TextView statsText;
     private EventsAdapter adapter;
     private ApiInterface api;
-    private SharedPrefHelper prefHelper;
+    private LocalStore localStore;
     // Email of the user whose SOS history is being displayed
     private String selectedUserEmail;
+    // Pages through the history from the network
+    private EventPager pager;
+    // Set once the network answered, cached rows are ignored after that
+    private boolean networkLoaded = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -42,38 +60,144 @@ public class UserEventsActivity extends AppCompatActivity {
         // List that will display the selected user's SOS events
         recyclerEvents = findViewById(R.id.recyclerEvents);
         recyclerEvents.setLayoutManager(new LinearLayoutManager(this));
+        statsText = findViewById(R.id.txtStats);
 
-        // Helpers for reading auth token and calling the API
-        prefHelper = new SharedPrefHelper(this);
+        // Helpers for the local cache and calling the API
+        localStore = new LocalStore(this);
         api = ApiClient.getClient().create(ApiInterface.class);
 
         loadEvents();
+        loadStats();
     }
 
-    // Load User SOS events
+    // Load User SOS events: first page from memory (opened or prefetched earlier) or else the
+    // saved one, then pages from the network as the user scrolls.
+    // Rows of a page appear as they are decoded, before the whole page has downloaded.
     private void loadEvents() {
-        String token = prefHelper.getToken();
-        if (token == null || selectedUserEmail == null) {
+        if (!AuthSession.get().isLoggedIn() || selectedUserEmail == null) {
             Toast.makeText(this, "Missing email", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        api.getEvents(token, selectedUserEmail).enqueue(new Callback<List<Event>>() {
+        EventCache cache = EventCache.get();
+        List<EventRow> inMemory = cache.open(selectedUserEmail);
+        if (inMemory != null) {
+            // Already formatted, so it is on the first frame; the network still revalidates it
+            showRows(inMemory);
+        } else {
+            localStore.loadEvents(selectedUserEmail, EventPager.PAGE_SIZE, cached -> {
+                if (cached.isEmpty() || networkLoaded) return;
+                RowMapper.mapEvents(cached, rows -> {
+                    // Never let the cache overwrite a fresher network result
+                    if (!networkLoaded) showRows(rows);
+                });
+            });
+        }
+
+        pager = new EventPager(api, selectedUserEmail, localStore, cache, this::runOnUiThread, new EventPager.Listener() {
             @Override
-            public void onResponse(Call<List<Event>> call, Response<List<Event>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    // Bind retrieved events to the RecyclerView
-                    adapter = new EventsAdapter(response.body());
-                    recyclerEvents.setAdapter(adapter);
-                } else {
-                    Toast.makeText(UserEventsActivity.this, "No events found", Toast.LENGTH_SHORT).show();
+            public void onRows(List<EventRow> rows, boolean replace) {
+                if (replace) {
+                    networkLoaded = true;
+                    showRows(rows);
+                } else if (adapter != null) {
+                    adapter.appendRows(rows);
                 }
             }
 
             @Override
-            public void onFailure(Call<List<Event>> call, Throwable t) {
-                Toast.makeText(UserEventsActivity.this, "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(String message) {
+                Toast.makeText(UserEventsActivity.this, message, Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        // Ask for the next page a few rows before the end so it is there when the user gets to it
+        recyclerEvents.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0 || adapter == null || !networkLoaded) return;
+                LinearLayoutManager layout = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layout.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    pager.loadNextPage();
+                }
+            }
+        });
+        pager.refresh();
+    }
+
+    // Statistics of the whole history: the numbers saved by an earlier visit (even before a
+    // restart) are shown first, then only the events that are new since then are downloaded
+    private void loadStats() {
+        if (!AuthSession.get().isLoggedIn() || selectedUserEmail == null) return;
+        EventStatsSync.update(api, selectedUserEmail, new SqliteEventStatsStore(this), this::runOnUiThread,
+                new EventStatsSync.Listener() {
+            @Override
+            public void onStats(EventStats.Summary summary) {
+                showStats(summary);
+            }
+
+            @Override
+            public void onError(String message) {
+                // The list reports network errors already, keep whatever numbers are shown
             }
         });
     }
+
+    private void showStats(EventStats.Summary s) {
+        if (s.total == 0) {
+            statsText.setVisibility(View.GONE);
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        text.append(s.total).append(s.total == 1 ? " SOS" : " SOS events");
+        if (s.open > 0) text.append(", ").append(s.open).append(" active");
+        text.append(String.format(Locale.getDefault(), " - %.1f per day, %.1f per week",
+                s.eventsPerDay, s.getEventsPerWeek()));
+        if (s.timedResponses > 0) {
+            text.append("\nResponse time: median ").append(formatDuration(s.responseP50Millis))
+                    .append(", 90% within ").append(formatDuration(s.responseP90Millis))
+                    .append(", slowest ").append(formatDuration(s.responseMaxMillis));
+        }
+        if (s.responded + s.unanswered > 0) {
+            text.append(String.format(Locale.getDefault(), "\nStopped without a response: %d (%.0f%%)",
+                    s.unanswered, s.getUnansweredShare() * 100));
+        }
+        if (!s.responders.isEmpty()) {
+            text.append("\nResponded by: ");
+            for (int i = 0; i < s.responders.size() && i < TOP_RESPONDERS; i++) {
+                Map.Entry<String, Integer> responder = s.responders.get(i);
+                if (i > 0) text.append(", ");
+                text.append(responder.getKey()).append(" (").append(responder.getValue()).append(')');
+            }
+            if (s.responders.size() > TOP_RESPONDERS) {
+                text.append(" and ").append(s.responders.size() - TOP_RESPONDERS).append(" more");
+            }
+        }
+        if (s.spike) {
+            text.append(String.format(Locale.getDefault(), "\nUnusual activity: %d SOS in the last %d days, usually about %.1f",
+                    s.lastWindowEvents, EventStats.SPIKE_WINDOW_DAYS, s.usualWindowEvents));
+        }
+        statsText.setText(text);
+        statsText.setTextColor(s.spike ? Color.RED : Color.DKGRAY);
+        statsText.setVisibility(View.VISIBLE);
+    }
+
+    // 45 s, 12 min, 2 h 5 min
+    private static String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        if (seconds < 60) return seconds + " s";
+        long minutes = seconds / 60;
+        if (minutes < 60) return minutes + " min";
+        return minutes / 60 + " h " + minutes % 60 + " min";
+    }
+
+    // Attach the adapter the first time, afterwards just swap the rows
+    private void showRows(List<EventRow> rows) {
+        if (adapter == null) {
+            adapter = new EventsAdapter(rows);
+            recyclerEvents.setAdapter(adapter);
+        } else {
+            adapter.setRows(rows);
+        }
+    }
 }
@@ -1,24 +1,35 @@
 package gabriellopes.safesenior.app.safeseniorapp.adapters;
 
-import android.animation.ObjectAnimator;
-import android.animation.ValueAnimator;
-import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import gabriellopes.safesenior.app.safeseniorapp.R;
 import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.ConnectionRow;
+import gabriellopes.safesenior.app.safeseniorapp.utils.BlinkClock;
+import gabriellopes.safesenior.app.safeseniorapp.utils.ConnectionIndex;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
 
-public class ConnectionsAdapter extends RecyclerView.Adapter<ConnectionsAdapter.ViewHolder> {
+// Diff-based adapter: ListAdapter computes the diff on a background thread and
+// only rows whose SOS state changed get a (partial) rebind.
+// The search text and order are applied on RowMapper's filter thread before the diff.
+public class ConnectionsAdapter extends ListAdapter<ConnectionRow, ConnectionsAdapter.ViewHolder> {
 
     // Handle UI actions from each row (item click + respond button)
     public interface OnConnectionClickListener {
@@ -26,21 +37,86 @@ public class ConnectionsAdapter extends RecyclerView.Adapter<ConnectionsAdapter.
         void onSendMessageClick(Connection connection);
     }
 
+    // Views of one row; the ViewHolder implements it, tests can measure the bind path without Android
+    interface RowTarget {
+        void setName(CharSequence text);
+        void setEmail(CharSequence text);
+        void setStatus(CharSequence text, int color);
+        void setRowBackground(int color);
+        void setButton(boolean visible, CharSequence text);
+    }
+
+    // Payload for rebinding only the SOS highlight / respond button of a row
+    private static final Object PAYLOAD_SOS_STATE = new Object();
+
+    private static final DiffUtil.ItemCallback<ConnectionRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<ConnectionRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ConnectionRow oldItem, @NonNull ConnectionRow newItem) {
+            return Objects.equals(oldItem.email, newItem.email);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ConnectionRow oldItem, @NonNull ConnectionRow newItem) {
+            return oldItem.sameInfo(newItem)
+                    && oldItem.sosActive == newItem.sosActive
+                    && oldItem.onTheWay == newItem.onTheWay;
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull ConnectionRow oldItem, @NonNull ConnectionRow newItem) {
+            // Only the SOS state moved, skip rebinding the text fields
+            if (oldItem.sameInfo(newItem)) return PAYLOAD_SOS_STATE;
+            return null;
+        }
+    };
+
     // List of all connections displayed in the RecyclerView
-    private final List<Connection> connections;
+    private List<Connection> connections;
+    // Pre-formatted rows (SOS state not applied), null until mapped in the background
+    private List<ConnectionRow> baseRows;
     // Handle actions when the user clicks anything
     private final OnConnectionClickListener listener;
-    // Stores the emails of users who currently have an active SOS
-    private final List<String> activeSosEmails = new ArrayList<>();
+    // Emails of users who currently have an active SOS (hash lookup per row)
+    private final Set<String> activeSosEmails = new HashSet<>();
+    // Prefix index over baseRows, rebuilt whenever the list is swapped
+    private ConnectionIndex index;
+    private String query = "";
+    private ConnectionIndex.Order order = ConnectionIndex.Order.SOS_FIRST;
+    // Bumped by every submit so a slower, older filter result is never shown
+    private int filterGeneration = 0;
 
     // Receives connection list
     public ConnectionsAdapter(List<Connection> connections, OnConnectionClickListener listener) {
-        this.connections = connections;
+        super(DIFF_CALLBACK);
         this.listener = listener;
+        setConnections(connections);
+    }
+
+    // Swap in a fresh connection list (e.g. network result after showing cached data)
+    public void setConnections(List<Connection> updated) {
+        List<Connection> next = updated != null ? updated : new ArrayList<>();
+        // Keep the local "on the way" state of people that are still listed
+        if (connections != null) {
+            Map<String, Connection> previous = new HashMap<>();
+            for (Connection c : connections) {
+                if (c.user_email != null) previous.put(c.user_email, c);
+            }
+            for (Connection c : next) {
+                Connection old = previous.get(c.user_email);
+                if (old != null) c.setOnTheWay(old.isOnTheWay());
+            }
+        }
+        connections = next;
+        // Parse and format, then index, off the main thread
+        RowMapper.mapConnections(next, rows -> RowMapper.indexConnections(rows, built -> {
+            baseRows = rows;
+            index = built;
+            submitItems();
+        }));
     }
 
     // Holds references to each row's UI components
-    public static class ViewHolder extends RecyclerView.ViewHolder {
+    public static class ViewHolder extends RecyclerView.ViewHolder implements RowTarget {
         TextView name, email, lastSos;
         android.widget.Button btnMessage;
 
@@ -51,6 +127,33 @@ public class ConnectionsAdapter extends RecyclerView.Adapter<ConnectionsAdapter.
             lastSos = itemView.findViewById(R.id.txtLastSos);
             btnMessage = itemView.findViewById(R.id.btnMessage);
         }
+
+        @Override
+        public void setName(CharSequence text) {
+            name.setText(text);
+        }
+
+        @Override
+        public void setEmail(CharSequence text) {
+            email.setText(text);
+        }
+
+        @Override
+        public void setStatus(CharSequence text, int color) {
+            lastSos.setText(text);
+            lastSos.setTextColor(color);
+        }
+
+        @Override
+        public void setRowBackground(int color) {
+            itemView.setBackgroundColor(color);
+        }
+
+        @Override
+        public void setButton(boolean visible, CharSequence text) {
+            btnMessage.setVisibility(visible ? View.VISIBLE : View.GONE);
+            btnMessage.setText(text);
+        }
     }
 
     // Create a new inflated row layout
@@ -59,113 +162,133 @@ public class ConnectionsAdapter extends RecyclerView.Adapter<ConnectionsAdapter.
     public ConnectionsAdapter.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_connection, parent, false);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+
+        // Listeners are set once per holder and look the row up on click, so binding allocates nothing
+        // Clicking the row opens event history
+        view.setOnClickListener(v -> {
+            int pos = holder.getBindingAdapterPosition();
+            if (pos != RecyclerView.NO_POSITION) listener.onConnectionClick(getItem(pos).connection);
+        });
+        holder.btnMessage.setOnClickListener(v -> {
+            int pos = holder.getBindingAdapterPosition();
+            if (pos == RecyclerView.NO_POSITION) return;
+            Connection connection = getItem(pos).connection;
+            // Toggle "respond" button state
+            connection.setOnTheWay(!connection.isOnTheWay());
+            submitItems();
+            listener.onSendMessageClick(connection);
+        });
+        return holder;
     }
 
-    // Bind connection info + SOS UI state to a row
+    // Partial bind: only the SOS state of the row changed
     @Override
-    public void onBindViewHolder(@NonNull ConnectionsAdapter.ViewHolder holder, int position) {
-        Connection connection = connections.get(position);
-
-        // Basic info
-        holder.name.setText(connection.user_name);
-        holder.email.setText(connection.user_email);
-
-        // Format last SOS timestamp if available
-        if (connection.last_sos != null && !connection.last_sos.equals("-")) {
-            try {
-                java.time.ZonedDateTime zdt = java.time.ZonedDateTime.parse(connection.last_sos);
-                java.time.format.DateTimeFormatter fmt =
-                        java.time.format.DateTimeFormatter.ofPattern("dd-MM-yyyy   HH:mm");
-                String formatted = zdt.toLocalDateTime().format(fmt);
-                holder.lastSos.setText("Last SOS: " + formatted);
-            } catch (Exception e) {
-                holder.lastSos.setText("Last SOS: -");
-            }
+    public void onBindViewHolder(@NonNull ConnectionsAdapter.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_SOS_STATE)) {
+            ConnectionRow row = getItem(position);
+            bindState(row, holder);
+            updateBlink(holder, row.sosActive);
         } else {
-            holder.lastSos.setText("Last SOS: -");
+            onBindViewHolder(holder, position);
         }
-        // Check if current connection has an active SOS
-        boolean isActiveSOS = activeSosEmails.contains(connection.user_email);
+    }
 
-        // Cancel any previous animator tied to this holder
-        if (holder.itemView.getTag() instanceof ObjectAnimator) {
-            ((ObjectAnimator) holder.itemView.getTag()).cancel();
-            holder.itemView.setAlpha(1f);
-        }
+    // Bind connection info + SOS UI state to a row
+    @Override
+    public void onBindViewHolder(@NonNull ConnectionsAdapter.ViewHolder holder, int position) {
+        ConnectionRow row = getItem(position);
+        bindRow(row, holder);
+        updateBlink(holder, row.sosActive);
+    }
+
+    // Full bind: plain field assignment from the pre-formatted row
+    static void bindRow(ConnectionRow row, RowTarget target) {
+        target.setName(row.name);
+        target.setEmail(row.email);
+        bindState(row, target);
+    }
 
-        if (isActiveSOS) {
-            // Highlight and blink
-            holder.itemView.setBackgroundColor(Color.parseColor("#FFCDD2"));
-            holder.lastSos.setText("ACTIVE SOS!");
-            holder.lastSos.setTextColor(Color.RED);
-            holder.btnMessage.setVisibility(View.VISIBLE);
-
-            // Blink the entire row
-            ObjectAnimator animator = ObjectAnimator.ofFloat(holder.itemView, "alpha", 1f, 0.3f);
-            animator.setDuration(600);
-            animator.setRepeatMode(ValueAnimator.REVERSE);
-            animator.setRepeatCount(ValueAnimator.INFINITE);
-            animator.start();
-            holder.itemView.setTag(animator);
-
-            // Button shows state based on user "on the way" flag
-            if (connection.isOnTheWay())
-                holder.btnMessage.setText("Cancel");
-            else
-                holder.btnMessage.setText("Respond");
-
-            holder.btnMessage.setOnClickListener(v -> {
-                // Toggle "respond" button state
-                connection.setOnTheWay(!connection.isOnTheWay());
-                // Update UI to match state
-                if (connection.isOnTheWay()) {
-                    holder.btnMessage.setText("Cancel");
-                }else {
-                    holder.btnMessage.setText("Respond");
-                }
-                listener.onSendMessageClick(connection);
-            });
+    // Highlight, last SOS label and respond button
+    static void bindState(ConnectionRow row, RowTarget target) {
+        target.setRowBackground(row.backgroundColor);
+        target.setStatus(row.statusText, row.statusColor);
+        target.setButton(row.sosActive, row.buttonText);
+    }
+
+    // Blink active rows on the shared clock (off-screen rows pause automatically)
+    private void updateBlink(ViewHolder holder, boolean sosActive) {
+        if (sosActive) {
+            BlinkClock.get().subscribe(holder.itemView, 1f, 0.3f, 600);
         } else {
-            // Reset to default appearance
-            connection.setOnTheWay(false);
-            holder.itemView.setBackgroundColor(Color.WHITE);
-            holder.lastSos.setTextColor(Color.BLACK);
-            holder.btnMessage.setVisibility(View.GONE);
-            holder.itemView.setAlpha(1f);
-            holder.itemView.setTag(null);
+            BlinkClock.get().unsubscribe(holder.itemView);
         }
-
-        // Clicking the row opens event history
-        holder.itemView.setOnClickListener(v -> listener.onConnectionClick(connection));
     }
 
-    // How many rows to show
+    // Stop the blink of rows that scroll away or get recycled
     @Override
-    public int getItemCount() {
-        return connections != null ? connections.size() : 0;
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        updateBlink(holder, false);
     }
 
     // Replace active SOS list and refresh UI
     public void setActiveSOSUsers(List<Connection> activeUsers) {
+        Set<String> updated = RowMapper.activeEmails(activeUsers);
+        if (updated.equals(activeSosEmails)) return;
         activeSosEmails.clear();
-        if (activeUsers != null) {
-            for (Connection u : activeUsers) {
-                if (u.user_email != null) {
-                    activeSosEmails.add(u.user_email);
-                }
-            }
+        activeSosEmails.addAll(updated);
+        submitItems();
+    }
+
+    // Mark users as active SOS (triggered by notifications), one list update for the whole batch
+    public void highlightUsersByEmail(Collection<String> emails) {
+        boolean changed = false;
+        for (String email : emails) {
+            if (email != null && activeSosEmails.add(email)) changed = true;
         }
-        notifyDataSetChanged();
+        if (changed) submitItems();
     }
 
-    // Mark one user as active SOS (triggered by notification)
-    public void highlightUserByEmail(String email) {
-        if (email == null) return;
-        if (!activeSosEmails.contains(email)) {
-            activeSosEmails.add(email);
-            notifyDataSetChanged();
+    // Sync the "on the way" state of a user's device (pushed by the SOS stream)
+    public void setHelpState(String deviceId, boolean help) {
+        if (deviceId == null) return;
+        boolean changed = false;
+        for (Connection c : connections) {
+            if (deviceId.equals(c.device_id) && c.isOnTheWay() != help) {
+                c.setOnTheWay(help);
+                changed = true;
+            }
         }
+        if (changed) submitItems();
+    }
+
+    // Show only people whose name or email words start with the words of text
+    public void setQuery(String text) {
+        String next = text != null ? text : "";
+        if (next.equals(query)) return;
+        query = next;
+        submitItems();
+    }
+
+    public void setOrder(ConnectionIndex.Order next) {
+        if (next == order) return;
+        order = next;
+        submitItems();
+    }
+
+    public ConnectionIndex.Order getOrder() {
+        return order;
+    }
+
+    // Apply the SOS state to the pre-formatted rows, then filter and sort them in the background
+    // and hand the result to the differ
+    private void submitItems() {
+        if (baseRows == null) return;
+        List<ConnectionRow> rows = RowMapper.withSosState(baseRows, activeSosEmails);
+        int generation = ++filterGeneration;
+        RowMapper.filterConnections(index, rows, query, order, shown -> {
+            if (generation == filterGeneration) submitList(shown);
+        });
     }
 
 }
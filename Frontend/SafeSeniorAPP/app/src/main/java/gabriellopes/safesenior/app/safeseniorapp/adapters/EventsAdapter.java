@@ -8,29 +8,41 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import gabriellopes.safesenior.app.safeseniorapp.R;
-import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.models.EventRow;
 
 public class EventsAdapter extends RecyclerView.Adapter<EventsAdapter.ViewHolder> {
-    // List of SOS events to display
-    private final List<Event> events;
+
+    // Views of one row; the ViewHolder implements it, tests can measure the bind path without Android
+    interface RowTarget {
+        void setEventId(CharSequence text);
+        void setOnAt(CharSequence text);
+        void setOffAt(CharSequence text);
+        void setStatus(CharSequence text, int color);
+    }
+
+    // Pre-formatted SOS events to display (see RowMapper)
+    private List<EventRow> events;
     // Store events passed from the activity
-    public EventsAdapter(List<Event> events) {
-        this.events = events;
+    public EventsAdapter(List<EventRow> events) {
+        this.events = new ArrayList<>(events);
     }
 
-    // Convert an ISO8601 date string into a readable format for the UI
-    private String formatDate(String isoString) {
-        try {
-            java.time.OffsetDateTime odt = java.time.OffsetDateTime.parse(isoString);
-            java.time.format.DateTimeFormatter fmt =
-                    java.time.format.DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-            return odt.toLocalDateTime().format(fmt);
-        } catch (Exception e) {
-            return "-";
-        }
+    // Replace the rows (e.g. network result after showing cached data)
+    public void setRows(List<EventRow> rows) {
+        this.events = new ArrayList<>(rows);
+        notifyDataSetChanged();
+    }
+
+    // Next page of older events goes to the end of the list
+    public void appendRows(List<EventRow> rows) {
+        if (rows.isEmpty()) return;
+        int start = events.size();
+        events.addAll(rows);
+        notifyItemRangeInserted(start, rows.size());
     }
 
     // Inflate the layout for a single event row
@@ -45,29 +57,15 @@ public class EventsAdapter extends RecyclerView.Adapter<EventsAdapter.ViewHolder
     // Bind each event's data into the row views
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Event e = events.get(position);
-
-        // Show event ID
-        holder.txtEventId.setText("Event: " + e.event_id);
-
-        // Format item display
-        if (e.on_at != null) holder.txtOnAt.setText("Started: " + formatDate(e.on_at));
-        else holder.txtOnAt.setText("Started: -");
-        if (e.off_at != null) holder.txtOffAt.setText("Stopped: " + formatDate(e.off_at));
-        else holder.txtOffAt.setText("Stopped: Active");
-
-        // Status text
-        if (!e.handled) {
-            holder.txtHandled.setText("Status: Active");
-            holder.txtHandled.setTextColor(android.graphics.Color.RED);
-        } else if (e.handled && e.handled_by != null && !e.handled_by.isEmpty()) {
-            holder.txtHandled.setText("Status: Responded by " + e.handled_by);
-            holder.txtHandled.setTextColor(android.graphics.Color.parseColor("#2E7D32")); // green
-        } else {
-            holder.txtHandled.setText("Status: Stopped by User (No response)");
-            holder.txtHandled.setTextColor(android.graphics.Color.DKGRAY);
-        }
+        bindRow(events.get(position), holder);
+    }
 
+    // Plain field assignment, all parsing and formatting happened in RowMapper
+    static void bindRow(EventRow row, RowTarget target) {
+        target.setEventId(row.eventIdText);
+        target.setOnAt(row.onAtText);
+        target.setOffAt(row.offAtText);
+        target.setStatus(row.statusText, row.statusColor);
     }
 
     // Number of events in the list
@@ -77,7 +75,7 @@ public class EventsAdapter extends RecyclerView.Adapter<EventsAdapter.ViewHolder
     }
 
     // Holds references to the TextViews inside a row
-    public static class ViewHolder extends RecyclerView.ViewHolder {
+    public static class ViewHolder extends RecyclerView.ViewHolder implements RowTarget {
         TextView txtEventId, txtOnAt, txtOffAt, txtHandled;
 
         // Connect UI elements from XML to Java fields
@@ -88,5 +86,26 @@ public class EventsAdapter extends RecyclerView.Adapter<EventsAdapter.ViewHolder
             txtOffAt = itemView.findViewById(R.id.txtOffAt);
             txtHandled = itemView.findViewById(R.id.txtHandled);
         }
+
+        @Override
+        public void setEventId(CharSequence text) {
+            txtEventId.setText(text);
+        }
+
+        @Override
+        public void setOnAt(CharSequence text) {
+            txtOnAt.setText(text);
+        }
+
+        @Override
+        public void setOffAt(CharSequence text) {
+            txtOffAt.setText(text);
+        }
+
+        @Override
+        public void setStatus(CharSequence text, int color) {
+            txtHandled.setText(text);
+            txtHandled.setTextColor(color);
+        }
     }
 }
@@ -0,0 +1,51 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.text.TextUtils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// Ids of SOS notifications the user has already been alerted about, by a toast on the dashboard
+// or by a system notification from the background watcher, so each one is shown only once.
+public class AlertLog {
+    private static final String PREFS_NAME = "SafeSeniorAlerts";
+    private static final String SHOWN_KEY = "shown_ids";
+    // Oldest ids are forgotten past this, the server never resends them as unseen for that long
+    private static final int MAX_IDS = 200;
+
+    private static AlertLog instance;
+
+    private final SharedPreferences prefs;
+    // Oldest first
+    private final Deque<String> shown = new ArrayDeque<>();
+
+    private AlertLog(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String saved = prefs.getString(SHOWN_KEY, "");
+        for (String id : saved.split(",")) {
+            if (!id.isEmpty()) shown.addLast(id);
+        }
+    }
+
+    public static synchronized AlertLog get(Context context) {
+        if (instance == null) instance = new AlertLog(context);
+        return instance;
+    }
+
+    // True the first time an id is seen, false if it was already alerted
+    public synchronized boolean markShown(String id) {
+        if (id == null || shown.contains(id)) return false;
+        shown.addLast(id);
+        while (shown.size() > MAX_IDS) shown.removeFirst();
+        prefs.edit().putString(SHOWN_KEY, TextUtils.join(",", shown)).apply();
+        return true;
+    }
+
+    // Logout
+    public synchronized void clear() {
+        shown.clear();
+        prefs.edit().remove(SHOWN_KEY).apply();
+    }
+}
@@ -0,0 +1,97 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.DashboardSnapshot;
+import gabriellopes.safesenior.app.safeseniorapp.models.Notification;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
+import retrofit2.Call;
+import retrofit2.Response;
+
+// Loads connections, active SOS users and notifications at the same time and joins them
+// into one DashboardSnapshot, so a cold dashboard waits for the slowest call instead of all three
+// in a row. A failed or timed out call leaves its list null; the others are still shown.
+public class DashboardRepository {
+
+    public interface Callback {
+        void onSnapshot(DashboardSnapshot snapshot);
+    }
+
+    // Per call, so one slow endpoint can't hold the whole dashboard for the client read timeout
+    private static final long CALL_TIMEOUT_SECONDS = 8;
+
+    private final ApiInterface api;
+    private final NotificationSync notificationSync;
+    private final Executor callbackExecutor;
+
+    // Without a NotificationSync the full notification list is loaded every time
+    public DashboardRepository(ApiInterface api, NotificationSync notificationSync, Executor callbackExecutor) {
+        this.api = api;
+        this.notificationSync = notificationSync;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public void load(Callback callback) {
+        Load load = new Load(callback);
+        fetch(api.getConnections(), load.connections, load);
+        fetch(api.getActiveSosUsers(), load.activeSosUsers, load);
+        // Only notifications newer than the last processed one
+        Call<List<Notification>> notifications = notificationSync != null
+                ? api.getNotifications(notificationSync.getAfter(), notificationSync.getAfterId())
+                : api.getNotifications(null, null);
+        fetch(notifications, load.notifications, load);
+    }
+
+    // Results of one load(); the last call to finish publishes the snapshot
+    private final class Load {
+        final AtomicReference<List<Connection>> connections = new AtomicReference<>();
+        final AtomicReference<List<Connection>> activeSosUsers = new AtomicReference<>();
+        final AtomicReference<List<Notification>> notifications = new AtomicReference<>();
+        final AtomicReference<String> error = new AtomicReference<>();
+        final AtomicInteger pending = new AtomicInteger(3);
+        final long startedAt = elapsedMillis();
+        final Callback callback;
+
+        Load(Callback callback) {
+            this.callback = callback;
+        }
+
+        void done() {
+            if (pending.decrementAndGet() != 0) return;
+            DashboardSnapshot snapshot = new DashboardSnapshot(connections.get(), activeSosUsers.get(),
+                    notifications.get(), error.get(), elapsedMillis() - startedAt);
+            callbackExecutor.execute(() -> callback.onSnapshot(snapshot));
+        }
+    }
+
+    private static <T> void fetch(Call<List<T>> call, AtomicReference<List<T>> result, Load load) {
+        call.timeout().timeout(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        call.enqueue(new retrofit2.Callback<List<T>>() {
+            @Override
+            public void onResponse(Call<List<T>> c, Response<List<T>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    result.set(response.body());
+                } else {
+                    load.error.compareAndSet(null, "Failed: " + response.code());
+                }
+                load.done();
+            }
+
+            @Override
+            public void onFailure(Call<List<T>> c, Throwable t) {
+                load.error.compareAndSet(null, "Network failure: " + t.getMessage());
+                load.done();
+            }
+        });
+    }
+
+    // Monotonic, unaffected by wall clock changes
+    private static long elapsedMillis() {
+        return System.nanoTime() / 1_000_000;
+    }
+}
@@ -0,0 +1,186 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.EventRow;
+
+// In-memory copy of the newest page of each user's SOS history, as formatted rows, so
+// UserEventsActivity can show it on its first frame and revalidate from the network after.
+// Filled by EventPager when a history is opened and by EventPrefetcher before it is.
+// Bounded twice: past maxUsers the least recently used user is dropped, and an entry older
+// than ttlMillis is a miss. One instance for the process, see get(); safe from any thread.
+public class EventCache {
+    public static final int MAX_USERS = 20;
+    public static final long TTL_MILLIS = 10 * 60_000;
+
+    private static EventCache instance;
+
+    private static final class Entry {
+        final List<EventRow> rows;
+        // When the request for these rows started
+        final long fetchedAt;
+        // Put by the prefetcher and not opened since
+        boolean prefetched;
+        // Last time the user opened this history, 0 if never
+        long viewedAt;
+
+        Entry(List<EventRow> rows, long fetchedAt, boolean prefetched) {
+            this.rows = rows;
+            this.fetchedAt = fetchedAt;
+            this.prefetched = prefetched;
+        }
+    }
+
+    private final int maxUsers;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    // Access order: the first entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries;
+
+    private long hits;
+    private long prefetchHits;
+    private long misses;
+    private long expired;
+    private long evictions;
+    private long prefetches;
+
+    public EventCache(int maxUsers, long ttlMillis, LongSupplier clock) {
+        this.maxUsers = maxUsers;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= EventCache.this.maxUsers) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    public static synchronized EventCache get() {
+        if (instance == null) instance = new EventCache(MAX_USERS, TTL_MILLIS, System::currentTimeMillis);
+        return instance;
+    }
+
+    // The history is being opened: its rows if they are in memory and fresh, otherwise null
+    public synchronized List<EventRow> open(String email) {
+        Entry entry = entries.get(email);
+        long now = clock.getAsLong();
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        entry.viewedAt = now;
+        if (now - entry.fetchedAt > ttlMillis) {
+            // Too old to show, but it stays a recently viewed user worth prefetching
+            expired++;
+            misses++;
+            return null;
+        }
+        hits++;
+        if (entry.prefetched) {
+            prefetchHits++;
+            entry.prefetched = false;
+        }
+        return entry.rows;
+    }
+
+    // Rows of a request started at fetchedAt. An answer to an older request than the one cached
+    // is dropped, so a slow prefetch never replaces what the history screen just loaded.
+    public synchronized void put(String email, List<EventRow> rows, long fetchedAt, boolean prefetched) {
+        Entry old = entries.get(email);
+        if (old != null && old.fetchedAt > fetchedAt) return;
+        Entry entry = new Entry(Collections.unmodifiableList(new ArrayList<>(rows)), fetchedAt, prefetched);
+        if (old != null) entry.viewedAt = old.viewedAt;
+        if (!prefetched) entry.viewedAt = clock.getAsLong();
+        entries.put(email, entry);
+        if (prefetched) prefetches++;
+    }
+
+    // True when there is an entry fetched less than maxAgeMillis ago; not counted as a use
+    public synchronized boolean isFresh(String email, long maxAgeMillis) {
+        Entry entry = peek(email);
+        return entry != null && clock.getAsLong() - entry.fetchedAt < maxAgeMillis;
+    }
+
+    // get() on an access-ordered map counts as a use, so look without it (maxUsers entries at most)
+    private Entry peek(String email) {
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getKey().equals(email)) return e.getValue();
+        }
+        return null;
+    }
+
+    // Users whose history was opened, most recent first
+    public synchronized List<String> recentlyViewed(int max) {
+        List<Map.Entry<String, Entry>> viewed = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().viewedAt > 0) viewed.add(e);
+        }
+        Collections.sort(viewed, (a, b) -> Long.compare(b.getValue().viewedAt, a.getValue().viewedAt));
+        List<String> emails = new ArrayList<>(Math.min(max, viewed.size()));
+        for (int i = 0; i < viewed.size() && i < max; i++) emails.add(viewed.get(i).getKey());
+        return emails;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getPrefetchHits() {
+        return prefetchHits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getExpired() {
+        return expired;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getPrefetches() {
+        return prefetches;
+    }
+
+    // Share of opened histories that were shown from memory, 0..1
+    public synchronized double getHitRate() {
+        long opened = hits + misses;
+        return opened == 0 ? 0 : (double) hits / opened;
+    }
+
+    public synchronized void resetStats() {
+        hits = prefetchHits = misses = expired = evictions = prefetches = 0;
+    }
+
+    // Logout
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    // Plain-text block in the format of NetworkMetrics.dump()
+    public synchronized void dump(Writer out) throws IOException {
+        out.write("Event history cache\n");
+        out.write(String.format(Locale.US, "  opened   n=%-5d hits=%d (%.0f%%) from prefetch=%d misses=%d expired=%d%n",
+                hits + misses, hits, getHitRate() * 100, prefetchHits, misses, expired));
+        out.write(String.format(Locale.US, "  entries  n=%-5d max=%d prefetched=%d evicted=%d%n",
+                entries.size(), maxUsers, prefetches, evictions));
+    }
+}
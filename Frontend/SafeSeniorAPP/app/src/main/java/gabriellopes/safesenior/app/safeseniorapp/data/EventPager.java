@@ -0,0 +1,135 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.models.EventRow;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
+import gabriellopes.safesenior.app.safeseniorapp.network.JsonListStreamer;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+import retrofit2.HttpException;
+
+// Loads one user's SOS history a page at a time, newest first.
+// The on_at and event_id of the last loaded event are the cursor for the next page (keyset paging),
+// so every page costs the same no matter how far back the user scrolls, and events that share an
+// on_at are not skipped at a page boundary.
+// Each page is decoded while it downloads and shown a few rows at a time.
+// The newest page is kept on the device (LocalStore) and in memory (EventCache).
+// Public methods and listener calls are on the main thread.
+public class EventPager {
+
+    public interface Listener {
+        // Rows are already formatted; replace is true for the first rows of a refresh,
+        // everything after that is appended
+        void onRows(List<EventRow> rows, boolean replace);
+        void onError(String message);
+    }
+
+    public static final int PAGE_SIZE = 50;
+    // Rows decoded and formatted before they are handed to the screen
+    private static final int WINDOW = 10;
+
+    private final ApiInterface api;
+    private final String email;
+    private final LocalStore localStore;
+    private final EventCache cache;
+    private final Executor mainExecutor;
+    private final Listener listener;
+
+    private String cursor;
+    private String cursorId;
+    private boolean loading = false;
+    private boolean endReached = false;
+    // Bumped by refresh() so answers for an older list are dropped
+    private int generation = 0;
+
+    public EventPager(ApiInterface api, String email, LocalStore localStore, EventCache cache,
+                      Executor mainExecutor, Listener listener) {
+        this.api = api;
+        this.email = email;
+        this.localStore = localStore;
+        this.cache = cache;
+        this.mainExecutor = mainExecutor;
+        this.listener = listener;
+    }
+
+    // Start again from the newest event
+    public void refresh() {
+        generation++;
+        cursor = null;
+        cursorId = null;
+        loading = false;
+        endReached = false;
+        loadNextPage();
+    }
+
+    // No-op while a page is loading or when the oldest event is already shown
+    public void loadNextPage() {
+        if (loading || endReached) return;
+        loading = true;
+        final int requestGeneration = generation;
+        final boolean firstPage = cursor == null;
+        final long fetchedAt = System.currentTimeMillis();
+
+        JsonListStreamer.enqueue(api.streamEvents(email, cursor, cursorId, PAGE_SIZE), Event.class, WINDOW,
+                new JsonListStreamer.Consumer<Event>() {
+            // Streaming thread state
+            private final List<Event> cachedPage = firstPage ? new ArrayList<>() : null;
+            private final List<EventRow> cachedRows = firstPage ? new ArrayList<>() : null;
+            private boolean replace = firstPage;
+            private Event last;
+
+            @Override
+            public void onWindow(List<Event> items) {
+                last = items.get(items.size() - 1);
+                if (cachedPage != null) cachedPage.addAll(items);
+                // Already off the main thread, so format here
+                List<EventRow> rows = RowMapper.toEventRows(items);
+                if (cachedRows != null) cachedRows.addAll(rows);
+                boolean replaceList = replace;
+                replace = false;
+                mainExecutor.execute(() -> {
+                    if (requestGeneration == generation) listener.onRows(rows, replaceList);
+                });
+            }
+
+            @Override
+            public void onComplete(int count) {
+                String lastOnAt = last != null ? last.on_at : null;
+                String lastId = last != null ? last.event_id : null;
+                mainExecutor.execute(() -> {
+                    if (requestGeneration != generation) return;
+                    loading = false;
+                    // Only the newest page is kept on the device
+                    if (cachedPage != null && localStore != null) localStore.saveEvents(email, cachedPage);
+                    if (cachedRows != null && cache != null) cache.put(email, cachedRows, fetchedAt, false);
+                    if (firstPage && count == 0) listener.onRows(Collections.emptyList(), true);
+                    // A short page is the end; so is an event without a timestamp to seek from
+                    endReached = count < PAGE_SIZE || lastOnAt == null;
+                    cursor = lastOnAt;
+                    cursorId = lastId;
+                });
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                mainExecutor.execute(() -> {
+                    if (requestGeneration != generation) return;
+                    loading = false;
+                    listener.onError(t instanceof HttpException ? "No events found" : "Network error: " + t.getMessage());
+                });
+            }
+        });
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public boolean isEndReached() {
+        return endReached;
+    }
+}
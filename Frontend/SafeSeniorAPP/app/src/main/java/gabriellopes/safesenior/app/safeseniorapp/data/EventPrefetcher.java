@@ -0,0 +1,137 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
+import gabriellopes.safesenior.app.safeseniorapp.network.JsonListStreamer;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+
+// Loads into EventCache the newest history page of the users the caregiver is likely to open
+// next, so tapping them on the dashboard opens the history from memory:
+// - users with an active SOS; one whose SOS just started is fetched again even when cached,
+//   since the cached page does not have the new event
+// - the users whose history was opened most recently, when their entry is getting old
+// Prefetches go on the normal lane like polling and are read on JsonListStreamer's background
+// lane, behind any page the user is waiting for. At most MAX_IN_FLIGHT at a time, and users
+// with an entry younger than FRESH_MILLIS are skipped. Safe to call from any thread.
+public class EventPrefetcher {
+    static final int MAX_IN_FLIGHT = 2;
+    // Active SOS users prefetched per update, the ones whose SOS just started first
+    static final int MAX_ACTIVE = 5;
+    static final int RECENT_USERS = 3;
+    // Entries this young are not fetched again
+    static final long FRESH_MILLIS = 60_000;
+
+    private final ApiInterface api;
+    private final EventCache cache;
+    private final LongSupplier clock;
+
+    private final Deque<String> queue = new ArrayDeque<>();
+    // Queued or in flight
+    private final Set<String> pending = new HashSet<>();
+    private Set<String> active = Collections.emptySet();
+    private int inFlight;
+    private boolean stopped;
+
+    public EventPrefetcher(ApiInterface api, EventCache cache) {
+        this(api, cache, System::currentTimeMillis);
+    }
+
+    EventPrefetcher(ApiInterface api, EventCache cache, LongSupplier clock) {
+        this.api = api;
+        this.cache = cache;
+        this.clock = clock;
+    }
+
+    // Every /sos/active answer or stream update
+    public synchronized void onActiveSosUsers(List<Connection> activeUsers) {
+        Set<String> now = RowMapper.activeEmails(activeUsers);
+        List<String> started = new ArrayList<>();
+        List<String> ongoing = new ArrayList<>();
+        for (String email : now) {
+            if (active.contains(email)) ongoing.add(email);
+            else started.add(email);
+        }
+        active = now;
+        int queued = 0;
+        for (String email : started) {
+            if (queued++ < MAX_ACTIVE) enqueue(email, true);
+        }
+        for (String email : ongoing) {
+            if (queued++ < MAX_ACTIVE) enqueue(email, false);
+        }
+        drain();
+    }
+
+    // The dashboard is back on screen
+    public synchronized void prefetchRecent() {
+        for (String email : cache.recentlyViewed(RECENT_USERS)) enqueue(email, false);
+        drain();
+    }
+
+    // Nothing new starts after this; calls in flight still fill the cache
+    public synchronized void stop() {
+        stopped = true;
+        queue.clear();
+        pending.clear();
+    }
+
+    synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private void enqueue(String email, boolean force) {
+        if (stopped || pending.contains(email)) return;
+        if (!force && cache.isFresh(email, FRESH_MILLIS)) return;
+        pending.add(email);
+        queue.addLast(email);
+    }
+
+    private void drain() {
+        while (!stopped && inFlight < MAX_IN_FLIGHT && !queue.isEmpty()) {
+            inFlight++;
+            fetch(queue.pollFirst());
+        }
+    }
+
+    private synchronized void done(String email) {
+        inFlight--;
+        pending.remove(email);
+        drain();
+    }
+
+    // Same request and formatting as the first page of EventPager, decoded on the background lane
+    private void fetch(String email) {
+        final long fetchedAt = clock.getAsLong();
+        JsonListStreamer.enqueueBackground(api.streamEvents(email, null, null, EventPager.PAGE_SIZE), Event.class,
+                EventPager.PAGE_SIZE, new JsonListStreamer.Consumer<Event>() {
+            private final List<Event> page = new ArrayList<>();
+
+            @Override
+            public void onWindow(List<Event> items) {
+                page.addAll(items);
+            }
+
+            @Override
+            public void onComplete(int count) {
+                cache.put(email, RowMapper.toEventRows(page), fetchedAt, true);
+                done(email);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // The history screen loads it anyway when it is opened
+                done(email);
+            }
+        });
+    }
+}
@@ -0,0 +1,320 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.network.LatencyHistogram;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+
+// Running aggregates of one monitored user's SOS history. Every event is folded in once (by id),
+// so an update costs as much as the events it brings and the history is never scanned again:
+// - time to response: off_at - on_at of the events a caregiver responded to, in a log-linear
+//   histogram (the same LatencyHistogram as the network metrics, holding milliseconds here)
+// - share of events stopped without a response (handled with no handled_by)
+// - events per day and week, and a spike flag when the last 7 days are far above the usual rate
+// - how many events each caregiver responded to
+// Events that are still active are counted as SOS but settled (responded or not) only when
+// they come back handled. The cursor is the newest event with nothing active at or before it:
+// the next update only asks the server for events after it (see EventStatsSync), and the ids
+// kept to skip events counted twice are only the ones after it. Saved with toJson().
+public class EventStats {
+    public static final int SPIKE_WINDOW_DAYS = 7;
+    // A spike needs at least this many events in the window and SPIKE_FACTOR times the usual rate
+    static final int SPIKE_MIN_EVENTS = 3;
+    static final double SPIKE_FACTOR = 3.0;
+    // Days of history before the window needed to know what "usual" is
+    static final int SPIKE_MIN_BASELINE_DAYS = 14;
+
+    // Saved aggregates, one row per monitored user
+    public interface Store {
+        // null when nothing was saved for this user
+        EventStats load(String email);
+        void save(String email, EventStats stats);
+    }
+
+    private final ZoneId zone;
+    // Counted events after the cursor, with their on_at millis, so an event read twice counts once
+    private final Map<String, Long> seen = new HashMap<>();
+    // The active ones among them
+    private final Map<String, Long> open = new HashMap<>();
+    private LatencyHistogram responseMillis = new LatencyHistogram();
+    // Local day (epoch day) -> events that started that day
+    private final TreeMap<Long, Integer> perDay = new TreeMap<>();
+    private final Map<String, Integer> perResponder = new HashMap<>();
+    private int total;
+    // Events in perDay (the ones with a readable on_at)
+    private int dated;
+    private int responded;
+    private int unanswered;
+    // on_at (as the server wrote it), its millis and event_id of the cursor, null before the first event
+    private String cursorOnAt;
+    private long cursorMillis = Long.MIN_VALUE;
+    private String cursorId;
+    // Events handed to add(), counted or not
+    private long inspected;
+
+    public EventStats(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    // Fold in events in server order, oldest first, moving the cursor up while nothing before
+    // it is still active
+    public synchronized void addOldestFirst(List<Event> events) {
+        for (Event e : events) {
+            add(e);
+            if (e.event_id == null) continue;
+            long onAt = RowMapper.parseMillis(e.on_at);
+            if (onAt < cursorMillis || e.event_id.equals(cursorId) || !nothingOpenUpTo(onAt)) continue;
+            cursorOnAt = e.on_at;
+            cursorMillis = onAt;
+            cursorId = e.event_id;
+            // Events before the cursor are never asked for again. The ones sharing its millisecond
+            // are kept: the server orders on_at to the microsecond, so it may still send them.
+            Iterator<Map.Entry<String, Long>> it = seen.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getValue() < cursorMillis || entry.getKey().equals(cursorId)) it.remove();
+            }
+        }
+    }
+
+    public synchronized void add(Event e) {
+        inspected++;
+        String id = e.event_id;
+        if (id == null) return;
+        long onAt = RowMapper.parseMillis(e.on_at);
+        // Counted and settled before the cursor moved past it
+        if (onAt < cursorMillis || id.equals(cursorId)) return;
+        boolean wasOpen = open.containsKey(id);
+        if (!wasOpen && seen.containsKey(id)) return;
+        if (!wasOpen) {
+            // First time this SOS is seen
+            seen.put(id, onAt);
+            total++;
+            if (onAt >= 0) {
+                perDay.merge(day(onAt), 1, Integer::sum);
+                dated++;
+            }
+        }
+        if (!e.handled) {
+            if (!wasOpen) open.put(id, onAt);
+            return;
+        }
+        open.remove(id);
+        if (e.handled_by == null || e.handled_by.isEmpty()) {
+            unanswered++;
+            return;
+        }
+        responded++;
+        perResponder.merge(e.handled_by, 1, Integer::sum);
+        long offAt = RowMapper.parseMillis(e.off_at);
+        if (onAt >= 0 && offAt >= onAt) responseMillis.record(offAt - onAt);
+    }
+
+    public synchronized boolean isEmpty() {
+        return total == 0;
+    }
+
+    // Where the next update starts, null when it has to read the whole history
+    public synchronized String getCursorOnAt() {
+        return cursorOnAt;
+    }
+
+    public synchronized String getCursorId() {
+        return cursorId;
+    }
+
+    synchronized long getInspected() {
+        return inspected;
+    }
+
+    // Ids kept to skip events read twice
+    synchronized int getTrackedIds() {
+        return seen.size();
+    }
+
+    // No active event at or before onAt. Milliseconds only, so a tie blocks the cursor.
+    private boolean nothingOpenUpTo(long onAt) {
+        for (long openedAt : open.values()) {
+            if (openedAt <= onAt) return false;
+        }
+        return true;
+    }
+
+    private long day(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(zone).toLocalDate().toEpochDay();
+    }
+
+    // Everything needed to carry on where this left off: aggregates, cursor and the ids after it.
+    // Gson's tree model, so R8 needs no keep rules for it.
+    public synchronized String toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("total", total);
+        json.addProperty("dated", dated);
+        json.addProperty("responded", responded);
+        json.addProperty("unanswered", unanswered);
+        if (cursorId != null) {
+            json.addProperty("cursorOnAt", cursorOnAt);
+            json.addProperty("cursorMillis", cursorMillis);
+            json.addProperty("cursorId", cursorId);
+        }
+        json.add("seen", toJson(seen));
+        json.add("open", toJson(open));
+        json.add("perDay", toJson(perDay));
+        json.add("perResponder", toJson(perResponder));
+        // Bucket index -> count, only the few buckets in use
+        JsonObject buckets = new JsonObject();
+        long[] counts = responseMillis.getBucketCounts();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) buckets.addProperty(String.valueOf(i), counts[i]);
+        }
+        JsonObject response = new JsonObject();
+        response.add("buckets", buckets);
+        response.addProperty("sum", responseMillis.getSumMicros());
+        response.addProperty("max", responseMillis.getMaxMicros());
+        json.add("response", response);
+        return json.toString();
+    }
+
+    // Throws on text that toJson() did not write (the caller then starts over)
+    public static EventStats fromJson(String text, ZoneId zone) {
+        JsonObject json = JsonParser.parseString(text).getAsJsonObject();
+        EventStats stats = new EventStats(zone);
+        stats.total = json.get("total").getAsInt();
+        stats.dated = json.get("dated").getAsInt();
+        stats.responded = json.get("responded").getAsInt();
+        stats.unanswered = json.get("unanswered").getAsInt();
+        if (json.has("cursorId")) {
+            stats.cursorOnAt = json.get("cursorOnAt").getAsString();
+            stats.cursorMillis = json.get("cursorMillis").getAsLong();
+            stats.cursorId = json.get("cursorId").getAsString();
+        }
+        for (Map.Entry<String, JsonElement> e : json.getAsJsonObject("seen").entrySet()) {
+            stats.seen.put(e.getKey(), e.getValue().getAsLong());
+        }
+        for (Map.Entry<String, JsonElement> e : json.getAsJsonObject("open").entrySet()) {
+            stats.open.put(e.getKey(), e.getValue().getAsLong());
+        }
+        for (Map.Entry<String, JsonElement> e : json.getAsJsonObject("perDay").entrySet()) {
+            stats.perDay.put(Long.parseLong(e.getKey()), e.getValue().getAsInt());
+        }
+        for (Map.Entry<String, JsonElement> e : json.getAsJsonObject("perResponder").entrySet()) {
+            stats.perResponder.put(e.getKey(), e.getValue().getAsInt());
+        }
+        JsonObject response = json.getAsJsonObject("response");
+        long[] counts = new long[stats.responseMillis.getBucketCounts().length];
+        for (Map.Entry<String, JsonElement> e : response.getAsJsonObject("buckets").entrySet()) {
+            counts[Integer.parseInt(e.getKey())] = e.getValue().getAsLong();
+        }
+        stats.responseMillis = LatencyHistogram.restore(counts, response.get("sum").getAsLong(),
+                response.get("max").getAsLong());
+        return stats;
+    }
+
+    private static JsonObject toJson(Map<?, ? extends Number> map) {
+        JsonObject json = new JsonObject();
+        for (Map.Entry<?, ? extends Number> e : map.entrySet()) {
+            json.addProperty(String.valueOf(e.getKey()), e.getValue());
+        }
+        return json;
+    }
+
+    // Aggregates as of nowMillis. O(responders + days in the spike window), never the events.
+    public synchronized Summary summary(long nowMillis) {
+        long today = day(nowMillis);
+        long windowStart = today - SPIKE_WINDOW_DAYS + 1;
+        int recent = 0;
+        for (int count : perDay.subMap(windowStart, true, today, true).values()) recent += count;
+
+        double perDayRate = 0;
+        double usual = -1;
+        boolean spike = false;
+        if (!perDay.isEmpty()) {
+            long firstDay = perDay.firstKey();
+            perDayRate = (double) total / Math.max(1, today - firstDay + 1);
+            long baselineDays = windowStart - firstDay;
+            if (baselineDays >= SPIKE_MIN_BASELINE_DAYS) {
+                // Rate before the window, scaled to the window's length. Days after today only
+                // exist when the clocks disagree, so this walks a handful of days at most.
+                int before = dated - recent;
+                for (int count : perDay.tailMap(today, false).values()) before -= count;
+                usual = (double) before / baselineDays * SPIKE_WINDOW_DAYS;
+                spike = recent >= SPIKE_MIN_EVENTS && recent > SPIKE_FACTOR * usual;
+            }
+        }
+
+        List<Map.Entry<String, Integer>> responders = new ArrayList<>(perResponder.size());
+        for (Map.Entry<String, Integer> entry : perResponder.entrySet()) {
+            responders.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+        }
+        Collections.sort(responders, (a, b) -> b.getValue() - a.getValue());
+
+        return new Summary(total, open.size(), responded, unanswered, responseMillis.getCount(),
+                responseMillis.percentileMicros(50), responseMillis.percentileMicros(90),
+                responseMillis.getMaxMicros(), perDayRate, recent, usual, spike,
+                Collections.unmodifiableList(responders));
+    }
+
+    public static final class Summary {
+        public final int total;
+        // Still active, not settled yet
+        public final int open;
+        public final int responded;
+        public final int unanswered;
+        // Responses with both timestamps, the ones the percentiles are based on
+        public final long timedResponses;
+        public final long responseP50Millis;
+        public final long responseP90Millis;
+        public final long responseMaxMillis;
+        // Since the first event, up to today
+        public final double eventsPerDay;
+        public final int lastWindowEvents;
+        // Events a usual window has, -1 while there is too little history to tell
+        public final double usualWindowEvents;
+        public final boolean spike;
+        // Caregiver email and responses, most first
+        public final List<Map.Entry<String, Integer>> responders;
+
+        Summary(int total, int open, int responded, int unanswered, long timedResponses,
+                long responseP50Millis, long responseP90Millis, long responseMaxMillis,
+                double eventsPerDay, int lastWindowEvents, double usualWindowEvents, boolean spike,
+                List<Map.Entry<String, Integer>> responders) {
+            this.total = total;
+            this.open = open;
+            this.responded = responded;
+            this.unanswered = unanswered;
+            this.timedResponses = timedResponses;
+            this.responseP50Millis = responseP50Millis;
+            this.responseP90Millis = responseP90Millis;
+            this.responseMaxMillis = responseMaxMillis;
+            this.eventsPerDay = eventsPerDay;
+            this.lastWindowEvents = lastWindowEvents;
+            this.usualWindowEvents = usualWindowEvents;
+            this.spike = spike;
+            this.responders = responders;
+        }
+
+        public double getEventsPerWeek() {
+            return eventsPerDay * 7;
+        }
+
+        // Share of settled events nobody responded to, 0..1
+        public double getUnansweredShare() {
+            int settled = responded + unanswered;
+            return settled == 0 ? 0 : (double) unanswered / settled;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
+import gabriellopes.safesenior.app.safeseniorapp.network.JsonListStreamer;
+import retrofit2.HttpException;
+
+// Brings a user's EventStats up to date. The saved stats are shown first, then only the events
+// after their cursor are read, oldest first in pages of PAGE_SIZE, and the stats are saved after
+// every page. The first sync of a user reads the whole history this way, later ones only what
+// is new (and what was still active last time, which the cursor never moves past).
+public final class EventStatsSync {
+
+    public interface Listener {
+        // Main thread; called with the saved numbers first, then again once up to date
+        void onStats(EventStats.Summary summary);
+        void onError(String message);
+    }
+
+    // Same bound as the server's largest page
+    static final int PAGE_SIZE = 100;
+    // Events decoded and folded in at a time
+    private static final int WINDOW = 50;
+
+    // Reads the saved stats off the main thread
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor();
+
+    private EventStatsSync() {}
+
+    public static void update(ApiInterface api, String email, EventStats.Store store,
+                              Executor mainExecutor, Listener listener) {
+        LOADER.execute(() -> {
+            EventStats saved = store.load(email);
+            EventStats stats = saved != null ? saved : new EventStats(ZoneId.systemDefault());
+            if (!stats.isEmpty()) {
+                EventStats.Summary summary = stats.summary(System.currentTimeMillis());
+                mainExecutor.execute(() -> listener.onStats(summary));
+            }
+            readPage(api, email, stats, store, stats.getCursorOnAt(), stats.getCursorId(), mainExecutor, listener);
+        });
+    }
+
+    // after/afterId is where this sync has read to, which can be past the stats' cursor
+    private static void readPage(ApiInterface api, String email, EventStats stats, EventStats.Store store,
+                                 String after, String afterId, Executor mainExecutor, Listener listener) {
+        JsonListStreamer.enqueueBackground(api.streamEventsAfter(email, after, afterId, PAGE_SIZE), Event.class, WINDOW,
+                new JsonListStreamer.Consumer<Event>() {
+            // Streaming thread state
+            private Event last;
+
+            @Override
+            public void onWindow(List<Event> items) {
+                stats.addOldestFirst(items);
+                last = items.get(items.size() - 1);
+            }
+
+            @Override
+            public void onComplete(int count) {
+                store.save(email, stats);
+                if (count == PAGE_SIZE && last != null) {
+                    readPage(api, email, stats, store, last.on_at, last.event_id, mainExecutor, listener);
+                    return;
+                }
+                EventStats.Summary summary = stats.summary(System.currentTimeMillis());
+                mainExecutor.execute(() -> listener.onStats(summary));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                // Keep the pages folded so far, the next sync carries on from their cursor
+                store.save(email, stats);
+                String message = t instanceof HttpException ? "Statistics unavailable" : "Network error: " + t.getMessage();
+                mainExecutor.execute(() -> listener.onError(message));
+            }
+        });
+    }
+}
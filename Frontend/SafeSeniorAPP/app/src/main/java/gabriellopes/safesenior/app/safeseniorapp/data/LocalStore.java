@@ -0,0 +1,163 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+
+import static gabriellopes.safesenior.app.safeseniorapp.data.SafeSeniorDatabase.TABLE_CONNECTIONS;
+import static gabriellopes.safesenior.app.safeseniorapp.data.SafeSeniorDatabase.TABLE_EVENTS;
+import static gabriellopes.safesenior.app.safeseniorapp.data.SafeSeniorDatabase.TABLE_EVENT_STATS;
+
+// Reads and writes the local cache on a background thread; reads are delivered on the main thread.
+// Screens render what is stored here first and then reconcile with the network (stale-while-revalidate).
+public class LocalStore {
+
+    public interface Callback<T> {
+        void onLoaded(List<T> items);
+    }
+
+    // One writer thread keeps reads and writes ordered
+    private static final ExecutorService IO = Executors.newSingleThreadExecutor();
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    private final SafeSeniorDatabase database;
+
+    public LocalStore(Context context) {
+        database = SafeSeniorDatabase.getInstance(context);
+    }
+
+    // ---------- Connections ----------
+
+    public void loadConnections(String ownerId, Callback<Connection> callback) {
+        IO.execute(() -> {
+            List<Connection> list = new ArrayList<>();
+            Cursor c = database.getReadableDatabase().query(TABLE_CONNECTIONS,
+                    new String[]{"user_name", "user_email", "last_sos", "device_id"},
+                    "owner_id = ?", new String[]{nonNull(ownerId)}, null, null, "position");
+            try {
+                while (c.moveToNext()) {
+                    Connection item = new Connection();
+                    item.user_name = c.getString(0);
+                    item.user_email = c.getString(1);
+                    item.last_sos = c.getString(2);
+                    item.device_id = c.getString(3);
+                    list.add(item);
+                }
+            } finally {
+                c.close();
+            }
+            MAIN.post(() -> callback.onLoaded(list));
+        });
+    }
+
+    // Replace the stored connections with the latest server list
+    public void saveConnections(String ownerId, List<Connection> connections) {
+        List<Connection> copy = new ArrayList<>(connections);
+        IO.execute(() -> {
+            SQLiteDatabase db = database.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.delete(TABLE_CONNECTIONS, "owner_id = ?", new String[]{nonNull(ownerId)});
+                int position = 0;
+                for (Connection item : copy) {
+                    if (item.user_email == null) continue;
+                    ContentValues v = new ContentValues();
+                    v.put("owner_id", nonNull(ownerId));
+                    v.put("user_email", item.user_email);
+                    v.put("user_name", item.user_name);
+                    v.put("last_sos", item.last_sos);
+                    v.put("device_id", item.device_id);
+                    v.put("position", position++);
+                    db.insertWithOnConflict(TABLE_CONNECTIONS, null, v, SQLiteDatabase.CONFLICT_REPLACE);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    // ---------- Events ----------
+
+    // Newest first, same order as /sos/events; at most limit rows
+    public void loadEvents(String email, int limit, Callback<Event> callback) {
+        IO.execute(() -> {
+            List<Event> list = new ArrayList<>();
+            Cursor c = database.getReadableDatabase().query(TABLE_EVENTS,
+                    new String[]{"event_id", "device_id", "triggered_by", "on_at", "off_at", "handled", "handled_by"},
+                    "triggered_email = ?", new String[]{nonNull(email)}, null, null, "on_at_millis DESC",
+                    String.valueOf(limit));
+            try {
+                while (c.moveToNext()) {
+                    Event e = new Event();
+                    e.event_id = c.getString(0);
+                    e.device_id = c.getString(1);
+                    e.triggered_by = c.getString(2);
+                    e.on_at = c.getString(3);
+                    e.off_at = c.getString(4);
+                    e.handled = c.getInt(5) != 0;
+                    e.handled_by = c.getString(6);
+                    list.add(e);
+                }
+            } finally {
+                c.close();
+            }
+            MAIN.post(() -> callback.onLoaded(list));
+        });
+    }
+
+    // Replace the stored history of one user with the latest first page
+    public void saveEvents(String email, List<Event> events) {
+        List<Event> copy = new ArrayList<>(events);
+        IO.execute(() -> {
+            SQLiteDatabase db = database.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.delete(TABLE_EVENTS, "triggered_email = ?", new String[]{nonNull(email)});
+                for (Event e : copy) {
+                    if (e.event_id == null) continue;
+                    ContentValues v = new ContentValues();
+                    v.put("event_id", e.event_id);
+                    v.put("triggered_email", nonNull(email));
+                    v.put("device_id", e.device_id);
+                    v.put("triggered_by", e.triggered_by);
+                    v.put("on_at", e.on_at);
+                    v.put("on_at_millis", RowMapper.parseMillis(e.on_at));
+                    v.put("off_at", e.off_at);
+                    v.put("handled", e.handled ? 1 : 0);
+                    v.put("handled_by", e.handled_by);
+                    db.insertWithOnConflict(TABLE_EVENTS, null, v, SQLiteDatabase.CONFLICT_REPLACE);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    // Wipe everything (logout)
+    public void clear() {
+        IO.execute(() -> {
+            SQLiteDatabase db = database.getWritableDatabase();
+            db.delete(TABLE_CONNECTIONS, null, null);
+            db.delete(TABLE_EVENTS, null, null);
+            db.delete(TABLE_EVENT_STATS, null, null);
+        });
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+}
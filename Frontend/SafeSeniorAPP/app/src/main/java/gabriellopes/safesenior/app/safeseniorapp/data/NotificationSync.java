@@ -0,0 +1,60 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.List;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Notification;
+
+// High-water mark of the notification list: sent_at and id of the newest notification already
+// processed. Passed to /notifications so each sync only downloads what is new.
+// Shared by the dashboard and the background watcher, kept across restarts.
+public class NotificationSync {
+    private static final String PREFS_NAME = "SafeSeniorNotificationSync";
+    private static final String AFTER_KEY = "after";
+    private static final String AFTER_ID_KEY = "after_id";
+
+    private static NotificationSync instance;
+
+    private final SharedPreferences prefs;
+    private String after;
+    private String afterId;
+
+    private NotificationSync(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        after = prefs.getString(AFTER_KEY, null);
+        afterId = prefs.getString(AFTER_ID_KEY, null);
+    }
+
+    public static synchronized NotificationSync get(Context context) {
+        if (instance == null) instance = new NotificationSync(context);
+        return instance;
+    }
+
+    // Null on the first sync, which then gets the whole list
+    public synchronized String getAfter() {
+        return after;
+    }
+
+    public synchronized String getAfterId() {
+        return afterId;
+    }
+
+    // Call once a batch has been handled; the server returns it oldest first
+    public synchronized void advance(List<Notification> batch) {
+        if (batch == null || batch.isEmpty()) return;
+        Notification newest = batch.get(batch.size() - 1);
+        if (newest.sent_at == null) return;
+        after = newest.sent_at;
+        afterId = newest.id;
+        prefs.edit().putString(AFTER_KEY, after).putString(AFTER_ID_KEY, afterId).apply();
+    }
+
+    // Logout, the next user starts from scratch
+    public synchronized void clear() {
+        after = null;
+        afterId = null;
+        prefs.edit().clear().apply();
+    }
+}
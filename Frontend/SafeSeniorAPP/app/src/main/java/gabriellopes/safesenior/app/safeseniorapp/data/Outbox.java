@@ -0,0 +1,273 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.HelpResponse;
+import gabriellopes.safesenior.app.safeseniorapp.models.SosStartResponse;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiClient;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
+import gabriellopes.safesenior.app.safeseniorapp.services.OutboxJob;
+import retrofit2.Response;
+
+// Durable queue of SOS and help state changes. Every tap is stored first and then sent, in order,
+// with an idempotency key; failures are retried with backoff and right away when a network comes
+// back, also after the app was killed. Entries carry the wanted state ("SOS on"), not a toggle,
+// so a replay that already reached the server changes nothing. A newer entry for the same target
+// replaces a pending one, so an offline on/off never creates a bogus SOS event. An entry that could
+// not be sent within maxAgeMs is dropped and reported instead of raising an SOS hours later.
+// While something waits for a retry, OutboxJob sends it once a network is up, even with the app closed.
+public class Outbox {
+
+    public static final String TYPE_SOS = "sos";
+    public static final String TYPE_HELP = "help";
+
+    // One wanted state change
+    public static final class Entry {
+        public final String key;
+        public final String type;
+        // Device id for help, null for the user's own SOS
+        public final String target;
+        public final boolean desired;
+        public final long createdAt;
+
+        public Entry(String key, String type, String target, boolean desired, long createdAt) {
+            this.key = key;
+            this.type = type;
+            this.target = target;
+            this.desired = desired;
+            this.createdAt = createdAt;
+        }
+    }
+
+    // Persistent storage, oldest entry first; add() replaces a pending entry of the same type and target
+    public interface Store {
+        List<Entry> pending();
+        void add(Entry entry);
+        void remove(String key);
+    }
+
+    // Called on the callback executor
+    public interface Listener {
+        // State the server reports after applying an entry
+        void onSosState(boolean active);
+        void onHelpState(String deviceId, boolean help);
+        // A send failed and will be retried
+        void onQueued(int pending);
+        // The server refused the entry (HTTP code), answered without a state or the entry
+        // got too old to send (EXPIRED); it was dropped
+        void onFailed(Entry entry, int code);
+    }
+
+    // onFailed code of an entry that was not sent in time
+    public static final int EXPIRED = 0;
+
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 60000;
+    // An SOS or help change older than this no longer reflects what the user wants now
+    private static final long MAX_AGE_MS = 15 * 60_000;
+    // Outcome of one send
+    private static final int DONE = 0;
+    private static final int RETRY = 1;
+
+    private static Outbox instance;
+
+    private final ApiInterface api;
+    private final Store store;
+    private final ScheduledExecutorService scheduler;
+    private final Executor callbackExecutor;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long maxAgeMs;
+    private final Random random = new Random();
+
+    private volatile Listener listener;
+    // Run when a send has to wait for a retry
+    private volatile Runnable retryHook;
+    // Scheduler thread only
+    private long backoffMs;
+    private boolean retryScheduled = false;
+
+    public Outbox(ApiInterface api, Store store, ScheduledExecutorService scheduler, Executor callbackExecutor,
+                  long initialBackoffMs, long maxBackoffMs, long maxAgeMs) {
+        this.api = api;
+        this.store = store;
+        this.scheduler = scheduler;
+        this.callbackExecutor = callbackExecutor;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.maxAgeMs = maxAgeMs;
+        this.backoffMs = initialBackoffMs;
+    }
+
+    // App-wide outbox; sends whatever is left from the last run and every time a network appears
+    public static synchronized Outbox get(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            Handler main = new Handler(Looper.getMainLooper());
+            instance = new Outbox(ApiClient.getClient().create(ApiInterface.class),
+                    new SqliteOutboxStore(SafeSeniorDatabase.getInstance(context)),
+                    Executors.newSingleThreadScheduledExecutor(), main::post,
+                    INITIAL_BACKOFF_MS, MAX_BACKOFF_MS, MAX_AGE_MS);
+            // The network callback dies with the process, the job does not
+            instance.retryHook = () -> OutboxJob.schedule(app);
+            ConnectivityManager cm = app.getSystemService(ConnectivityManager.class);
+            if (cm != null) {
+                cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                    @Override
+                    public void onAvailable(Network network) {
+                        instance.kick();
+                    }
+                });
+            }
+            instance.kick();
+        }
+        return instance;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void setSos(boolean active) {
+        enqueue(TYPE_SOS, null, active);
+    }
+
+    public void setHelp(String deviceId, boolean help) {
+        enqueue(TYPE_HELP, deviceId, help);
+    }
+
+    private void enqueue(String type, String target, boolean desired) {
+        Entry entry = new Entry(UUID.randomUUID().toString(), type, target, desired, System.currentTimeMillis());
+        scheduler.execute(() -> {
+            store.add(entry);
+            drain();
+        });
+    }
+
+    // Connectivity is back (or the app started): send now instead of waiting out the backoff
+    public void kick() {
+        scheduler.execute(() -> {
+            backoffMs = initialBackoffMs;
+            drain();
+        });
+    }
+
+    // Send everything pending now and wait for it; true when nothing is left afterwards.
+    // Blocks, so not on the main thread.
+    public boolean flush(long timeoutMs) {
+        Future<Boolean> flushed = scheduler.submit(() -> {
+            backoffMs = initialBackoffMs;
+            drain();
+            return store.pending().isEmpty();
+        });
+        try {
+            return flushed.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    // Scheduler thread: send entries oldest first, stop at the first one that has to be retried
+    private void drain() {
+        long now = System.currentTimeMillis();
+        for (Entry entry : store.pending()) {
+            if (now - entry.createdAt > maxAgeMs) {
+                store.remove(entry.key);
+                notifyListener(l -> l.onFailed(entry, EXPIRED));
+                continue;
+            }
+            int result = send(entry);
+            if (result == RETRY) {
+                scheduleRetry();
+                return;
+            }
+            store.remove(entry.key);
+        }
+        backoffMs = initialBackoffMs;
+    }
+
+    private int send(Entry entry) {
+        try {
+            if (TYPE_SOS.equals(entry.type)) {
+                JsonObject body = new JsonObject();
+                body.addProperty("active", entry.desired);
+                Response<SosStartResponse> response = api.setSos(entry.key, body).execute();
+                if (retryable(response)) return RETRY;
+                if (response.isSuccessful() && response.body() != null) {
+                    boolean active = response.body().active;
+                    notifyListener(l -> l.onSosState(active));
+                } else {
+                    notifyListener(l -> l.onFailed(entry, response.code()));
+                }
+            } else {
+                JsonObject body = new JsonObject();
+                body.addProperty("device_id", entry.target);
+                body.addProperty("help", entry.desired);
+                Response<HelpResponse> response = api.setHelp(entry.key, body).execute();
+                if (retryable(response)) return RETRY;
+                if (response.isSuccessful() && response.body() != null) {
+                    boolean help = response.body().help;
+                    notifyListener(l -> l.onHelpState(entry.target, help));
+                } else {
+                    notifyListener(l -> l.onFailed(entry, response.code()));
+                }
+            }
+            // Success, or a 4xx that no retry will fix (e.g. unknown device): drop the entry either way
+            return DONE;
+        } catch (IOException e) {
+            return RETRY;
+        }
+    }
+
+    // Server trouble, timeouts and rate limits are worth another try
+    private static boolean retryable(Response<?> response) {
+        int code = response.code();
+        return code >= 500 || code == 408 || code == 429;
+    }
+
+    private void scheduleRetry() {
+        int pending = store.pending().size();
+        notifyListener(l -> l.onQueued(pending));
+        Runnable hook = retryHook;
+        if (hook != null) hook.run();
+        if (retryScheduled) return;
+        retryScheduled = true;
+        // Jitter so phones that lost the same cell tower don't retry in lockstep
+        long delay = backoffMs + (long) (random.nextDouble() * backoffMs * 0.2);
+        backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+        scheduler.schedule(() -> {
+            retryScheduled = false;
+            drain();
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private interface ListenerCall {
+        void call(Listener listener);
+    }
+
+    private void notifyListener(ListenerCall call) {
+        Listener l = listener;
+        if (l != null) callbackExecutor.execute(() -> call.call(l));
+    }
+}
@@ -0,0 +1,92 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+// On-device copy of the dashboard data so screens can render before the network answers,
+// plus the outbox of SOS/help changes that still have to reach the server
+public class SafeSeniorDatabase extends SQLiteOpenHelper {
+    private static final String DB_NAME = "safesenior.db";
+    private static final int DB_VERSION = 4;
+
+    public static final String TABLE_CONNECTIONS = "connections";
+    public static final String TABLE_EVENTS = "events";
+    public static final String TABLE_EVENT_STATS = "event_stats";
+    public static final String TABLE_OUTBOX = "outbox";
+
+    private static SafeSeniorDatabase instance;
+
+    public static synchronized SafeSeniorDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new SafeSeniorDatabase(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private SafeSeniorDatabase(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        createCacheTables(db);
+        createOutbox(db);
+    }
+
+    private static void createCacheTables(SQLiteDatabase db) {
+        // Connections of the logged in user, in the order the API returned them
+        db.execSQL("CREATE TABLE " + TABLE_CONNECTIONS + " ("
+                + "owner_id TEXT NOT NULL,"
+                + "user_email TEXT NOT NULL,"
+                + "user_name TEXT,"
+                + "last_sos TEXT,"
+                + "device_id TEXT,"
+                + "position INTEGER NOT NULL,"
+                + "PRIMARY KEY (owner_id, user_email))");
+        db.execSQL("CREATE INDEX idx_connections_email ON " + TABLE_CONNECTIONS + " (user_email)");
+
+        // SOS history, looked up by the monitored user's email and ordered by on_at
+        db.execSQL("CREATE TABLE " + TABLE_EVENTS + " ("
+                + "event_id TEXT PRIMARY KEY,"
+                + "triggered_email TEXT NOT NULL,"
+                + "device_id TEXT,"
+                + "triggered_by TEXT,"
+                + "on_at TEXT,"
+                + "on_at_millis INTEGER NOT NULL,"
+                + "off_at TEXT,"
+                + "handled INTEGER NOT NULL,"
+                + "handled_by TEXT)");
+        db.execSQL("CREATE INDEX idx_events_email_on_at ON " + TABLE_EVENTS + " (triggered_email, on_at_millis DESC)");
+
+        // EventStats of each monitored user as EventStats.toJson(), so statistics carry on from
+        // the saved cursor after a restart instead of reading the whole history again
+        db.execSQL("CREATE TABLE " + TABLE_EVENT_STATS + " ("
+                + "triggered_email TEXT PRIMARY KEY,"
+                + "state TEXT NOT NULL)");
+    }
+
+    // Pending state changes in the order they were made (see Outbox)
+    private static void createOutbox(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_OUTBOX + " ("
+                + "seq INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + "idempotency_key TEXT NOT NULL UNIQUE,"
+                + "type TEXT NOT NULL,"
+                + "target TEXT NOT NULL,"
+                + "desired INTEGER NOT NULL,"
+                + "created_at INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // The cache tables only mirror the backend, so they are safe to rebuild.
+        // The outbox holds changes the server hasn't seen yet and is kept.
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_CONNECTIONS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_EVENTS);
+        // Notifications were cached up to version 3 but never read back
+        db.execSQL("DROP TABLE IF EXISTS notifications");
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_EVENT_STATS);
+        createCacheTables(db);
+        createOutbox(db);
+    }
+}
@@ -0,0 +1,44 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.time.ZoneId;
+
+import static gabriellopes.safesenior.app.safeseniorapp.data.SafeSeniorDatabase.TABLE_EVENT_STATS;
+
+// EventStats in SQLite, one row per monitored user. Called on background threads only.
+public class SqliteEventStatsStore implements EventStats.Store {
+
+    private final SafeSeniorDatabase database;
+
+    public SqliteEventStatsStore(Context context) {
+        database = SafeSeniorDatabase.getInstance(context);
+    }
+
+    @Override
+    public EventStats load(String email) {
+        Cursor c = database.getReadableDatabase().query(TABLE_EVENT_STATS, new String[]{"state"},
+                "triggered_email = ?", new String[]{email}, null, null, null);
+        try {
+            if (!c.moveToFirst()) return null;
+            return EventStats.fromJson(c.getString(0), ZoneId.systemDefault());
+        } catch (RuntimeException e) {
+            // Unreadable row: start over from the whole history
+            return null;
+        } finally {
+            c.close();
+        }
+    }
+
+    @Override
+    public void save(String email, EventStats stats) {
+        ContentValues v = new ContentValues();
+        v.put("triggered_email", email);
+        v.put("state", stats.toJson());
+        database.getWritableDatabase().insertWithOnConflict(TABLE_EVENT_STATS, null, v,
+                SQLiteDatabase.CONFLICT_REPLACE);
+    }
+}
@@ -0,0 +1,67 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static gabriellopes.safesenior.app.safeseniorapp.data.SafeSeniorDatabase.TABLE_OUTBOX;
+
+// Outbox entries in SQLite, so queued SOS/help changes survive the app being killed
+class SqliteOutboxStore implements Outbox.Store {
+
+    private final SafeSeniorDatabase database;
+
+    SqliteOutboxStore(SafeSeniorDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public List<Outbox.Entry> pending() {
+        List<Outbox.Entry> list = new ArrayList<>();
+        Cursor c = database.getReadableDatabase().query(TABLE_OUTBOX,
+                new String[]{"idempotency_key", "type", "target", "desired", "created_at"},
+                null, null, null, null, "seq");
+        try {
+            while (c.moveToNext()) {
+                list.add(new Outbox.Entry(c.getString(0), c.getString(1), c.getString(2),
+                        c.getInt(3) != 0, c.getLong(4)));
+            }
+        } finally {
+            c.close();
+        }
+        return list;
+    }
+
+    @Override
+    public void add(Outbox.Entry entry) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // Newest wanted state wins, and goes to the back of the queue
+            db.delete(TABLE_OUTBOX, "type = ? AND target = ?", new String[]{entry.type, target(entry)});
+            ContentValues v = new ContentValues();
+            v.put("idempotency_key", entry.key);
+            v.put("type", entry.type);
+            v.put("target", target(entry));
+            v.put("desired", entry.desired ? 1 : 0);
+            v.put("created_at", entry.createdAt);
+            db.insert(TABLE_OUTBOX, null, v);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        database.getWritableDatabase().delete(TABLE_OUTBOX, "idempotency_key = ?", new String[]{key});
+    }
+
+    // SQL "=" never matches NULL, so the own-SOS target is stored as ""
+    private static String target(Outbox.Entry entry) {
+        return entry.target != null ? entry.target : "";
+    }
+}
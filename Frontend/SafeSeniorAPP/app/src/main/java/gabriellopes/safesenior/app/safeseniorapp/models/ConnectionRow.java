@@ -0,0 +1,72 @@
+package gabriellopes.safesenior.app.safeseniorapp.models;
+
+import android.graphics.Color;
+
+import java.util.Objects;
+
+// Immutable, pre-formatted dashboard row. Built off the main thread so binding is plain field assignment.
+public final class ConnectionRow {
+    public static final String ACTIVE_SOS_TEXT = "ACTIVE SOS!";
+    public static final int ACTIVE_BACKGROUND = 0xFFFFCDD2;
+    public static final String BUTTON_RESPOND = "Respond";
+    public static final String BUTTON_CANCEL = "Cancel";
+
+    // Source connection, used for click callbacks and the "on the way" flag
+    public final Connection connection;
+    public final String name;
+    public final String email;
+    public final String deviceId;
+    // Epoch millis of the last SOS, -1 if there is none
+    public final long lastSosMillis;
+    public final String lastSosText;
+
+    // SOS state of the row and its pre-resolved look
+    public final boolean sosActive;
+    public final boolean onTheWay;
+    public final String statusText;
+    public final int statusColor;
+    public final int backgroundColor;
+    public final String buttonText;
+
+    public ConnectionRow(Connection connection, long lastSosMillis, String lastSosText) {
+        this(connection, lastSosMillis, lastSosText, false, false);
+    }
+
+    private ConnectionRow(Connection connection, long lastSosMillis, String lastSosText,
+                          boolean sosActive, boolean onTheWay) {
+        this.connection = connection;
+        this.name = connection.user_name;
+        this.email = connection.user_email;
+        this.deviceId = connection.device_id;
+        this.lastSosMillis = lastSosMillis;
+        this.lastSosText = lastSosText;
+        this.sosActive = sosActive;
+        this.onTheWay = onTheWay;
+        if (sosActive) {
+            statusText = ACTIVE_SOS_TEXT;
+            statusColor = Color.RED;
+            backgroundColor = ACTIVE_BACKGROUND;
+            buttonText = onTheWay ? BUTTON_CANCEL : BUTTON_RESPOND;
+        } else {
+            statusText = lastSosText;
+            statusColor = Color.BLACK;
+            backgroundColor = Color.WHITE;
+            buttonText = BUTTON_RESPOND;
+        }
+    }
+
+    // Same row with another SOS state (no parsing or formatting involved)
+    public ConnectionRow withState(boolean sosActive, boolean onTheWay) {
+        if (this.sosActive == sosActive && this.onTheWay == onTheWay) return this;
+        return new ConnectionRow(connection, lastSosMillis, lastSosText, sosActive, onTheWay);
+    }
+
+    // True when everything except the SOS state is identical
+    public boolean sameInfo(ConnectionRow other) {
+        return Objects.equals(name, other.name)
+                && Objects.equals(email, other.email)
+                && Objects.equals(deviceId, other.deviceId)
+                && lastSosMillis == other.lastSosMillis
+                && Objects.equals(lastSosText, other.lastSosText);
+    }
+}
@@ -0,0 +1,33 @@
+package gabriellopes.safesenior.app.safeseniorapp.models;
+
+import java.util.Collections;
+import java.util.List;
+
+// Everything the dashboard shows, loaded together and handed to the UI in one piece.
+// A list is null when its call failed, so the screen can show what did arrive.
+public final class DashboardSnapshot {
+    public final List<Connection> connections;
+    public final List<Connection> activeSosUsers;
+    public final List<Notification> notifications;
+    // Message of the first failed call, null when all three succeeded
+    public final String error;
+    // Wall time from starting the calls to the snapshot being ready
+    public final long loadMillis;
+
+    public DashboardSnapshot(List<Connection> connections, List<Connection> activeSosUsers,
+                             List<Notification> notifications, String error, long loadMillis) {
+        this.connections = unmodifiable(connections);
+        this.activeSosUsers = unmodifiable(activeSosUsers);
+        this.notifications = unmodifiable(notifications);
+        this.error = error;
+        this.loadMillis = loadMillis;
+    }
+
+    public boolean isComplete() {
+        return connections != null && activeSosUsers != null && notifications != null;
+    }
+
+    private static <T> List<T> unmodifiable(List<T> list) {
+        return list != null ? Collections.unmodifiableList(list) : null;
+    }
+}
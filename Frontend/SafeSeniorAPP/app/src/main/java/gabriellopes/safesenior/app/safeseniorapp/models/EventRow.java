@@ -0,0 +1,26 @@
+package gabriellopes.safesenior.app.safeseniorapp.models;
+
+// Immutable, pre-formatted SOS history row. Built off the main thread so binding is plain field assignment.
+public final class EventRow {
+    public final Event event;
+    public final String eventIdText;
+    // Epoch millis, -1 if missing
+    public final long onAtMillis;
+    public final long offAtMillis;
+    public final String onAtText;
+    public final String offAtText;
+    public final String statusText;
+    public final int statusColor;
+
+    public EventRow(Event event, String eventIdText, long onAtMillis, String onAtText,
+                    long offAtMillis, String offAtText, String statusText, int statusColor) {
+        this.event = event;
+        this.eventIdText = eventIdText;
+        this.onAtMillis = onAtMillis;
+        this.onAtText = onAtText;
+        this.offAtMillis = offAtMillis;
+        this.offAtText = offAtText;
+        this.statusText = statusText;
+        this.statusColor = statusColor;
+    }
+}
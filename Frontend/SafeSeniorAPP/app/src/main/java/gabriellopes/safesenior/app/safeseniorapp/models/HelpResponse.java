@@ -0,0 +1,7 @@
+package gabriellopes.safesenior.app.safeseniorapp.models;
+
+public class HelpResponse {
+    public String message;
+    public String help_id;
+    public boolean help;
+}
@@ -0,0 +1,462 @@
+package gabriellopes.safesenior.app.safeseniorapp.models;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+// Hand-written Gson adapters for every API model, so decoding never goes through
+// ReflectiveTypeAdapterFactory: no field lookup on first use, no Field.set per value, and R8 is
+// free to rename the fields. They behave like the reflective ones: unknown keys are skipped,
+// null leaves a primitive at its default, strings accept numbers and booleans accept "true".
+// Adding a field to a model means adding it here too (ModelTypeAdaptersTest compares both).
+public final class ModelTypeAdapters implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw == Connection.class) return (TypeAdapter<T>) CONNECTION;
+        if (raw == Event.class) return (TypeAdapter<T>) EVENT;
+        if (raw == Notification.class) return (TypeAdapter<T>) NOTIFICATION;
+        if (raw == LoginResponse.class) return (TypeAdapter<T>) LOGIN_RESPONSE;
+        if (raw == SosStartResponse.class) return (TypeAdapter<T>) SOS_START_RESPONSE;
+        if (raw == HelpResponse.class) return (TypeAdapter<T>) HELP_RESPONSE;
+        if (raw == Device.class) return (TypeAdapter<T>) DEVICE;
+        if (raw == LoginRequest.class) return (TypeAdapter<T>) LOGIN_REQUEST;
+        if (raw == RegisterRequest.class) return (TypeAdapter<T>) REGISTER_REQUEST;
+        if (raw == SosStartRequest.class) return (TypeAdapter<T>) SOS_START_REQUEST;
+        if (raw == User.class) return (TypeAdapter<T>) USER;
+        return null;
+    }
+
+    // Object adapter: subclasses only map names to fields
+    private abstract static class ModelAdapter<T> extends TypeAdapter<T> {
+        abstract T newInstance();
+
+        // False for keys the model doesn't have
+        abstract boolean readField(JsonReader in, String name, T value) throws IOException;
+
+        abstract void writeFields(JsonWriter out, T value) throws IOException;
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            T value = newInstance();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!readField(in, in.nextName(), value)) in.skipValue();
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeFields(out, value);
+            out.endObject();
+        }
+    }
+
+    static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) return Boolean.toString(in.nextBoolean());
+        return in.nextString();
+    }
+
+    static boolean readBoolean(JsonReader in, boolean current) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return current;
+        }
+        if (token == JsonToken.STRING) return Boolean.parseBoolean(in.nextString());
+        return in.nextBoolean();
+    }
+
+    static final TypeAdapter<Connection> CONNECTION = new ModelAdapter<Connection>() {
+        @Override
+        Connection newInstance() {
+            return new Connection();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, Connection c) throws IOException {
+            switch (name) {
+                // /connections answers with other_user_*, /sos/active with user_*
+                case "user_name":
+                case "other_user_name":
+                    c.user_name = readString(in);
+                    return true;
+                case "user_email":
+                case "other_user_email":
+                    c.user_email = readString(in);
+                    return true;
+                case "last_sos":
+                    c.last_sos = readString(in);
+                    return true;
+                case "device_id":
+                    c.device_id = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        // The "on the way" flag is local UI state and never sent
+        @Override
+        void writeFields(JsonWriter out, Connection c) throws IOException {
+            out.name("user_name").value(c.user_name);
+            out.name("user_email").value(c.user_email);
+            out.name("last_sos").value(c.last_sos);
+            out.name("device_id").value(c.device_id);
+        }
+    };
+
+    static final TypeAdapter<Event> EVENT = new ModelAdapter<Event>() {
+        @Override
+        Event newInstance() {
+            return new Event();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, Event e) throws IOException {
+            switch (name) {
+                case "event_id":
+                    e.event_id = readString(in);
+                    return true;
+                case "device_id":
+                    e.device_id = readString(in);
+                    return true;
+                case "triggered_by":
+                    e.triggered_by = readString(in);
+                    return true;
+                case "on_at":
+                    e.on_at = readString(in);
+                    return true;
+                case "off_at":
+                    e.off_at = readString(in);
+                    return true;
+                case "handled":
+                    e.handled = readBoolean(in, e.handled);
+                    return true;
+                case "handled_by":
+                    e.handled_by = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Event e) throws IOException {
+            out.name("event_id").value(e.event_id);
+            out.name("device_id").value(e.device_id);
+            out.name("triggered_by").value(e.triggered_by);
+            out.name("on_at").value(e.on_at);
+            out.name("off_at").value(e.off_at);
+            out.name("handled").value(e.handled);
+            out.name("handled_by").value(e.handled_by);
+        }
+    };
+
+    static final TypeAdapter<Notification> NOTIFICATION = new ModelAdapter<Notification>() {
+        @Override
+        Notification newInstance() {
+            return new Notification();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, Notification n) throws IOException {
+            switch (name) {
+                case "id":
+                    n.id = readString(in);
+                    return true;
+                case "event_id":
+                    n.event_id = readString(in);
+                    return true;
+                case "notified_user":
+                    n.notified_user = readString(in);
+                    return true;
+                case "sent_at":
+                    n.sent_at = readString(in);
+                    return true;
+                case "seen_at":
+                    n.seen_at = readString(in);
+                    return true;
+                case "trigger_name":
+                    n.trigger_name = readString(in);
+                    return true;
+                case "trigger_email":
+                    n.trigger_email = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Notification n) throws IOException {
+            out.name("id").value(n.id);
+            out.name("event_id").value(n.event_id);
+            out.name("notified_user").value(n.notified_user);
+            out.name("sent_at").value(n.sent_at);
+            out.name("seen_at").value(n.seen_at);
+            out.name("trigger_name").value(n.trigger_name);
+            out.name("trigger_email").value(n.trigger_email);
+        }
+    };
+
+    static final TypeAdapter<LoginResponse> LOGIN_RESPONSE = new ModelAdapter<LoginResponse>() {
+        @Override
+        LoginResponse newInstance() {
+            return new LoginResponse();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, LoginResponse r) throws IOException {
+            switch (name) {
+                case "token":
+                    r.token = readString(in);
+                    return true;
+                case "userId":
+                    r.userId = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, LoginResponse r) throws IOException {
+            out.name("token").value(r.token);
+            out.name("userId").value(r.userId);
+        }
+    };
+
+    static final TypeAdapter<SosStartResponse> SOS_START_RESPONSE = new ModelAdapter<SosStartResponse>() {
+        @Override
+        SosStartResponse newInstance() {
+            return new SosStartResponse();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, SosStartResponse r) throws IOException {
+            switch (name) {
+                case "message":
+                    r.message = readString(in);
+                    return true;
+                case "event_id":
+                    r.event_id = readString(in);
+                    return true;
+                case "device_id":
+                    r.device_id = readString(in);
+                    return true;
+                case "active":
+                    r.active = readBoolean(in, r.active);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, SosStartResponse r) throws IOException {
+            out.name("message").value(r.message);
+            out.name("event_id").value(r.event_id);
+            out.name("device_id").value(r.device_id);
+            out.name("active").value(r.active);
+        }
+    };
+
+    static final TypeAdapter<HelpResponse> HELP_RESPONSE = new ModelAdapter<HelpResponse>() {
+        @Override
+        HelpResponse newInstance() {
+            return new HelpResponse();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, HelpResponse r) throws IOException {
+            switch (name) {
+                case "message":
+                    r.message = readString(in);
+                    return true;
+                case "help_id":
+                    r.help_id = readString(in);
+                    return true;
+                case "help":
+                    r.help = readBoolean(in, r.help);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, HelpResponse r) throws IOException {
+            out.name("message").value(r.message);
+            out.name("help_id").value(r.help_id);
+            out.name("help").value(r.help);
+        }
+    };
+
+    static final TypeAdapter<Device> DEVICE = new ModelAdapter<Device>() {
+        @Override
+        Device newInstance() {
+            return new Device();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, Device d) throws IOException {
+            switch (name) {
+                case "device_id":
+                    d.device_id = readString(in);
+                    return true;
+                case "owner_id":
+                    d.owner_id = readString(in);
+                    return true;
+                case "is_online":
+                    d.is_online = readBoolean(in, d.is_online);
+                    return true;
+                case "last_triggered_at":
+                    d.last_triggered_at = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Device d) throws IOException {
+            out.name("device_id").value(d.device_id);
+            out.name("owner_id").value(d.owner_id);
+            out.name("is_online").value(d.is_online);
+            out.name("last_triggered_at").value(d.last_triggered_at);
+        }
+    };
+
+    static final TypeAdapter<LoginRequest> LOGIN_REQUEST = new ModelAdapter<LoginRequest>() {
+        @Override
+        LoginRequest newInstance() {
+            return new LoginRequest(null, null);
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, LoginRequest r) throws IOException {
+            switch (name) {
+                case "user_email":
+                    r.user_email = readString(in);
+                    return true;
+                case "user_password":
+                    r.user_password = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, LoginRequest r) throws IOException {
+            out.name("user_email").value(r.user_email);
+            out.name("user_password").value(r.user_password);
+        }
+    };
+
+    static final TypeAdapter<RegisterRequest> REGISTER_REQUEST = new ModelAdapter<RegisterRequest>() {
+        @Override
+        RegisterRequest newInstance() {
+            return new RegisterRequest(null, null, null);
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, RegisterRequest r) throws IOException {
+            switch (name) {
+                case "user_name":
+                    r.user_name = readString(in);
+                    return true;
+                case "user_email":
+                    r.user_email = readString(in);
+                    return true;
+                case "user_password":
+                    r.user_password = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, RegisterRequest r) throws IOException {
+            out.name("user_name").value(r.user_name);
+            out.name("user_email").value(r.user_email);
+            out.name("user_password").value(r.user_password);
+        }
+    };
+
+    static final TypeAdapter<SosStartRequest> SOS_START_REQUEST = new ModelAdapter<SosStartRequest>() {
+        @Override
+        SosStartRequest newInstance() {
+            return new SosStartRequest();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, SosStartRequest r) throws IOException {
+            if (!name.equals("device_id")) return false;
+            r.device_id = readString(in);
+            return true;
+        }
+
+        @Override
+        void writeFields(JsonWriter out, SosStartRequest r) throws IOException {
+            out.name("device_id").value(r.device_id);
+        }
+    };
+
+    static final TypeAdapter<User> USER = new ModelAdapter<User>() {
+        @Override
+        User newInstance() {
+            return new User(null, null, null);
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, User u) throws IOException {
+            switch (name) {
+                case "user_id":
+                    u.user_id = readString(in);
+                    return true;
+                case "user_name":
+                    u.user_name = readString(in);
+                    return true;
+                case "user_email":
+                    u.user_email = readString(in);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, User u) throws IOException {
+            out.name("user_id").value(u.user_id);
+            out.name("user_name").value(u.user_name);
+            out.name("user_email").value(u.user_email);
+        }
+    };
+}
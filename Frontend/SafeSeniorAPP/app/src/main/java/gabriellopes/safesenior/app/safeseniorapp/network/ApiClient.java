@@ -1,20 +1,165 @@
 package gabriellopes.safesenior.app.safeseniorapp.network;
 
 
+import android.content.Context;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import gabriellopes.safesenior.app.safeseniorapp.BuildConfig;
+import gabriellopes.safesenior.app.safeseniorapp.models.ModelTypeAdapters;
+import gabriellopes.safesenior.app.safeseniorapp.utils.JwtInterceptor;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 public class ApiClient {
-    private static Retrofit retrofit;
-    private static final String BASE_URL = "https://safe-senior-njhw.vercel.app/";
+    private static volatile Retrofit retrofit;
+    private static volatile OkHttpClient httpClient;
+    private static volatile PriorityCallFactory callFactory;
+    private static File cacheDir;
+    // From the safesenior.baseUrl Gradle property, can be swapped before the first request
+    private static volatile String baseUrl = BuildConfig.API_BASE_URL;
+    private static final long CACHE_SIZE_BYTES = 10L * 1024 * 1024;
+    // Decodes the API models with the hand-written adapters instead of reflection
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapters())
+            .create();
+    // Per-endpoint latency of every call made through the shared client
+    private static final NetworkMetrics networkMetrics = new NetworkMetrics();
+
+    // Called once at app start so the HTTP cache has a directory
+    public static synchronized void init(Context context) {
+        if (cacheDir == null) {
+            cacheDir = new File(context.getCacheDir(), "http");
+        }
+    }
+
+    // Point the app at another backend (a local or fake one). Only before the client is built:
+    // Retrofit, the token refresh and the SOS stream all keep the URL they were created with.
+    public static synchronized void setBaseUrl(String url) {
+        if (httpClient != null || retrofit != null) {
+            throw new IllegalStateException("setBaseUrl() after the API client was built");
+        }
+        baseUrl = url.endsWith("/") ? url : url + "/";
+    }
+
+    // Shared OkHttp stack (connection pool + dispatcher + disk cache) for Retrofit and the SOS stream
+    public static OkHttpClient getHttpClient() {
+        OkHttpClient client = httpClient;
+        if (client == null) {
+            synchronized (ApiClient.class) {
+                if (httpClient == null) {
+                    httpClient = buildHttpClient(cacheDir, AuthSession.get(), baseUrl);
+                }
+                client = httpClient;
+            }
+        }
+        return client;
+    }
+
+    // Everything talks to a single host, so one multiplexed HTTP/2 connection carries all calls.
+    // The server sends ETags, so cached lists are revalidated and come back as 304s.
+    static OkHttpClient buildHttpClient(File cacheDir, AuthSession session, String baseUrl) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(64);
+        // HTTP/2 streams are cheap, the default of 5 per host only queues them
+        dispatcher.setMaxRequestsPerHost(16);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(20, TimeUnit.SECONDS)
+                .eventListenerFactory(networkMetrics);
+        if (cacheDir != null) {
+            builder.cache(new Cache(cacheDir, CACHE_SIZE_BYTES));
+        }
+        // The refresh call shares the pool but skips the interceptor and authenticator
+        OkHttpClient plain = builder.build();
+        return plain.newBuilder()
+                .addInterceptor(new JwtInterceptor(session))
+                .addInterceptor(new SingleFlightInterceptor())
+                .authenticator(new TokenAuthenticator(session, plain, baseUrl))
+                .build();
+    }
+
+    // Drop cached responses (logout), done off the main thread because it touches disk
+    public static void clearCache() {
+        Cache cache = getHttpClient().cache();
+        if (cache == null) return;
+        new Thread(() -> {
+            try {
+                cache.evictAll();
+            } catch (IOException ignored) {}
+        }).start();
+    }
+
+    // Retrofit calls go through two lanes on top of the shared client (see PriorityCallFactory)
+    public static PriorityCallFactory getCallFactory() {
+        PriorityCallFactory factory = callFactory;
+        if (factory == null) {
+            synchronized (ApiClient.class) {
+                if (callFactory == null) {
+                    callFactory = new PriorityCallFactory(getHttpClient());
+                }
+                factory = callFactory;
+            }
+        }
+        return factory;
+    }
+
+    // Coalescing counters of the shared client
+    public static SingleFlightInterceptor getSingleFlight() {
+        return findSingleFlight(getHttpClient());
+    }
+
+    static SingleFlightInterceptor findSingleFlight(OkHttpClient client) {
+        for (Interceptor interceptor : client.interceptors()) {
+            if (interceptor instanceof SingleFlightInterceptor) return (SingleFlightInterceptor) interceptor;
+        }
+        return null;
+    }
+
+    // Shared by Retrofit, the list streamer, the SOS stream and the token refresh
+    public static Gson getGson() {
+        return gson;
+    }
+
+    // DNS/connect/TLS/TTFB/body percentiles per ApiInterface method
+    public static NetworkMetrics getNetworkMetrics() {
+        return networkMetrics;
+    }
+
+    public static String getBaseUrl() {
+        return baseUrl;
+    }
 
     public static Retrofit getClient() {
-        if (retrofit == null) {
-            retrofit = new Retrofit.Builder()
-                    .baseUrl(BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .build();
+        Retrofit r = retrofit;
+        if (r == null) {
+            synchronized (ApiClient.class) {
+                if (retrofit == null) {
+                    retrofit = new Retrofit.Builder()
+                            .baseUrl(baseUrl)
+                            .callFactory(getCallFactory())
+                            .addConverterFactory(GsonConverterFactory.create(gson))
+                            .build();
+                }
+                r = retrofit;
+            }
         }
-        return retrofit;
+        return r;
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.util.List;
 
 import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
 import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.models.HelpResponse;
 import gabriellopes.safesenior.app.safeseniorapp.models.LoginRequest;
 import gabriellopes.safesenior.app.safeseniorapp.models.LoginResponse;
 import gabriellopes.safesenior.app.safeseniorapp.models.Notification;
@@ -13,15 +14,16 @@ import gabriellopes.safesenior.app.safeseniorapp.models.SosStartResponse;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
-import retrofit2.http.Header;
 import retrofit2.http.POST;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 public interface ApiInterface {
 
-    // User
+    // User (every other call gets the token from JwtInterceptor)
     @POST("login")
     Call<LoginResponse> login(@Body LoginRequest body);
 
@@ -30,33 +32,71 @@ public interface ApiInterface {
 
     // Connections
     @GET("connections")
-    Call<List<Connection>> getConnections(@Header("Authorization") String token);
+    Call<List<Connection>> getConnections();
+
+    // SOS (toggles are @Critical: they never queue behind polling)
+    @Critical
+    @POST("sos")
+    Call<SosStartResponse> toggleSos();
 
-    // SOS
+    // Ask for an SOS state instead of toggling, so the outbox can replay it safely
+    @Critical
     @POST("sos")
-    Call<SosStartResponse> toggleSos(@Header("Authorization") String token);
+    Call<SosStartResponse> setSos(@Header("Idempotency-Key") String key, @Body JsonObject body);
 
     @GET("sos/active")
-    Call<List<Connection>> getActiveSosUsers(@Header("Authorization") String token);
+    Call<List<Connection>> getActiveSosUsers();
 
     @POST("notifications/{eventId}")
-    Call<Void> sendNotifications(@Header("Authorization") String token, @Path("eventId") String eventId);
+    Call<Void> sendNotifications(@Path("eventId") String eventId);
 
+    // Newest first; before/beforeId (on_at and event_id of the last event shown) and limit page
+    // through the history, all may be null to get everything
     @GET("/sos/events")
     Call<List<Event>> getEvents(
-            @Header("Authorization") String token,
-            @Query("triggered_email") String email
+            @Query("triggered_email") String email,
+            @Query("before") String before,
+            @Query("before_id") String beforeId,
+            @Query("limit") Integer limit
     );
 
-    @POST("/help/toggle")
-    Call<Void> toggleHelp(
-            @Header("Authorization") String token,
-            @Body JsonObject body
+    // Same as getEvents but the body is not buffered, decode it with JsonListStreamer
+    @Streaming
+    @GET("/sos/events")
+    Call<ResponseBody> streamEvents(
+            @Query("triggered_email") String email,
+            @Query("before") String before,
+            @Query("before_id") String beforeId,
+            @Query("limit") Integer limit
     );
 
+    // Oldest first, only the events after after/afterId (on_at and event_id of the newest event
+    // already read), at most limit. Not buffered, decode it with JsonListStreamer.
+    @Streaming
+    @GET("/sos/events?order=asc")
+    Call<ResponseBody> streamEventsAfter(
+            @Query("triggered_email") String email,
+            @Query("after") String after,
+            @Query("after_id") String afterId,
+            @Query("limit") int limit
+    );
+
+    @Critical
+    @POST("/help/toggle")
+    Call<Void> toggleHelp(@Body JsonObject body);
 
+    // Body {"device_id", "help"}: ask for a help state instead of toggling
+    @Critical
+    @POST("/help/toggle")
+    Call<HelpResponse> setHelp(@Header("Idempotency-Key") String key, @Body JsonObject body);
+
+    // Oldest first; after/afterId (sent_at and id of the newest one already processed)
+    // return only newer notifications, both null for the whole list
     @GET("/notifications")
-    Call<List<Notification>> getNotifications(@Header("Authorization") String token);
+    Call<List<Notification>> getNotifications(
+            @Query("after") String after,
+            @Query("after_id") String afterId
+    );
 
 }
 
@@ -0,0 +1,119 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import android.content.Context;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+// Signed-in user's token and id, kept in memory for every request.
+// SharedPreferences is only read once at start and written when the token changes.
+public class AuthSession {
+
+    // Told on the thread that noticed, not on logout
+    public interface Listener {
+        void onSessionExpired();
+    }
+
+    private static AuthSession instance;
+    // Set while the saved session is read in the background; get() waits for it
+    private static volatile FutureTask<Void> loading;
+
+    private final SharedPrefHelper prefs;
+    private volatile String token;
+    private volatile String userId;
+    private volatile Listener listener;
+
+    // Prefs may be null (tests), then the session only lives in memory
+    AuthSession(SharedPrefHelper prefs, String token, String userId) {
+        this.prefs = prefs;
+        this.token = token;
+        this.userId = userId;
+    }
+
+    // Called once at app start
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            SharedPrefHelper prefs = new SharedPrefHelper(context);
+            instance = new AuthSession(prefs, prefs.getToken(), prefs.getUserId());
+        }
+    }
+
+    // Same as init(), but the preferences file is read on the executor so app start doesn't wait for disk
+    public static void initInBackground(Context context, Executor executor) {
+        Context app = context.getApplicationContext();
+        FutureTask<Void> task = new FutureTask<>(() -> init(app), null);
+        loading = task;
+        executor.execute(task);
+    }
+
+    public static AuthSession get() {
+        awaitLoading();
+        synchronized (AuthSession.class) {
+            if (instance == null) instance = new AuthSession(null, null, null);
+            return instance;
+        }
+    }
+
+    // Usually done long before the first screen asks; otherwise the caller waits for the read
+    private static void awaitLoading() {
+        FutureTask<Void> task = loading;
+        if (task == null) return;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                task.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                // Unreadable preferences: continue signed out
+                break;
+            }
+        }
+        loading = null;
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public boolean isLoggedIn() {
+        return token != null;
+    }
+
+    // After login
+    public synchronized void save(String token, String userId) {
+        this.token = token;
+        this.userId = userId;
+        if (prefs != null) prefs.saveAuth(token, userId);
+    }
+
+    // After a token refresh, the user stays the same
+    public synchronized void updateToken(String token) {
+        save(token, userId);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // The server refused to refresh the token: signed out, the user has to log in again
+    public void expire() {
+        clear();
+        Listener l = listener;
+        if (l != null) l.onSessionExpired();
+    }
+
+    // Logout
+    public synchronized void clear() {
+        token = null;
+        userId = null;
+        if (prefs != null) prefs.clearAuth();
+    }
+}
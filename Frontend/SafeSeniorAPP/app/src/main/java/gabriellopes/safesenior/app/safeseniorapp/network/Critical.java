@@ -0,0 +1,13 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks an ApiInterface call that must never wait behind background traffic (SOS and help toggles).
+// PriorityCallFactory sends these through their own lane.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Critical {
+}
@@ -0,0 +1,104 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+// Decodes a JSON array response one element at a time with Gson's JsonReader and hands the
+// elements over in small windows while the rest of the body is still downloading.
+// Use it with @Streaming calls so neither OkHttp nor Gson ever hold the whole list.
+public final class JsonListStreamer {
+
+    // All callbacks run on the streaming thread
+    public interface Consumer<T> {
+        void onWindow(List<T> items);
+        void onComplete(int count);
+        void onError(Throwable t);
+
+        // Checked after every window; false stops reading and drops the rest of the body,
+        // onComplete then gets the number of elements read so far
+        default boolean wantsMore() {
+            return true;
+        }
+    }
+
+    // Reading a body blocks, so streams get their own threads instead of the main thread.
+    // Pages someone is waiting for have their own lane, so a prefetch or a long statistics
+    // download never stands in front of them.
+    private static final ExecutorService STREAMS = Executors.newFixedThreadPool(2);
+    // Work nobody is looking at yet: one thread, lowest priority
+    private static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "JsonListStreamer-background");
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    private JsonListStreamer() {}
+
+    // A list the user is waiting for
+    public static <T> void enqueue(Call<ResponseBody> call, Class<T> elementType, int window, Consumer<T> consumer) {
+        enqueue(STREAMS, call, elementType, window, consumer);
+    }
+
+    // Prefetches and other work done ahead of time, queued behind each other
+    public static <T> void enqueueBackground(Call<ResponseBody> call, Class<T> elementType, int window, Consumer<T> consumer) {
+        enqueue(BACKGROUND, call, elementType, window, consumer);
+    }
+
+    private static <T> void enqueue(ExecutorService lane, Call<ResponseBody> call, Class<T> elementType, int window,
+                                    Consumer<T> consumer) {
+        TypeAdapter<T> adapter = ApiClient.getGson().getAdapter(TypeToken.get(elementType));
+        lane.execute(() -> {
+            int count;
+            try {
+                Response<ResponseBody> response = call.execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    if (response.errorBody() != null) response.errorBody().close();
+                    consumer.onError(new HttpException(response));
+                    return;
+                }
+                try (ResponseBody body = response.body()) {
+                    count = decode(body.charStream(), adapter, window, consumer);
+                }
+            } catch (Exception e) {
+                consumer.onError(e);
+                return;
+            }
+            consumer.onComplete(count);
+        });
+    }
+
+    // Reads the array and calls onWindow every `window` elements (and once more for the rest);
+    // only the current window is ever held in memory. Returns the number of elements read, which
+    // is less than the array holds when the consumer stopped early.
+    static <T> int decode(Reader reader, TypeAdapter<T> adapter, int window, Consumer<T> consumer) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        int count = 0;
+        List<T> items = new ArrayList<>(window);
+        json.beginArray();
+        while (json.hasNext()) {
+            items.add(adapter.read(json));
+            count++;
+            if (items.size() == window) {
+                consumer.onWindow(items);
+                if (!consumer.wantsMore()) return count;
+                items = new ArrayList<>(window);
+            }
+        }
+        json.endArray();
+        if (!items.isEmpty()) consumer.onWindow(items);
+        return count;
+    }
+}
@@ -0,0 +1,98 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free latency histogram in microseconds with HDR-style log-linear buckets: every power of two
+// is split into 16 equal sub-buckets, so any recorded value is off by at most 1/16 (~6%) in a
+// percentile while the whole range (1 us to ~19 h) fits in a fixed array of counters.
+// record() is a handful of atomic updates, so OkHttp threads never block on each other.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values above 2^36 us land in the last bucket
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        if (micros < 0) micros = 0;
+        counts.incrementAndGet(bucketOf(micros));
+        total.incrementAndGet();
+        sum.addAndGet(micros);
+        long m;
+        do {
+            m = max.get();
+        } while (micros > m && !max.compareAndSet(m, micros));
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    public long getSumMicros() {
+        return sum.get();
+    }
+
+    // Copy of the bucket counters, for saving the histogram (see restore)
+    public long[] getBucketCounts() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) copy[i] = counts.get(i);
+        return copy;
+    }
+
+    // A histogram with the values of getBucketCounts(), getSumMicros() and getMaxMicros()
+    public static LatencyHistogram restore(long[] bucketCounts, long sumMicros, long maxMicros) {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < Math.min(BUCKETS, bucketCounts.length); i++) {
+            h.counts.set(i, bucketCounts[i]);
+            h.total.addAndGet(bucketCounts[i]);
+        }
+        h.sum.set(sumMicros);
+        h.max.set(maxMicros);
+        return h;
+    }
+
+    public long getMeanMicros() {
+        long n = total.get();
+        return n == 0 ? 0 : sum.get() / n;
+    }
+
+    // Upper bound of the bucket holding the p-th percentile (0..100), 0 when nothing was recorded.
+    // Counts are read one by one while other threads record, which is fine for a diagnostics read.
+    public long percentileMicros(double p) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBoundOf(i), max.get());
+        }
+        return max.get();
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int sub = (int) (micros >> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,192 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import retrofit2.Invocation;
+
+// Per-endpoint timing of every call on the shared client, taken from OkHttp's EventListener.
+// Calls are grouped by the ApiInterface method that made them (the path for non-Retrofit calls)
+// and each phase goes into its own LatencyHistogram. Phases that didn't happen (DNS and connect on a
+// reused connection, everything on a cache hit) are simply not recorded.
+public class NetworkMetrics implements EventListener.Factory {
+
+    public enum Phase {
+        DNS("dns"),
+        CONNECT("connect"),
+        TLS("tls"),
+        // Request sent until the response headers start arriving
+        TTFB("ttfb"),
+        BODY("body"),
+        TOTAL("total");
+
+        public final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    // Histograms of one endpoint
+    public static final class EndpointStats {
+        private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+
+        EndpointStats() {
+            for (int i = 0; i < histograms.length; i++) histograms[i] = new LatencyHistogram();
+        }
+
+        public LatencyHistogram get(Phase phase) {
+            return histograms[phase.ordinal()];
+        }
+    }
+
+    private final ConcurrentHashMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public EventListener create(Call call) {
+        return new CallTimer(stats(endpointOf(call.request())));
+    }
+
+    // "getConnections" for Retrofit calls, "GET /sos/stream" otherwise
+    static String endpointOf(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) return invocation.method().getName();
+        return request.method() + " " + request.url().encodedPath();
+    }
+
+    private EndpointStats stats(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, e -> new EndpointStats());
+    }
+
+    public EndpointStats get(String endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    public List<String> getEndpoints() {
+        List<String> names = new ArrayList<>(endpoints.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    // Plain-text table, one block per endpoint, one line per recorded phase
+    public void dump(Writer out) throws IOException {
+        for (String endpoint : getEndpoints()) {
+            EndpointStats s = endpoints.get(endpoint);
+            out.write(endpoint + "\n");
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram h = s.get(phase);
+                if (h.getCount() == 0) continue;
+                out.write(String.format(Locale.US, "  %-8s n=%-5d p50=%s p95=%s p99=%s max=%s%n",
+                        phase.label, h.getCount(), ms(h.percentileMicros(50)), ms(h.percentileMicros(95)),
+                        ms(h.percentileMicros(99)), ms(h.getMaxMicros())));
+            }
+        }
+    }
+
+    private static String ms(long micros) {
+        return String.format(Locale.US, "%.1fms", micros / 1000.0);
+    }
+
+    // Events of one call arrive in order, so plain fields are enough
+    private static final class CallTimer extends EventListener {
+        private final EndpointStats stats;
+        private long callStart, dnsStart, connectStart, secureStart, requestSent, bodyStart;
+
+        CallTimer(EndpointStats stats) {
+            this.stats = stats;
+        }
+
+        private void record(Phase phase, long startNanos) {
+            if (startNanos == 0) return;
+            stats.get(phase).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+            record(Phase.DNS, dnsStart);
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            secureStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            record(Phase.TLS, secureStart);
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+            record(Phase.CONNECT, connectStart);
+        }
+
+        @Override
+        public void requestHeadersEnd(Call call, Request request) {
+            requestSent = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            requestSent = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            record(Phase.TTFB, requestSent);
+        }
+
+        @Override
+        public void responseBodyStart(Call call) {
+            bodyStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            record(Phase.BODY, bodyStart);
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            record(Phase.TOTAL, callStart);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            record(Phase.TOTAL, callStart);
+        }
+    }
+}
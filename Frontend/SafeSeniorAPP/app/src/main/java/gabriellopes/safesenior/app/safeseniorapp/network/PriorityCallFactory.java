@@ -0,0 +1,154 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import retrofit2.Invocation;
+
+// Splits Retrofit calls into two lanes that share the connection pool but not the dispatcher.
+// @Critical calls (SOS/help toggles) get a reserved dispatcher so they start right away, and while
+// one is in flight the normal lane is narrowed to a single request so new polls wait instead of
+// competing for a bad connection. Queue wait is measured per lane.
+public class PriorityCallFactory implements Call.Factory {
+
+    // Time between a call being handed to OkHttp and its first interceptor running
+    public static final class LaneStats {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        void record(long waitNanos) {
+            calls.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            long max;
+            do {
+                max = maxWaitNanos.get();
+            } while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos));
+        }
+
+        public long getCalls() {
+            return calls.get();
+        }
+
+        public long getAverageWaitMillis() {
+            long n = calls.get();
+            return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / n);
+        }
+
+        public long getMaxWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+        }
+
+        void reset() {
+            calls.set(0);
+            totalWaitNanos.set(0);
+            maxWaitNanos.set(0);
+        }
+    }
+
+    // Tag carrying the time a call was created (Retrofit creates it when it is enqueued or executed)
+    private static final class QueuedAt {
+        final long nanos = System.nanoTime();
+    }
+
+    private static final int NORMAL_MAX_REQUESTS = 16;
+    private static final int CRITICAL_MAX_REQUESTS = 4;
+
+    private final OkHttpClient normalClient;
+    private final OkHttpClient criticalClient;
+    private final Dispatcher normalDispatcher = new Dispatcher();
+    private final LaneStats normalStats = new LaneStats();
+    private final LaneStats criticalStats = new LaneStats();
+    private final AtomicInteger criticalInFlight = new AtomicInteger();
+
+    public PriorityCallFactory(OkHttpClient base) {
+        normalDispatcher.setMaxRequestsPerHost(NORMAL_MAX_REQUESTS);
+        Dispatcher criticalDispatcher = new Dispatcher();
+        criticalDispatcher.setMaxRequests(CRITICAL_MAX_REQUESTS);
+        criticalDispatcher.setMaxRequestsPerHost(CRITICAL_MAX_REQUESTS);
+
+        OkHttpClient.Builder normal = base.newBuilder().dispatcher(normalDispatcher);
+        // First interceptor, so the wait doesn't include the token or single-flight steps
+        normal.interceptors().add(0, chain -> {
+            recordWait(chain.request(), normalStats);
+            return chain.proceed(chain.request());
+        });
+        normalClient = normal.build();
+
+        OkHttpClient.Builder critical = base.newBuilder().dispatcher(criticalDispatcher);
+        critical.interceptors().add(0, chain -> {
+            recordWait(chain.request(), criticalStats);
+            criticalStarted();
+            try {
+                return chain.proceed(chain.request());
+            } finally {
+                criticalFinished();
+            }
+        });
+        criticalClient = critical.build();
+    }
+
+    @Override
+    public Call newCall(Request request) {
+        Request tagged = request.newBuilder().tag(QueuedAt.class, new QueuedAt()).build();
+        return isCritical(request) ? criticalClient.newCall(tagged) : normalClient.newCall(tagged);
+    }
+
+    static boolean isCritical(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation != null && invocation.method().isAnnotationPresent(Critical.class);
+    }
+
+    private static void recordWait(Request request, LaneStats stats) {
+        QueuedAt queuedAt = request.tag(QueuedAt.class);
+        if (queuedAt != null) stats.record(System.nanoTime() - queuedAt.nanos);
+    }
+
+    // Defer polls: requests already running finish, new ones queue until the toggle is done
+    private void criticalStarted() {
+        if (criticalInFlight.incrementAndGet() == 1) normalDispatcher.setMaxRequestsPerHost(1);
+    }
+
+    private void criticalFinished() {
+        // Raising the limit again starts the queued polls
+        if (criticalInFlight.decrementAndGet() == 0) normalDispatcher.setMaxRequestsPerHost(NORMAL_MAX_REQUESTS);
+    }
+
+    public LaneStats getNormalStats() {
+        return normalStats;
+    }
+
+    public LaneStats getCriticalStats() {
+        return criticalStats;
+    }
+
+    // Polls waiting for a free slot in the normal lane
+    public int getQueuedNormalCalls() {
+        return normalDispatcher.queuedCallsCount();
+    }
+
+    public void resetStats() {
+        normalStats.reset();
+        criticalStats.reset();
+    }
+
+    // Plain-text block in the format of NetworkMetrics.dump()
+    public void dump(Writer out) throws IOException {
+        out.write("Request lanes (queue wait)\n");
+        dumpLane(out, "critical", criticalStats);
+        dumpLane(out, "normal", normalStats);
+    }
+
+    private static void dumpLane(Writer out, String name, LaneStats stats) throws IOException {
+        out.write(String.format(Locale.US, "  %-8s n=%-5d avg=%dms max=%dms%n",
+                name, stats.getCalls(), stats.getAverageWaitMillis(), stats.getMaxWaitMillis()));
+    }
+}
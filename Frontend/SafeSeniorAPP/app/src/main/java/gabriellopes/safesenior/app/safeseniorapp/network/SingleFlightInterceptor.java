@@ -0,0 +1,125 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gabriellopes.safesenior.app.safeseniorapp.utils.JwtInterceptor;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import retrofit2.Invocation;
+import retrofit2.http.Streaming;
+
+// Concurrent identical GETs (same URL and same user) share one network call.
+// The first caller does the request; callers that arrive while it is in flight wait for it
+// and get a copy of its response, or its failure. A leader that was canceled fails only itself;
+// its waiting callers make their own call. Must run after JwtInterceptor so the token is part of the key.
+public class SingleFlightInterceptor implements Interceptor {
+
+    // One shared network call and its outcome
+    private static final class Flight {
+        final CountDownLatch done = new CountDownLatch(1);
+        Response response;
+        byte[] body;
+        MediaType contentType;
+        Throwable error;
+        boolean canceled;
+    }
+
+    private final ConcurrentHashMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong networkCalls = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!canShare(request)) return chain.proceed(request);
+
+        String key = request.url() + " " + request.header(JwtInterceptor.HEADER);
+        Flight flight = new Flight();
+        Flight leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalescedCalls.incrementAndGet();
+            return follow(leader, chain);
+        }
+
+        networkCalls.incrementAndGet();
+        try {
+            Response response = chain.proceed(request);
+            // Buffer the body so every waiting caller can read its own copy
+            try (ResponseBody body = response.body()) {
+                flight.contentType = body != null ? body.contentType() : null;
+                flight.body = body != null ? body.bytes() : new byte[0];
+            }
+            flight.response = response;
+            return copy(flight, request);
+        } catch (Throwable t) {
+            // Anything, so a waiting caller never copies a missing response
+            flight.error = t;
+            flight.canceled = chain.call().isCanceled();
+            throw t;
+        } finally {
+            inFlight.remove(key, flight);
+            flight.done.countDown();
+        }
+    }
+
+    // GETs only; the SOS stream never ends and @Streaming calls must not be buffered
+    private static boolean canShare(Request request) {
+        if (!"GET".equals(request.method())) return false;
+        if ("text/event-stream".equals(request.header("Accept"))) return false;
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation == null || !invocation.method().isAnnotationPresent(Streaming.class);
+    }
+
+    private Response follow(Flight leader, Chain chain) throws IOException {
+        try {
+            leader.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a shared call");
+        }
+        if (leader.canceled) {
+            networkCalls.incrementAndGet();
+            return chain.proceed(chain.request());
+        }
+        if (leader.error != null) throw new IOException("shared call failed", leader.error);
+        return copy(leader, chain.request());
+    }
+
+    private static Response copy(Flight flight, Request request) {
+        return flight.response.newBuilder()
+                .request(request)
+                .body(ResponseBody.create(flight.body, flight.contentType))
+                .build();
+    }
+
+    // Requests that went to the network
+    public long getNetworkCalls() {
+        return networkCalls.get();
+    }
+
+    // Requests that were answered by another caller's network call
+    public long getCoalescedCalls() {
+        return coalescedCalls.get();
+    }
+
+    public void resetStats() {
+        networkCalls.set(0);
+        coalescedCalls.set(0);
+    }
+
+    // Plain-text block in the format of NetworkMetrics.dump()
+    public void dump(Writer out) throws IOException {
+        out.write("Shared GETs\n");
+        out.write(String.format(Locale.US, "  calls    network=%d shared=%d%n",
+                networkCalls.get(), coalescedCalls.get()));
+    }
+}
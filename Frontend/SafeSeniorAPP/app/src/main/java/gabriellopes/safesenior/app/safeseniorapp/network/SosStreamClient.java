@@ -0,0 +1,184 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.sse.EventSource;
+import okhttp3.sse.EventSourceListener;
+import okhttp3.sse.EventSources;
+
+// Keeps a Server-Sent Events connection to /sos/stream open and pushes SOS and help changes to the UI.
+// Every reconnect, after a failure or a closed window, waits out a jittered backoff that only
+// goes back to the start once an event came through, so a server that closes right away is not
+// hammered in a loop.
+public class SosStreamClient {
+
+    // Receives stream updates on the callback executor
+    public interface Listener {
+        void onActiveSosUsers(List<Connection> activeUsers);
+        void onHelpStateChanged(String deviceId, boolean help);
+        void onStreamStateChanged(boolean connected);
+    }
+
+    // Runs a reconnect after delayMs; tests record the delays instead of waiting them out
+    interface ReconnectScheduler {
+        void schedule(Runnable reconnect, long delayMs);
+    }
+
+    private static final String STREAM_PATH = "sos/stream";
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30000;
+    private static final Type CONNECTION_LIST = new TypeToken<List<Connection>>() {}.getType();
+
+    private final OkHttpClient client;
+    private final String streamUrl;
+    private final Listener listener;
+    private final Executor callbackExecutor;
+    private final Gson gson = ApiClient.getGson();
+    private final ReconnectScheduler reconnects;
+    // 0..1, the share of the 20% jitter added to a backoff
+    private final DoubleSupplier jitter;
+
+    private ScheduledExecutorService scheduler;
+    private EventSource eventSource;
+    private long backoffMs = INITIAL_BACKOFF_MS;
+    private boolean running = false;
+    // Null until the first connect attempt resolves, so the first failure is reported too
+    private Boolean connected = null;
+
+    // The shared client attaches the token and refreshes it when it expires
+    public SosStreamClient(Listener listener, Executor callbackExecutor) {
+        this(ApiClient.getHttpClient(), ApiClient.getBaseUrl(), listener, callbackExecutor);
+    }
+
+    public SosStreamClient(OkHttpClient baseClient, String baseUrl,
+                           Listener listener, Executor callbackExecutor) {
+        this(baseClient, baseUrl, listener, callbackExecutor, null, new Random()::nextDouble);
+    }
+
+    // reconnects null: wait out the backoff on the client's own scheduler
+    SosStreamClient(OkHttpClient baseClient, String baseUrl, Listener listener, Executor callbackExecutor,
+                    ReconnectScheduler reconnects, DoubleSupplier jitter) {
+        // Same pool and dispatcher as Retrofit, but the stream must never hit the read timeout
+        this.client = baseClient.newBuilder()
+                .readTimeout(0, TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(false)
+                .build();
+        this.streamUrl = baseUrl + STREAM_PATH;
+        this.listener = listener;
+        this.callbackExecutor = callbackExecutor;
+        this.reconnects = reconnects != null
+                ? reconnects : (reconnect, delayMs) -> scheduler.schedule(reconnect, delayMs, TimeUnit.MILLISECONDS);
+        this.jitter = jitter;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        backoffMs = INITIAL_BACKOFF_MS;
+        connect();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (eventSource != null) {
+            eventSource.cancel();
+            eventSource = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        connected = null;
+    }
+
+    public synchronized boolean isConnected() {
+        return Boolean.TRUE.equals(connected);
+    }
+
+    private synchronized void connect() {
+        if (!running) return;
+        Request request = new Request.Builder()
+                .url(streamUrl)
+                .header("Accept", "text/event-stream")
+                .build();
+        eventSource = EventSources.createFactory(client).newEventSource(request, new StreamListener());
+    }
+
+    // Retry with exponential backoff and jitter so a fleet of phones doesn't reconnect in lockstep
+    private synchronized void scheduleReconnect(long delayMs) {
+        if (!running) return;
+        reconnects.schedule(this::connect, delayMs + (long) (jitter.getAsDouble() * delayMs * 0.2));
+    }
+
+    private synchronized long nextBackoff() {
+        long delay = backoffMs;
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        return delay;
+    }
+
+    private synchronized void setConnected(boolean value) {
+        if (connected != null && connected == value) return;
+        connected = value;
+        callbackExecutor.execute(() -> listener.onStreamStateChanged(value));
+    }
+
+    private class StreamListener extends EventSourceListener {
+        @Override
+        public void onOpen(EventSource source, Response response) {
+            setConnected(true);
+        }
+
+        @Override
+        public void onEvent(EventSource source, String id, String type, String data) {
+            synchronized (SosStreamClient.this) {
+                // The server sends the active users first, so a working window always resets this
+                backoffMs = INITIAL_BACKOFF_MS;
+            }
+            try {
+                if ("sos".equals(type)) {
+                    List<Connection> activeUsers = gson.fromJson(data, CONNECTION_LIST);
+                    callbackExecutor.execute(() -> listener.onActiveSosUsers(activeUsers));
+                } else if ("help".equals(type)) {
+                    JsonObject json = gson.fromJson(data, JsonObject.class);
+                    String deviceId = json.get("device_id").getAsString();
+                    boolean help = json.get("help").getAsBoolean();
+                    callbackExecutor.execute(() -> listener.onHelpStateChanged(deviceId, help));
+                }
+            } catch (Exception ignored) {
+                // Malformed event, keep the stream alive
+            }
+        }
+
+        @Override
+        public void onClosed(EventSource source) {
+            // Server closed its window, come back without falling back to polling
+            scheduleReconnect(nextBackoff());
+        }
+
+        @Override
+        public void onFailure(EventSource source, Throwable t, Response response) {
+            synchronized (SosStreamClient.this) {
+                // Cancelled by stop()
+                if (!running) return;
+            }
+            setConnected(false);
+            scheduleReconnect(nextBackoff());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.LoginResponse;
+import gabriellopes.safesenior.app.safeseniorapp.utils.JwtInterceptor;
+import okhttp3.Authenticator;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.Route;
+
+// Answers a 401 by refreshing the expired token and retrying the call once.
+// When many calls fail together only the first one refreshes; the others wait on the lock
+// and retry with the token it got, so the server sees a single /token/refresh.
+public class TokenAuthenticator implements Authenticator {
+    private static final String REFRESH_PATH = "token/refresh";
+
+    private final AuthSession session;
+    private final OkHttpClient refreshClient;
+    private final String refreshUrl;
+    private final Gson gson = ApiClient.getGson();
+    private final Object lock = new Object();
+    // Token the server refused to refresh, so waiting calls don't try it again
+    private String rejectedToken;
+
+    // refreshClient must not use this authenticator itself
+    public TokenAuthenticator(AuthSession session, OkHttpClient refreshClient, String baseUrl) {
+        this.session = session;
+        this.refreshClient = refreshClient;
+        this.refreshUrl = baseUrl + REFRESH_PATH;
+    }
+
+    @Override
+    public Request authenticate(Route route, Response response) throws IOException {
+        String failedToken = response.request().header(JwtInterceptor.HEADER);
+        // Not our call, or already retried once with a fresh token
+        if (failedToken == null || response.priorResponse() != null) return null;
+
+        String token = freshToken(failedToken);
+        if (token == null) return null;
+        return response.request().newBuilder()
+                .header(JwtInterceptor.HEADER, token)
+                .build();
+    }
+
+    private String freshToken(String failedToken) throws IOException {
+        synchronized (lock) {
+            String current = session.getToken();
+            // Another call refreshed while this one was waiting
+            if (current != null && !current.equals(failedToken)) return current;
+            if (failedToken.equals(rejectedToken)) return null;
+
+            Request request = new Request.Builder()
+                    .url(refreshUrl)
+                    .header(JwtInterceptor.HEADER, failedToken)
+                    .post(RequestBody.create(new byte[0], null))
+                    .build();
+            try (Response response = refreshClient.newCall(request).execute()) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    // Too old to refresh, the user has to log in again
+                    if (response.code() == 401 || response.code() == 403) {
+                        rejectedToken = failedToken;
+                        session.expire();
+                    }
+                    return null;
+                }
+                LoginResponse body = gson.fromJson(response.body().charStream(), LoginResponse.class);
+                if (body == null || body.token == null) return null;
+                session.updateToken(body.token);
+                return body.token;
+            }
+        }
+    }
+}
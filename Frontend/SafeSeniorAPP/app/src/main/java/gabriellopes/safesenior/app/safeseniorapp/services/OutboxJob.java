@@ -0,0 +1,48 @@
+package gabriellopes.safesenior.app.safeseniorapp.services;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import gabriellopes.safesenior.app.safeseniorapp.data.Outbox;
+import gabriellopes.safesenior.app.safeseniorapp.network.AuthSession;
+
+// Sends the SOS and help changes left in the Outbox as soon as a network is available, also when
+// the app was closed or killed in the meantime. One-off job, scheduled by the outbox on a retry.
+public class OutboxJob extends JobService {
+    private static final int JOB_ID = 1002;
+    private static final long FLUSH_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor();
+
+    // Safe to call repeatedly, a pending job is kept
+    public static void schedule(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) return;
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, OutboxJob.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .setPersisted(true)
+                .build();
+        scheduler.schedule(job);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        if (!AuthSession.get().isLoggedIn()) return false;
+        // Entries that are still not through are retried with the job's backoff
+        WORKER.execute(() -> jobFinished(params, !Outbox.get(this).flush(FLUSH_TIMEOUT_MS)));
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        return true;
+    }
+}
@@ -0,0 +1,127 @@
+package gabriellopes.safesenior.app.safeseniorapp.services;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import gabriellopes.safesenior.app.safeseniorapp.activities.MainActivity;
+import gabriellopes.safesenior.app.safeseniorapp.data.AlertLog;
+import gabriellopes.safesenior.app.safeseniorapp.data.NotificationSync;
+import gabriellopes.safesenior.app.safeseniorapp.models.Notification;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiClient;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
+import gabriellopes.safesenior.app.safeseniorapp.network.AuthSession;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+import retrofit2.Response;
+
+// Checks for SOS notifications newer than the last processed one while the app is closed and raises system notifications.
+// Runs as a periodic JobScheduler job: the system batches it with other apps' network work and
+// defers it to doze maintenance windows, and it only runs when a network is available.
+public class SosWatcherJob extends JobService {
+    private static final int JOB_ID = 1001;
+    // Shortest period JobScheduler allows; flex lets the system line it up with other wakeups
+    private static final long PERIOD_MS = TimeUnit.MINUTES.toMillis(15);
+    private static final long FLEX_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final String CHANNEL_ID = "sos_alerts";
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor();
+
+    // Safe to call repeatedly, an existing schedule is kept
+    public static void schedule(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) return;
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, SosWatcherJob.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .setPeriodic(PERIOD_MS, FLEX_MS)
+                .setPersisted(true)
+                .build();
+        scheduler.schedule(job);
+    }
+
+    // Logout
+    public static void cancel(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler != null) scheduler.cancel(JOB_ID);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        WatcherStats.get(this).recordWakeup(System.currentTimeMillis());
+        if (!AuthSession.get().isLoggedIn()) return false;
+        // One request per wakeup, off the main thread
+        WORKER.execute(() -> jobFinished(params, !checkForAlerts()));
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // Stopped by the system (e.g. network lost), try again in the next window
+        return true;
+    }
+
+    // False when the check should be retried
+    private boolean checkForAlerts() {
+        ApiInterface api = ApiClient.getClient().create(ApiInterface.class);
+        try {
+            NotificationSync sync = NotificationSync.get(this);
+            Response<List<Notification>> response =
+                    api.getNotifications(sync.getAfter(), sync.getAfterId()).execute();
+            if (!response.isSuccessful() || response.body() == null) return response.code() < 500;
+
+            AlertLog alertLog = AlertLog.get(this);
+            WatcherStats stats = WatcherStats.get(this);
+            for (Notification n : response.body()) {
+                // Unseen, and not already shown by the dashboard or an earlier run
+                if (n.seen_at != null || n.trigger_name == null || !alertLog.markShown(n.id)) continue;
+                postAlert(n);
+                long sentAt = RowMapper.parseMillis(n.sent_at);
+                if (sentAt > 0) stats.recordAlertDelay(System.currentTimeMillis() - sentAt);
+            }
+            sync.advance(response.body());
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void postAlert(Notification n) {
+        NotificationManager manager = getSystemService(NotificationManager.class);
+        if (manager == null) return;
+
+        android.app.Notification.Builder builder;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "SOS alerts",
+                    NotificationManager.IMPORTANCE_HIGH);
+            manager.createNotificationChannel(channel);
+            builder = new android.app.Notification.Builder(this, CHANNEL_ID);
+        } else {
+            builder = new android.app.Notification.Builder(this)
+                    .setPriority(android.app.Notification.PRIORITY_HIGH);
+        }
+
+        // Tapping opens the dashboard, where the user is highlighted
+        PendingIntent open = PendingIntent.getActivity(this, 0,
+                new Intent(this, MainActivity.class).addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP),
+                PendingIntent.FLAG_IMMUTABLE);
+        builder.setSmallIcon(android.R.drawable.ic_dialog_alert)
+                .setContentTitle("SOS ALERT")
+                .setContentText(n.trigger_name + " triggered an SOS!")
+                .setCategory(android.app.Notification.CATEGORY_ALARM)
+                .setContentIntent(open)
+                .setAutoCancel(true);
+        manager.notify(n.id.hashCode(), builder.build());
+    }
+}
@@ -0,0 +1,104 @@
+package gabriellopes.safesenior.app.safeseniorapp.services;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+
+// Battery and latency figures of the background SOS watcher: how often it wakes the device
+// and how long after the SOS was sent the system notification appeared. Kept across restarts.
+public class WatcherStats {
+    private static final String PREFS_NAME = "SafeSeniorWatcherStats";
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+    private static final long WINDOW_MS = 24 * HOUR_MS;
+
+    private static WatcherStats instance;
+
+    private final SharedPreferences prefs;
+    // Wakeup times of the last 24 h, oldest first
+    private final Deque<Long> wakeups = new ArrayDeque<>();
+
+    private WatcherStats(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        for (String t : prefs.getString("wakeups", "").split(",")) {
+            if (!t.isEmpty()) wakeups.addLast(Long.parseLong(t));
+        }
+    }
+
+    public static synchronized WatcherStats get(Context context) {
+        if (instance == null) instance = new WatcherStats(context);
+        return instance;
+    }
+
+    public synchronized void recordWakeup(long nowMillis) {
+        wakeups.addLast(nowMillis);
+        dropOld(nowMillis);
+        StringBuilder sb = new StringBuilder();
+        for (Long t : wakeups) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(t);
+        }
+        prefs.edit().putString("wakeups", sb.toString()).apply();
+    }
+
+    // Time from the SOS being sent (server sent_at) to the alert being posted
+    public synchronized void recordAlertDelay(long delayMillis) {
+        if (delayMillis < 0) return;
+        prefs.edit()
+                .putLong("alerts", prefs.getLong("alerts", 0) + 1)
+                .putLong("delay_total", prefs.getLong("delay_total", 0) + delayMillis)
+                .putLong("delay_max", Math.max(prefs.getLong("delay_max", 0), delayMillis))
+                .putLong("delay_last", delayMillis)
+                .apply();
+    }
+
+    public synchronized int getWakeupsLastHour(long nowMillis) {
+        dropOld(nowMillis);
+        int count = 0;
+        for (Long t : wakeups) {
+            if (nowMillis - t <= HOUR_MS) count++;
+        }
+        return count;
+    }
+
+    // Average over the last 24 h
+    public synchronized float getWakeupsPerHour(long nowMillis) {
+        dropOld(nowMillis);
+        return wakeups.size() / 24f;
+    }
+
+    public synchronized long getAlertCount() {
+        return prefs.getLong("alerts", 0);
+    }
+
+    public synchronized long getAverageAlertDelayMillis() {
+        long alerts = prefs.getLong("alerts", 0);
+        return alerts == 0 ? 0 : prefs.getLong("delay_total", 0) / alerts;
+    }
+
+    public synchronized long getMaxAlertDelayMillis() {
+        return prefs.getLong("delay_max", 0);
+    }
+
+    public synchronized long getLastAlertDelayMillis() {
+        return prefs.getLong("delay_last", 0);
+    }
+
+    // Plain-text block in the format of NetworkMetrics.dump()
+    public synchronized void dump(Writer out, long nowMillis) throws IOException {
+        out.write("Background SOS watcher\n");
+        out.write(String.format(Locale.US, "  wakeups  last hour=%d per hour (24 h)=%.1f%n",
+                getWakeupsLastHour(nowMillis), getWakeupsPerHour(nowMillis)));
+        out.write(String.format(Locale.US, "  alerts   n=%-5d avg delay=%ds max=%ds last=%ds%n",
+                getAlertCount(), getAverageAlertDelayMillis() / 1000, getMaxAlertDelayMillis() / 1000,
+                getLastAlertDelayMillis() / 1000));
+    }
+
+    private void dropOld(long nowMillis) {
+        while (!wakeups.isEmpty() && nowMillis - wakeups.peekFirst() > WINDOW_MS) wakeups.removeFirst();
+    }
+}
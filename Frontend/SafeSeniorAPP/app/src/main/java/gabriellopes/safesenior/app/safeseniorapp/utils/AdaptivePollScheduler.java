@@ -0,0 +1,158 @@
+package gabriellopes.safesenior.app.safeseniorapp.utils;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+// Runs a poll task only while the screen is visible and the device is online.
+// Polls fast while an SOS is active and backs off exponentially while everything is quiet.
+public class AdaptivePollScheduler implements DefaultLifecycleObserver {
+
+    // The old fixed dashboard rate, used as the baseline for the "requests saved" counter
+    public static final long BASELINE_INTERVAL_MS = 5000;
+    private static final long ACTIVE_INTERVAL_MS = 2000;
+    private static final long QUIET_MAX_INTERVAL_MS = 30000;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable pollTask;
+    private final ConnectivityManager connectivityManager;
+
+    // Poll is wanted by the caller (e.g. the SOS stream is down)
+    private boolean enabled = false;
+    // Activity is between onStart and onStop
+    private boolean foreground = false;
+    private boolean online = true;
+    private boolean anySosActive = false;
+    private long quietIntervalMs = BASELINE_INTERVAL_MS;
+
+    // Counters
+    private long requestsMade = 0;
+    private long enabledSinceMs = 0;
+    private long enabledTotalMs = 0;
+
+    private final Runnable tick = new Runnable() {
+        @Override
+        public void run() {
+            if (!canPoll()) return;
+            requestsMade++;
+            pollTask.run();
+            handler.postDelayed(this, nextDelay());
+        }
+    };
+
+    private final ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onAvailable(@NonNull Network network) {
+            handler.post(() -> setOnline(true));
+        }
+
+        @Override
+        public void onLost(@NonNull Network network) {
+            handler.post(() -> setOnline(false));
+        }
+    };
+
+    public AdaptivePollScheduler(Context context, LifecycleOwner owner, Runnable pollTask) {
+        this.pollTask = pollTask;
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager != null) {
+            online = connectivityManager.getActiveNetwork() != null;
+            connectivityManager.registerDefaultNetworkCallback(networkCallback);
+        }
+        owner.getLifecycle().addObserver(this);
+    }
+
+    // Start polling (resyncs immediately)
+    public void start() {
+        if (enabled) return;
+        enabled = true;
+        enabledSinceMs = SystemClock.elapsedRealtime();
+        resync();
+    }
+
+    // Stop polling until start() is called again
+    public void stop() {
+        if (!enabled) return;
+        enabled = false;
+        enabledTotalMs += SystemClock.elapsedRealtime() - enabledSinceMs;
+        handler.removeCallbacks(tick);
+    }
+
+    // Called with the result of each poll to pick the next interval
+    public void reportResult(boolean sosActive) {
+        boolean becameActive = sosActive && !anySosActive;
+        anySosActive = sosActive;
+        if (sosActive) {
+            quietIntervalMs = BASELINE_INTERVAL_MS;
+        }
+        // Don't wait out a long quiet backoff once something is happening
+        if (becameActive && canPoll()) {
+            handler.removeCallbacks(tick);
+            handler.postDelayed(tick, ACTIVE_INTERVAL_MS);
+        }
+    }
+
+    public long getRequestsMade() {
+        return requestsMade;
+    }
+
+    // Requests a fixed 5 s loop would have made in the same time, minus what was actually sent
+    public long getRequestsSaved() {
+        long enabledMs = enabledTotalMs;
+        if (enabled) enabledMs += SystemClock.elapsedRealtime() - enabledSinceMs;
+        return Math.max(0, enabledMs / BASELINE_INTERVAL_MS - requestsMade);
+    }
+
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        foreground = true;
+        resync();
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        foreground = false;
+        handler.removeCallbacks(tick);
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        stop();
+        owner.getLifecycle().removeObserver(this);
+        if (connectivityManager != null) {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+        }
+    }
+
+    private void setOnline(boolean value) {
+        if (online == value) return;
+        online = value;
+        if (online) resync();
+        else handler.removeCallbacks(tick);
+    }
+
+    // Poll right away and restart the backoff
+    private void resync() {
+        handler.removeCallbacks(tick);
+        quietIntervalMs = BASELINE_INTERVAL_MS;
+        if (canPoll()) handler.post(tick);
+    }
+
+    private boolean canPoll() {
+        return enabled && foreground && online;
+    }
+
+    private long nextDelay() {
+        if (anySosActive) return ACTIVE_INTERVAL_MS;
+        long delay = quietIntervalMs;
+        quietIntervalMs = Math.min(quietIntervalMs * 2, QUIET_MAX_INTERVAL_MS);
+        return delay;
+    }
+}
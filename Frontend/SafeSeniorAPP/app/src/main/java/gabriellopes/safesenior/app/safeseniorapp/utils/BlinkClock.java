@@ -0,0 +1,109 @@
+package gabriellopes.safesenior.app.safeseniorapp.utils;
+
+import android.view.Choreographer;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gabriellopes.safesenior.app.safeseniorapp.R;
+
+// One Choreographer frame callback drives every blinking SOS view (rows, button, label, overlay)
+// instead of one infinite ObjectAnimator per view. Main thread only.
+public final class BlinkClock implements Choreographer.FrameCallback {
+
+    private static BlinkClock instance;
+
+    // Blinking views that are currently attached to a window
+    private final List<Blink> active = new ArrayList<>();
+    private boolean running = false;
+
+    // One blinking view; pauses itself while the view is off screen
+    private final class Blink implements View.OnAttachStateChangeListener {
+        final View view;
+        float from;
+        float to;
+        long periodMs;
+        boolean ticking = false;
+
+        Blink(View view) {
+            this.view = view;
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            resume(this);
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            pause(this);
+        }
+    }
+
+    private BlinkClock() {}
+
+    public static BlinkClock get() {
+        if (instance == null) instance = new BlinkClock();
+        return instance;
+    }
+
+    // Fade a view back and forth between two alpha values, periodMs per direction
+    public void subscribe(View view, float from, float to, long periodMs) {
+        Blink blink = (Blink) view.getTag(R.id.blink_subscription);
+        if (blink == null) {
+            blink = new Blink(view);
+            view.setTag(R.id.blink_subscription, blink);
+            view.addOnAttachStateChangeListener(blink);
+        }
+        blink.from = from;
+        blink.to = to;
+        blink.periodMs = periodMs;
+        if (view.isAttachedToWindow()) resume(blink);
+    }
+
+    // Stop blinking and restore the view's resting alpha
+    public void unsubscribe(View view) {
+        Blink blink = (Blink) view.getTag(R.id.blink_subscription);
+        if (blink == null) return;
+        view.removeOnAttachStateChangeListener(blink);
+        view.setTag(R.id.blink_subscription, null);
+        pause(blink);
+        view.setAlpha(blink.from);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (active.isEmpty()) {
+            running = false;
+            return;
+        }
+        long nowMs = frameTimeNanos / 1_000_000;
+        // Indexed loop: no iterator allocation per frame
+        for (int i = 0, n = active.size(); i < n; i++) {
+            Blink blink = active.get(i);
+            // Triangle wave, every view with the same period stays in phase
+            float phase = (nowMs % (2 * blink.periodMs)) / (float) blink.periodMs;
+            float t = phase <= 1f ? phase : 2f - phase;
+            blink.view.setAlpha(blink.from + (blink.to - blink.from) * t);
+        }
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private void resume(Blink blink) {
+        if (blink.ticking) return;
+        blink.ticking = true;
+        active.add(blink);
+        if (!running) {
+            running = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    // Detached views drop out of the frame loop; the attach listener brings them back
+    private void pause(Blink blink) {
+        if (!blink.ticking) return;
+        blink.ticking = false;
+        active.remove(blink);
+    }
+}
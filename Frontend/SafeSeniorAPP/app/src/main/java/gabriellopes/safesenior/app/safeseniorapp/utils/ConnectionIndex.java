@@ -0,0 +1,201 @@
+package gabriellopes.safesenior.app.safeseniorapp.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.ConnectionRow;
+
+// Search and ordering for the dashboard list. Every row gets a few keys (its name, each word of
+// the name and its email, lowercased and without accents), kept in one sorted array, so a prefix
+// is a binary search instead of a scan of every row. Each word of a query has to be the start of
+// one of the row's keys. A query that only adds characters to the previous one narrows down the
+// previous matches, which is what happens on every keystroke.
+// The index is built on the first search and is not thread safe: RowMapper runs all filtering
+// on its own thread.
+public final class ConnectionIndex {
+
+    public enum Order {
+        // As /connections returned them
+        SERVER,
+        // Active SOS users on top, the rest in server order
+        SOS_FIRST,
+        // Most recent last SOS first, people without one at the end
+        RECENT_SOS
+    }
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    // Rows without SOS state, positions match the rows passed to apply()
+    private final List<ConnectionRow> baseRows;
+
+    // Built on first use: sorted keys and the row each one belongs to
+    private String[] keys;
+    private int[] keyRows;
+    private String[][] rowKeys;
+    // Row positions by last SOS, newest first
+    private int[] byRecent;
+
+    // Previous query and its matches (row positions in server order)
+    private String lastQuery;
+    private int[] lastMatches;
+
+    public ConnectionIndex(List<ConnectionRow> baseRows) {
+        this.baseRows = baseRows;
+    }
+
+    // Rows with their SOS state (same order as baseRows) filtered by query and sorted
+    public List<ConnectionRow> apply(List<ConnectionRow> rows, String query, Order order) {
+        int[] matches = match(query);
+        List<ConnectionRow> result = new ArrayList<>(matches.length);
+        if (order == Order.RECENT_SOS) {
+            boolean[] matched = new boolean[rows.size()];
+            for (int p : matches) matched[p] = true;
+            for (int p : byRecent) if (matched[p]) result.add(rows.get(p));
+        } else if (order == Order.SOS_FIRST) {
+            for (int p : matches) if (rows.get(p).sosActive) result.add(rows.get(p));
+            for (int p : matches) if (!rows.get(p).sosActive) result.add(rows.get(p));
+        } else {
+            for (int p : matches) result.add(rows.get(p));
+        }
+        return result;
+    }
+
+    // Positions of the rows matching query, ascending; every row for a blank query
+    int[] match(String query) {
+        build();
+        String normalized = query == null ? "" : normalize(query).trim();
+        String[] terms = normalized.isEmpty() ? new String[0] : SPACES.split(normalized);
+        int[] matches;
+        if (terms.length == 0) {
+            matches = all();
+        } else if (lastQuery != null && !lastQuery.isEmpty() && normalized.startsWith(lastQuery)) {
+            // Typing on: every new term extends or adds to the old ones, so only old matches can match
+            matches = filter(lastMatches, terms);
+        } else {
+            matches = search(terms);
+        }
+        lastQuery = normalized;
+        lastMatches = matches;
+        return matches;
+    }
+
+    private int[] search(String[] terms) {
+        // Look the longest term up in the index, it has the fewest candidates
+        String longest = terms[0];
+        for (String t : terms) if (t.length() > longest.length()) longest = t;
+        int from = lowerBound(longest);
+        // A row is listed once per key that matches, mark it instead of collecting duplicates
+        boolean[] candidate = new boolean[baseRows.size()];
+        int count = 0;
+        for (int i = from; i < keys.length && keys[i].startsWith(longest); i++) {
+            if (!candidate[keyRows[i]]) {
+                candidate[keyRows[i]] = true;
+                count++;
+            }
+        }
+        int[] candidates = new int[count];
+        int n = 0;
+        for (int p = 0; p < candidate.length; p++) if (candidate[p]) candidates[n++] = p;
+        return terms.length == 1 ? candidates : filter(candidates, terms);
+    }
+
+    private int[] filter(int[] positions, String[] terms) {
+        int[] out = new int[positions.length];
+        int n = 0;
+        for (int p : positions) {
+            if (matchesAll(rowKeys[p], terms)) out[n++] = p;
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static boolean matchesAll(String[] keys, String[] terms) {
+        for (String term : terms) {
+            boolean found = false;
+            for (String key : keys) {
+                if (key.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    // First key that is >= prefix
+    private int lowerBound(String prefix) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int[] all() {
+        int[] positions = new int[baseRows.size()];
+        for (int p = 0; p < positions.length; p++) positions[p] = p;
+        return positions;
+    }
+
+    private void build() {
+        if (keys != null) return;
+        int size = baseRows.size();
+        rowKeys = new String[size][];
+        List<String> keyList = new ArrayList<>(size * 4);
+        for (int p = 0; p < size; p++) {
+            rowKeys[p] = keysOf(baseRows.get(p));
+            for (String key : rowKeys[p]) keyList.add(key + '\u0000' + p);
+        }
+        // Sort "key\0position" strings once, then split them back into the two arrays
+        String[] sorted = keyList.toArray(new String[0]);
+        Arrays.sort(sorted);
+        keys = new String[sorted.length];
+        keyRows = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            int split = sorted[i].lastIndexOf('\u0000');
+            keys[i] = sorted[i].substring(0, split);
+            keyRows[i] = Integer.parseInt(sorted[i].substring(split + 1));
+        }
+
+        // Stable: rows with the same last SOS keep the server order
+        Integer[] recent = new Integer[size];
+        for (int p = 0; p < size; p++) recent[p] = p;
+        Arrays.sort(recent, (a, b) -> Long.compare(baseRows.get(b).lastSosMillis, baseRows.get(a).lastSosMillis));
+        byRecent = new int[size];
+        for (int p = 0; p < size; p++) byRecent[p] = recent[p];
+    }
+
+    private static String[] keysOf(ConnectionRow row) {
+        List<String> keys = new ArrayList<>(4);
+        if (row.name != null) {
+            String name = normalize(row.name).trim();
+            if (!name.isEmpty()) {
+                keys.add(name);
+                String[] words = SPACES.split(name);
+                // The first word is already a prefix of the whole name
+                for (int i = 1; i < words.length; i++) keys.add(words[i]);
+            }
+        }
+        if (row.email != null && !row.email.isEmpty()) keys.add(normalize(row.email));
+        return keys.toArray(new String[0]);
+    }
+
+    // Lowercase without accents, so names typed without them still match
+    static String normalize(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        // Plain ASCII needs no decomposition
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7F) {
+                return ACCENTS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lower;
+    }
+}
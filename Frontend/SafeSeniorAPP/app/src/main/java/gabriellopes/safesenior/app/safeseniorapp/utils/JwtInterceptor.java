@@ -1,4 +1,29 @@
 package gabriellopes.safesenior.app.safeseniorapp.utils;
 
-public class JwtInterceptor {
+import java.io.IOException;
+
+import gabriellopes.safesenior.app.safeseniorapp.network.AuthSession;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+// Adds the in-memory JWT to every request that doesn't carry one yet
+public class JwtInterceptor implements Interceptor {
+    public static final String HEADER = "Authorization";
+
+    private final AuthSession session;
+
+    public JwtInterceptor(AuthSession session) {
+        this.session = session;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String token = session.getToken();
+        if (token == null || request.header(HEADER) != null) {
+            return chain.proceed(request);
+        }
+        return chain.proceed(request.newBuilder().header(HEADER, token).build());
+    }
 }
@@ -0,0 +1,181 @@
+package gabriellopes.safesenior.app.safeseniorapp.utils;
+
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.ConnectionRow;
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.models.EventRow;
+
+// Turns API models into immutable row models: timestamps are parsed once and display strings
+// are formatted up front, on a background thread, so adapters never format while scrolling
+public final class RowMapper {
+
+    public interface Callback<T> {
+        void onMapped(List<T> rows);
+    }
+
+    public interface IndexCallback {
+        void onIndexed(ConnectionIndex index);
+    }
+
+    // DateTimeFormatter is immutable and thread safe, so one instance is shared by every row
+    private static final DateTimeFormatter LAST_SOS_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy   HH:mm");
+    private static final DateTimeFormatter EVENT_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+    private static final int COLOR_RESPONDED = 0xFF2E7D32; // green
+
+    private static final ExecutorService MAPPER = Executors.newSingleThreadExecutor();
+    // Search and sort get their own thread so a keystroke never waits behind a big mapping
+    private static final ExecutorService FILTER = Executors.newSingleThreadExecutor();
+    private static Handler mainHandler;
+
+    private RowMapper() {}
+
+    public static ConnectionRow toRow(Connection c) {
+        long millis = -1;
+        String text = "Last SOS: -";
+        if (c.last_sos != null && !c.last_sos.equals("-")) {
+            try {
+                ZonedDateTime zdt = ZonedDateTime.parse(c.last_sos);
+                millis = zdt.toInstant().toEpochMilli();
+                text = "Last SOS: " + zdt.toLocalDateTime().format(LAST_SOS_FORMAT);
+            } catch (Exception ignored) {
+                // Keep the "-" placeholder
+            }
+        }
+        return new ConnectionRow(c, millis, text);
+    }
+
+    public static EventRow toRow(Event e) {
+        OffsetDateTime on = parse(e.on_at);
+        OffsetDateTime off = parse(e.off_at);
+        long onAt = on != null ? on.toInstant().toEpochMilli() : -1;
+        long offAt = off != null ? off.toInstant().toEpochMilli() : -1;
+        String onAtText = "Started: " + formatEventDate(on);
+        String offAtText = e.off_at != null ? "Stopped: " + formatEventDate(off) : "Stopped: Active";
+
+        // Status text
+        String status;
+        int color;
+        if (!e.handled) {
+            status = "Status: Active";
+            color = Color.RED;
+        } else if (e.handled_by != null && !e.handled_by.isEmpty()) {
+            status = "Status: Responded by " + e.handled_by;
+            color = COLOR_RESPONDED;
+        } else {
+            status = "Status: Stopped by User (No response)";
+            color = Color.DKGRAY;
+        }
+        return new EventRow(e, "Event: " + e.event_id, onAt, onAtText, offAt, offAtText, status, color);
+    }
+
+    public static List<ConnectionRow> toConnectionRows(List<Connection> connections) {
+        List<ConnectionRow> rows = new ArrayList<>(connections.size());
+        for (Connection c : connections) rows.add(toRow(c));
+        return rows;
+    }
+
+    public static List<EventRow> toEventRows(List<Event> events) {
+        List<EventRow> rows = new ArrayList<>(events.size());
+        for (Event e : events) rows.add(toRow(e));
+        return rows;
+    }
+
+    // Emails of the users in an /sos/active answer
+    public static Set<String> activeEmails(List<Connection> activeUsers) {
+        Set<String> emails = new HashSet<>();
+        if (activeUsers != null) {
+            for (Connection u : activeUsers) {
+                if (u.user_email != null) emails.add(u.user_email);
+            }
+        }
+        return emails;
+    }
+
+    // Apply the SOS state to pre-formatted rows; unchanged rows are reused as they are
+    public static List<ConnectionRow> withSosState(List<ConnectionRow> baseRows, Set<String> activeEmails) {
+        List<ConnectionRow> items = new ArrayList<>(baseRows.size());
+        for (ConnectionRow row : baseRows) {
+            Connection c = row.connection;
+            boolean active = c.user_email != null && activeEmails.contains(c.user_email);
+            // "On the way" only makes sense while the SOS is active
+            if (!active) c.setOnTheWay(false);
+            items.add(row.withState(active, c.isOnTheWay()));
+        }
+        return items;
+    }
+
+    // Map in the background and deliver the rows on the main thread
+    public static void mapConnections(List<Connection> connections, Callback<ConnectionRow> callback) {
+        MAPPER.execute(() -> {
+            List<ConnectionRow> rows = toConnectionRows(connections);
+            postToMain(() -> callback.onMapped(rows));
+        });
+    }
+
+    // Filter and order rows in the background and deliver them on the main thread.
+    // Every ConnectionIndex is only ever used on this one thread.
+    public static void filterConnections(ConnectionIndex index, List<ConnectionRow> rows, String query,
+                                         ConnectionIndex.Order order, Callback<ConnectionRow> callback) {
+        FILTER.execute(() -> {
+            List<ConnectionRow> shown = index.apply(rows, query, order);
+            postToMain(() -> callback.onMapped(shown));
+        });
+    }
+
+    // Build the search index of a new list on the filter thread, so neither the main thread nor
+    // the first keystroke after a refresh pays for it
+    public static void indexConnections(List<ConnectionRow> rows, IndexCallback callback) {
+        FILTER.execute(() -> {
+            ConnectionIndex index = new ConnectionIndex(rows);
+            index.match("");
+            postToMain(() -> callback.onIndexed(index));
+        });
+    }
+
+    public static void mapEvents(List<Event> events, Callback<EventRow> callback) {
+        MAPPER.execute(() -> {
+            List<EventRow> rows = toEventRows(events);
+            postToMain(() -> callback.onMapped(rows));
+        });
+    }
+
+    // ISO8601 timestamp to epoch millis, -1 when missing or malformed
+    public static long parseMillis(String isoString) {
+        OffsetDateTime odt = parse(isoString);
+        return odt != null ? odt.toInstant().toEpochMilli() : -1;
+    }
+
+    private static OffsetDateTime parse(String isoString) {
+        if (isoString == null) return null;
+        try {
+            return OffsetDateTime.parse(isoString);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Missing or malformed timestamps show "-"
+    private static String formatEventDate(OffsetDateTime odt) {
+        if (odt == null) return "-";
+        return odt.toLocalDateTime().format(EVENT_FORMAT);
+    }
+
+    private static synchronized void postToMain(Runnable r) {
+        if (mainHandler == null) mainHandler = new Handler(Looper.getMainLooper());
+        mainHandler.post(r);
+    }
+}
@@ -0,0 +1,53 @@
+package gabriellopes.safesenior.app.safeseniorapp.utils;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+
+// Time from process start to the first frame that shows dashboard rows. Logged once per process
+// ("SafeSeniorStartup" in logcat) and reported with reportFullyDrawn(), which the startup
+// macrobenchmark reads as time to full display. The "FirstDashboardFrame" trace section covers
+// the dashboard's part of it, from MainActivity.onCreate until the rows are drawn.
+public final class StartupTimer {
+    private static final String TAG = "SafeSeniorStartup";
+    public static final String TRACE_SECTION = "FirstDashboardFrame";
+
+    private static boolean watching = false;
+    private static long firstFrameMillis = -1;
+
+    private StartupTimer() {}
+
+    // Main thread; only the first dashboard of the process is measured
+    public static void watch(Activity activity, ViewGroup list) {
+        if (watching) return;
+        watching = true;
+        // Async section: it spans other main thread work until the frame is drawn
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) Trace.beginAsyncSection(TRACE_SECTION, 0);
+        long createdAt = SystemClock.uptimeMillis();
+        list.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                // Rows arrive from the cache or the network a few frames after the layout
+                if (list.getChildCount() == 0) return true;
+                list.getViewTreeObserver().removeOnPreDrawListener(this);
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) Trace.endAsyncSection(TRACE_SECTION, 0);
+                long now = SystemClock.uptimeMillis();
+                firstFrameMillis = now - Process.getStartUptimeMillis();
+                Log.i(TAG, "First dashboard frame " + firstFrameMillis + " ms after process start, "
+                        + (now - createdAt) + " ms after the dashboard was created");
+                activity.reportFullyDrawn();
+                return true;
+            }
+        });
+    }
+
+    // -1 until the first dashboard frame of this process
+    public static long getFirstDashboardFrameMillis() {
+        return firstFrameMillis;
+    }
+}
@@ -0,0 +1,105 @@
+package gabriellopes.safesenior.app.safeseniorapp.adapters;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.ConnectionRow;
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.models.EventRow;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+
+import static org.junit.Assert.*;
+
+public class RowBindingTest {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    // Stands in for the ViewHolders, just keeps the last values
+    private static class FakeTarget implements ConnectionsAdapter.RowTarget, EventsAdapter.RowTarget {
+        CharSequence name, email, status, button, eventId, onAt, offAt;
+        int statusColor, background;
+        boolean buttonVisible;
+
+        @Override public void setName(CharSequence text) { name = text; }
+        @Override public void setEmail(CharSequence text) { email = text; }
+        @Override public void setStatus(CharSequence text, int color) { status = text; statusColor = color; }
+        @Override public void setRowBackground(int color) { background = color; }
+        @Override public void setButton(boolean visible, CharSequence text) { buttonVisible = visible; button = text; }
+        @Override public void setEventId(CharSequence text) { eventId = text; }
+        @Override public void setOnAt(CharSequence text) { onAt = text; }
+        @Override public void setOffAt(CharSequence text) { offAt = text; }
+    }
+
+    private static Connection connection() {
+        Connection c = new Connection();
+        c.user_name = "Ana";
+        c.user_email = "ana@example.com";
+        c.last_sos = "2025-03-01T10:15:30+00:00";
+        c.device_id = "dev-1";
+        return c;
+    }
+
+    private static Event event() {
+        Event e = new Event();
+        e.event_id = "ev-1";
+        e.on_at = "2025-03-01T10:15:30+00:00";
+        e.off_at = "2025-03-01T10:20:00+00:00";
+        e.handled = true;
+        e.handled_by = "carer@example.com";
+        return e;
+    }
+
+    @Test
+    public void connectionRowIsPreformatted() {
+        ConnectionRow row = RowMapper.toRow(connection());
+        assertEquals("Last SOS: 01-03-2025   10:15", row.lastSosText);
+        assertEquals(1740824130000L, row.lastSosMillis);
+
+        ConnectionRow active = row.withState(true, true);
+        assertEquals(ConnectionRow.ACTIVE_SOS_TEXT, active.statusText);
+        assertEquals(ConnectionRow.BUTTON_CANCEL, active.buttonText);
+        assertTrue(row.sameInfo(active));
+    }
+
+    @Test
+    public void eventRowIsPreformatted() {
+        EventRow row = RowMapper.toRow(event());
+        assertEquals("Event: ev-1", row.eventIdText);
+        assertEquals("Started: 01-03-2025 10:15:30", row.onAtText);
+        assertEquals("Stopped: 01-03-2025 10:20:00", row.offAtText);
+        assertEquals("Status: Responded by carer@example.com", row.statusText);
+    }
+
+    @Test
+    public void bindPathDoesNotAllocate() {
+        ConnectionRow idle = RowMapper.toRow(connection());
+        ConnectionRow active = idle.withState(true, false);
+        EventRow eventRow = RowMapper.toRow(event());
+        FakeTarget target = new FakeTarget();
+
+        // Let the JIT settle before measuring
+        for (int i = 0; i < WARMUP; i++) bindAll(i, idle, active, eventRow, target);
+
+        long before = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) bindAll(i, idle, active, eventRow, target);
+        long allocated = allocatedBytes() - before;
+
+        // Any object per bind would be >= 16 bytes each; what remains is measurement noise
+        // (JIT/OSR bookkeeping), so the per-bind figure must round down to zero
+        assertEquals("bytes allocated per bind (total " + allocated + ")", 0, allocated / ITERATIONS);
+    }
+
+    private static void bindAll(int i, ConnectionRow idle, ConnectionRow active, EventRow eventRow, FakeTarget target) {
+        ConnectionsAdapter.bindRow((i & 1) == 0 ? idle : active, target);
+        ConnectionsAdapter.bindState(active, target);
+        EventsAdapter.bindRow(eventRow, target);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,113 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.DashboardSnapshot;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class DashboardRepositoryTest {
+    private MockWebServer server;
+    private ApiInterface api;
+    private volatile boolean notificationsFail = false;
+    // Counted down as each request reaches the server
+    private final CountDownLatch arrived = new CountDownLatch(3);
+    // Holds every response until the test lets them go
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                arrived.countDown();
+                if (!release.await(5, TimeUnit.SECONDS)) return new MockResponse().setResponseCode(500);
+                String path = request.getPath();
+                if (path.startsWith("/connections")) {
+                    return json("[{\"other_user_name\":\"Ana\",\"other_user_email\":\"ana@example.com\"}]");
+                } else if (path.startsWith("/sos/active")) {
+                    return json("[{\"user_email\":\"ana@example.com\"}]");
+                }
+                if (notificationsFail) return new MockResponse().setResponseCode(504);
+                return json("[{\"id\":\"n-1\",\"trigger_name\":\"Ana\"}]");
+            }
+        });
+        server.start();
+
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(new OkHttpClient())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiInterface.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void allThreeRequestsAreInFlightTogether() throws Exception {
+        DashboardRepository repository = new DashboardRepository(api, null, Runnable::run);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<DashboardSnapshot> result = new AtomicReference<>();
+        repository.load(snapshot -> {
+            result.set(snapshot);
+            done.countDown();
+        });
+
+        // No reply has gone out yet, so a chained load would still be on its first call
+        assertTrue("requests in flight: " + (3 - arrived.getCount()), arrived.await(5, TimeUnit.SECONDS));
+        assertEquals(1, done.getCount());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(result.get().isComplete());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void failedCallStillShowsTheOthers() throws Exception {
+        notificationsFail = true;
+        release.countDown();
+        DashboardSnapshot snapshot = load(new DashboardRepository(api, null, Runnable::run));
+
+        assertFalse(snapshot.isComplete());
+        assertEquals("ana@example.com", snapshot.connections.get(0).user_email);
+        assertEquals(1, snapshot.activeSosUsers.size());
+        assertNull(snapshot.notifications);
+        assertEquals("Failed: 504", snapshot.error);
+    }
+
+    private static DashboardSnapshot load(DashboardRepository repository) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<DashboardSnapshot> result = new AtomicReference<>();
+        repository.load(snapshot -> {
+            result.set(snapshot);
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        return result.get();
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setBody(body).setHeader("Content-Type", "application/json");
+    }
+}
@@ -0,0 +1,133 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.models.EventRow;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+
+import static org.junit.Assert.*;
+
+public class EventCacheTest {
+    private static final long MINUTE = 60_000;
+
+    // Settable clock
+    private long now = 1_000_000;
+
+    private EventCache cache(int maxUsers) {
+        return new EventCache(maxUsers, 10 * MINUTE, () -> now);
+    }
+
+    private static List<EventRow> rows(String... ids) {
+        List<Event> events = new ArrayList<>();
+        for (String id : ids) {
+            Event e = new Event();
+            e.event_id = id;
+            e.on_at = "2025-11-03T09:00:00+00:00";
+            e.handled = true;
+            events.add(e);
+        }
+        return RowMapper.toEventRows(events);
+    }
+
+    private static List<String> ids(List<EventRow> rows) {
+        List<String> ids = new ArrayList<>();
+        for (EventRow row : rows) ids.add(row.event.event_id);
+        return ids;
+    }
+
+    @Test
+    public void opensFromMemoryUntilTheTtl() {
+        EventCache cache = cache(5);
+        assertNull(cache.open("ana@example.com"));
+        cache.put("ana@example.com", rows("e-2", "e-1"), now, false);
+
+        now += 9 * MINUTE;
+        assertEquals(Arrays.asList("e-2", "e-1"), ids(cache.open("ana@example.com")));
+
+        now += 2 * MINUTE;
+        assertNull(cache.open("ana@example.com"));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getExpired());
+        assertEquals(1.0 / 3, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void dropsTheLeastRecentlyUsedUser() {
+        EventCache cache = cache(2);
+        cache.put("a", rows("a-1"), now, false);
+        cache.put("b", rows("b-1"), now, false);
+        // Opening a makes b the least recently used
+        assertNotNull(cache.open("a"));
+        cache.put("c", rows("c-1"), now, true);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.open("b"));
+        assertNotNull(cache.open("a"));
+        assertNotNull(cache.open("c"));
+    }
+
+    @Test
+    public void olderAnswerNeverReplacesANewerOne() {
+        EventCache cache = cache(5);
+        long prefetchStarted = now;
+        now += 1000;
+        // The history screen loaded while the prefetch was still downloading
+        cache.put("a", rows("new", "old"), now, false);
+        cache.put("a", rows("old"), prefetchStarted, true);
+
+        assertEquals(Arrays.asList("new", "old"), ids(cache.open("a")));
+        assertEquals(0, cache.getPrefetchHits());
+    }
+
+    @Test
+    public void countsHitsOnPrefetchedEntriesOnce() throws IOException {
+        EventCache cache = cache(5);
+        cache.put("a", rows("a-1"), now, true);
+        cache.put("b", Collections.emptyList(), now, true);
+
+        assertEquals(Collections.emptyList(), cache.open("b"));
+        assertNotNull(cache.open("b"));
+        assertEquals(2, cache.getPrefetches());
+        assertEquals(1, cache.getPrefetchHits());
+        assertEquals(2, cache.getHits());
+
+        StringWriter out = new StringWriter();
+        cache.dump(out);
+        assertTrue(out.toString(), out.toString().contains("hits=2 (100%) from prefetch=1"));
+    }
+
+    @Test
+    public void recentlyViewedIsOpenOrderAndChecksAreNotUses() {
+        EventCache cache = cache(3);
+        cache.put("a", rows("a-1"), now, false);
+        now += 1000;
+        cache.put("b", rows("b-1"), now, false);
+        now += 1000;
+        // Prefetched but never opened: not a recently viewed user
+        cache.put("c", rows("c-1"), now, true);
+        now += 1000;
+        cache.open("a");
+
+        assertEquals(Arrays.asList("a", "b"), cache.recentlyViewed(5));
+        assertEquals(Collections.singletonList("a"), cache.recentlyViewed(1));
+
+        // isFresh must not move b away from the least recently used end
+        assertTrue(cache.isFresh("b", MINUTE));
+        assertFalse(cache.isFresh("b", 1000));
+        assertFalse(cache.isFresh("missing", MINUTE));
+        now += 1000;
+        cache.put("d", rows("d-1"), now, true);
+        assertFalse(cache.isFresh("b", MINUTE));
+        assertTrue(cache.isFresh("c", MINUTE));
+    }
+}
@@ -0,0 +1,159 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiClient;
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
+import gabriellopes.safesenior.app.safeseniorapp.network.AuthSession;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class EventStatsSyncTest {
+    private static final long NOW = Instant.parse("2025-11-03T12:00:00Z").toEpochMilli();
+    private static final String EMAIL = "ana@example.com";
+
+    // Server history, oldest first
+    private final List<Event> events = new ArrayList<>();
+    private final AtomicInteger served = new AtomicInteger();
+    private final Map<String, String> saved = new HashMap<>();
+    private final EventStats.Store store = new EventStats.Store() {
+        @Override
+        public synchronized EventStats load(String email) {
+            String json = saved.get(email);
+            return json != null ? EventStats.fromJson(json, ZoneOffset.UTC) : null;
+        }
+
+        @Override
+        public synchronized void save(String email, EventStats stats) {
+            saved.put(email, stats.toJson());
+        }
+    };
+    private MockWebServer server;
+    private ApiInterface api;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        // /sos/events?order=asc with the after/after_id cursor and limit
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                HttpUrl url = request.getRequestUrl();
+                String after = url.queryParameter("after");
+                String afterId = url.queryParameter("after_id");
+                int limit = Integer.parseInt(url.queryParameter("limit"));
+                List<Event> page = new ArrayList<>();
+                synchronized (events) {
+                    for (Event e : events) {
+                        if (after != null && !isAfter(e, after, afterId)) continue;
+                        if (page.size() == limit) break;
+                        page.add(e);
+                    }
+                }
+                served.addAndGet(page.size());
+                return new MockResponse().setBody(new Gson().toJson(page))
+                        .setHeader("Content-Type", "application/json");
+            }
+        });
+        server.start();
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(ApiClient.buildHttpClient(null, new AuthSession(null, "token", "user-1"),
+                        server.url("/").toString()))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiInterface.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private static boolean isAfter(Event e, String after, String afterId) {
+        long onAt = RowMapper.parseMillis(e.on_at);
+        long cursor = RowMapper.parseMillis(after);
+        return onAt > cursor || (onAt == cursor && e.event_id.compareTo(afterId) > 0);
+    }
+
+    private void addEvents(String prefix, int n, long from) {
+        synchronized (events) {
+            for (int i = 0; i < n; i++) {
+                Event e = new Event();
+                e.event_id = prefix + String.format("%05d", i);
+                e.on_at = Instant.ofEpochMilli(from + i * 60_000L).atOffset(ZoneOffset.UTC).toString();
+                e.handled = true;
+                events.add(e);
+            }
+        }
+    }
+
+    // Runs one sync and returns the last of its `calls` summaries
+    private EventStats.Summary sync(int calls) throws InterruptedException {
+        BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+        EventStatsSync.update(api, EMAIL, store, Runnable::run, new EventStatsSync.Listener() {
+            @Override
+            public void onStats(EventStats.Summary summary) {
+                results.add(summary);
+            }
+
+            @Override
+            public void onError(String message) {
+                results.add(message);
+            }
+        });
+        Object last = null;
+        for (int i = 0; i < calls; i++) {
+            last = results.poll(5, TimeUnit.SECONDS);
+            assertNotNull("sync never finished", last);
+            if (last instanceof String) fail((String) last);
+        }
+        return (EventStats.Summary) last;
+    }
+
+    @Test
+    public void laterSyncsOnlyDownloadWhatIsNew() throws Exception {
+        addEvents("a-", 1000, NOW - 2000 * 60_000L);
+        EventStats.Summary first = sync(1);
+        assertEquals(1000, first.total);
+        // Ten full pages and the empty one that ends it
+        assertEquals(11, server.getRequestCount());
+        assertEquals(1000, served.get());
+
+        // Even after a restart (nothing in memory), only the 10 new events are read
+        addEvents("b-", 10, NOW);
+        served.set(0);
+        for (int i = 0; i < 11; i++) server.takeRequest();
+        // The saved numbers first, then the updated ones
+        EventStats.Summary second = sync(2);
+        assertEquals(1010, second.total);
+        assertEquals(10, served.get());
+        HttpUrl url = server.takeRequest().getRequestUrl();
+        assertEquals("asc", url.queryParameter("order"));
+        assertEquals("a-00999", url.queryParameter("after_id"));
+    }
+}
@@ -0,0 +1,240 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+
+import static org.junit.Assert.*;
+
+public class EventStatsTest {
+    private static final long MINUTE = 60_000;
+    private static final long DAY = 24 * 60 * MINUTE;
+    private static final long NOW = Instant.parse("2025-11-03T12:00:00Z").toEpochMilli();
+
+    private static Event event(String id, long onAt, Long offAt, boolean handled, String handledBy) {
+        Event e = new Event();
+        e.event_id = id;
+        e.on_at = Instant.ofEpochMilli(onAt).atOffset(ZoneOffset.UTC).toString();
+        e.off_at = offAt != null ? Instant.ofEpochMilli(offAt).atOffset(ZoneOffset.UTC).toString() : null;
+        e.handled = handled;
+        e.handled_by = handledBy;
+        return e;
+    }
+
+    private static EventStats stats() {
+        return new EventStats(ZoneOffset.UTC);
+    }
+
+    // One event every ~8 hours before NOW, oldest first like the statistics read them, a third
+    // of them unanswered
+    private static List<Event> history(int n, Random random) {
+        List<Event> events = new ArrayList<>(n);
+        String[] carers = {"a@example.com", "b@example.com", "c@example.com"};
+        for (int i = n - 1; i >= 0; i--) {
+            long onAt = NOW - i * 8 * 60 * MINUTE - random.nextInt(60) * MINUTE;
+            boolean answered = random.nextInt(3) != 0;
+            long offAt = onAt + (1 + random.nextInt(30)) * MINUTE;
+            events.add(event("e-" + i, onAt, offAt, true, answered ? carers[random.nextInt(3)] : null));
+        }
+        return events;
+    }
+
+    private static void assertSameSummary(EventStats.Summary expected, EventStats.Summary actual) {
+        assertEquals(expected.total, actual.total);
+        assertEquals(expected.open, actual.open);
+        assertEquals(expected.responded, actual.responded);
+        assertEquals(expected.unanswered, actual.unanswered);
+        assertEquals(expected.timedResponses, actual.timedResponses);
+        assertEquals(expected.responseP50Millis, actual.responseP50Millis);
+        assertEquals(expected.responseP90Millis, actual.responseP90Millis);
+        assertEquals(expected.responseMaxMillis, actual.responseMaxMillis);
+        assertEquals(expected.eventsPerDay, actual.eventsPerDay, 1e-9);
+        assertEquals(expected.lastWindowEvents, actual.lastWindowEvents);
+        assertEquals(expected.spike, actual.spike);
+        assertEquals(expected.responders, actual.responders);
+    }
+
+    @Test
+    public void pagesReadTwiceGiveTheSameNumbersAsOneBatch() {
+        List<Event> events = history(1200, new Random(3));
+
+        EventStats batch = stats();
+        for (Event e : events) batch.add(e);
+
+        // Pages oldest first, then the newest page and an old page again (a second sync at once)
+        EventStats paged = stats();
+        for (int from = 0; from < events.size(); from += 50) {
+            paged.addOldestFirst(events.subList(from, Math.min(events.size(), from + 50)));
+        }
+        paged.addOldestFirst(events.subList(1150, 1200));
+        paged.addOldestFirst(events.subList(100, 150));
+
+        assertSameSummary(batch.summary(NOW), paged.summary(NOW));
+        assertEquals(1200, paged.summary(NOW).total);
+        // Nothing active: the cursor is the newest event and no ids are kept
+        assertEquals("e-0", paged.getCursorId());
+        assertEquals(0, paged.getTrackedIds());
+    }
+
+    @Test
+    public void responseTimesUnansweredShareAndResponders() {
+        EventStats stats = stats();
+        long t = NOW - 10 * DAY;
+        for (int i = 0; i < 9; i++) {
+            // Responses after 1..9 minutes
+            stats.add(event("r-" + i, t + i * DAY, t + i * DAY + (i + 1) * MINUTE, true,
+                    i < 6 ? "a@example.com" : "b@example.com"));
+        }
+        stats.add(event("u-1", t, t + MINUTE, true, null));
+        stats.add(event("u-2", t, null, true, ""));
+        // Responded to, but the SOS was never stopped: counted without a time
+        stats.add(event("r-open", t, null, true, "b@example.com"));
+
+        EventStats.Summary s = stats.summary(NOW);
+        assertEquals(12, s.total);
+        assertEquals(10, s.responded);
+        assertEquals(2, s.unanswered);
+        assertEquals(2.0 / 12, s.getUnansweredShare(), 1e-9);
+        assertEquals(9, s.timedResponses);
+        // Histogram buckets are within 1/16 of the value
+        assertEquals(5 * MINUTE, s.responseP50Millis, 5 * MINUTE / 16.0);
+        assertEquals(9 * MINUTE, s.responseP90Millis, 9 * MINUTE / 16.0);
+        assertEquals(9 * MINUTE, s.responseMaxMillis);
+        assertEquals("a@example.com", s.responders.get(0).getKey());
+        assertEquals(Integer.valueOf(6), s.responders.get(0).getValue());
+        assertEquals(Integer.valueOf(4), s.responders.get(1).getValue());
+    }
+
+    @Test
+    public void activeEventIsSettledWhenItComesBackHandled() {
+        EventStats stats = stats();
+        long onAt = NOW - 30 * MINUTE;
+        stats.add(event("e-1", onAt, null, false, null));
+        EventStats.Summary active = stats.summary(NOW);
+        assertEquals(1, active.total);
+        assertEquals(1, active.open);
+        assertEquals(0, active.responded + active.unanswered);
+
+        stats.add(event("e-1", onAt, onAt + 4 * MINUTE, true, "a@example.com"));
+        EventStats.Summary settled = stats.summary(NOW);
+        assertEquals(1, settled.total);
+        assertEquals(0, settled.open);
+        assertEquals(1, settled.responded);
+        assertEquals(1, settled.timedResponses);
+    }
+
+    @Test
+    public void cursorWaitsForTheOldestActiveEvent() {
+        List<Event> events = new ArrayList<>(history(500, new Random(5)));
+        // e-200 is still active
+        Event active = events.get(299);
+        events.set(299, event("e-200", RowMapper.parseMillis(active.on_at), null, false, null));
+        EventStats stats = stats();
+        stats.addOldestFirst(events);
+
+        assertEquals(1, stats.summary(NOW).open);
+        // Just before the active event; the ids from it on are kept to skip them next time
+        assertEquals("e-201", stats.getCursorId());
+        assertEquals(201, stats.getTrackedIds());
+
+        // The next sync reads from the cursor again: e-200 now handled, plus one new event
+        List<Event> next = new ArrayList<>(events.subList(299, 500));
+        next.set(0, event("e-200", RowMapper.parseMillis(active.on_at), null, true, null));
+        next.add(event("n-1", NOW + MINUTE, NOW + 3 * MINUTE, true, "a@example.com"));
+        stats.addOldestFirst(next);
+
+        EventStats.Summary s = stats.summary(NOW);
+        assertEquals(501, s.total);
+        assertEquals(0, s.open);
+        assertEquals("n-1", stats.getCursorId());
+        assertEquals(0, stats.getTrackedIds());
+    }
+
+    @Test
+    public void savedStatsCarryOnFromTheirCursor() {
+        List<Event> events = history(300, new Random(7));
+        EventStats stats = stats();
+        stats.addOldestFirst(events.subList(0, 200));
+        stats.add(event("open", RowMapper.parseMillis(events.get(199).on_at) + MINUTE, null, false, null));
+
+        EventStats restored = EventStats.fromJson(stats.toJson(), ZoneOffset.UTC);
+        assertSameSummary(stats.summary(NOW), restored.summary(NOW));
+        assertEquals(stats.getCursorOnAt(), restored.getCursorOnAt());
+        assertEquals(stats.getCursorId(), restored.getCursorId());
+
+        // Both carry on the same way, the restored one without counting anything twice
+        stats.addOldestFirst(events.subList(150, 300));
+        restored.addOldestFirst(events.subList(150, 300));
+        assertSameSummary(stats.summary(NOW), restored.summary(NOW));
+        assertEquals(301, restored.summary(NOW).total);
+        assertEquals(1, restored.summary(NOW).open);
+    }
+
+    @Test
+    public void flagsAFrequencySpike() {
+        EventStats quiet = stats();
+        // One SOS a week for ten weeks, one in the last week
+        for (int week = 0; week < 10; week++) {
+            quiet.add(event("w-" + week, NOW - week * 7 * DAY - DAY, NOW - week * 7 * DAY - DAY + MINUTE, true, null));
+        }
+        EventStats.Summary usual = quiet.summary(NOW);
+        assertFalse(usual.spike);
+        assertEquals(1, usual.lastWindowEvents);
+        assertEquals(1.0, usual.usualWindowEvents, 0.2);
+
+        // Then five in the last three days
+        for (int i = 0; i < 5; i++) {
+            quiet.add(event("s-" + i, NOW - i * 14 * 60 * MINUTE, NOW - i * 14 * 60 * MINUTE + MINUTE, true, null));
+        }
+        EventStats.Summary spike = quiet.summary(NOW);
+        assertTrue(spike.spike);
+        assertEquals(6, spike.lastWindowEvents);
+
+        // Too little history to know what is usual
+        EventStats fresh = stats();
+        for (int i = 0; i < 5; i++) fresh.add(event("f-" + i, NOW - i * DAY, null, true, null));
+        assertFalse(fresh.summary(NOW).spike);
+        assertEquals(-1, fresh.summary(NOW).usualWindowEvents, 0);
+    }
+
+    // An update costs the new events, not the history behind them
+    @Test
+    public void updateInspectsOnlyTheNewEvents() {
+        List<Event> history = history(50_000, new Random(9));
+        EventStats stats = stats();
+        stats.addOldestFirst(history);
+        assertEquals(50_000, stats.getInspected());
+
+        // What the server sends after the cursor
+        List<Event> update = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            long onAt = NOW + i * MINUTE;
+            update.add(event("new-" + i, onAt, onAt + MINUTE, true, "a@example.com"));
+        }
+        stats.addOldestFirst(update);
+
+        assertEquals(50_010, stats.getInspected());
+        assertEquals(50_010, stats.summary(NOW).total);
+        assertEquals("new-10", stats.getCursorId());
+        assertEquals(0, stats.getTrackedIds());
+    }
+
+    @Test
+    public void eventsPerDayAndWeek() {
+        EventStats stats = stats();
+        // 20 events over the last 10 days (today included)
+        for (int i = 0; i < 20; i++) stats.add(event("e-" + i, NOW - (i / 2) * DAY, null, true, null));
+        EventStats.Summary s = stats.summary(NOW);
+        assertEquals(2.0, s.eventsPerDay, 1e-9);
+        assertEquals(14.0, s.getEventsPerWeek(), 1e-9);
+        assertEquals(Collections.emptyList(), s.responders);
+    }
+}
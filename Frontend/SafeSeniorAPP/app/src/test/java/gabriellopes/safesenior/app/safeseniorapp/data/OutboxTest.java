@@ -0,0 +1,226 @@
+package gabriellopes.safesenior.app.safeseniorapp.data;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gabriellopes.safesenior.app.safeseniorapp.network.ApiInterface;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class OutboxTest {
+    private MockWebServer server;
+    private ApiInterface api;
+    private ScheduledExecutorService scheduler;
+    private MemoryStore store;
+    private Outbox outbox;
+
+    // Simulated backend: SOS state plus how many SOS events it has created
+    private volatile boolean serverSos = false;
+    private final AtomicInteger sosStarts = new AtomicInteger();
+    // Network flapping: the next n requests are cut off before the server applies them
+    private final AtomicInteger dropBefore = new AtomicInteger();
+    // The next n requests are applied but the reply is lost on the way back
+    private final AtomicInteger dropAfter = new AtomicInteger();
+    // Answer with this client error instead of applying the request, 0 for none
+    private volatile int rejectWith = 0;
+    private final List<String> keys = new CopyOnWriteArrayList<>();
+
+    private final List<Boolean> reported = new CopyOnWriteArrayList<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final List<Integer> failed = new CopyOnWriteArrayList<>();
+    private volatile CountDownLatch reportedLatch = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (dropBefore.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+                }
+                if (rejectWith != 0) return new MockResponse().setResponseCode(rejectWith);
+                keys.add(request.getHeader("Idempotency-Key"));
+                JsonObject body = JsonParser.parseString(request.getBody().readUtf8()).getAsJsonObject();
+                boolean desired = body.get("active").getAsBoolean();
+                synchronized (OutboxTest.this) {
+                    if (desired && !serverSos) sosStarts.incrementAndGet();
+                    serverSos = desired;
+                }
+                if (dropAfter.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+                }
+                return new MockResponse().setBody("{\"active\":" + serverSos + "}");
+            }
+        });
+        server.start();
+
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(new OkHttpClient.Builder().retryOnConnectionFailure(false).build())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiInterface.class);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        store = new MemoryStore();
+        outbox = new Outbox(api, store, scheduler, Runnable::run, 10, 80, 30_000);
+        outbox.setListener(new Outbox.Listener() {
+            @Override
+            public void onSosState(boolean active) {
+                reported.add(active);
+                reportedLatch.countDown();
+            }
+
+            @Override
+            public void onHelpState(String deviceId, boolean help) {}
+
+            @Override
+            public void onQueued(int pending) {
+                queued.incrementAndGet();
+            }
+
+            @Override
+            public void onFailed(Outbox.Entry entry, int code) {
+                failed.add(code);
+                reportedLatch.countDown();
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void sosIsDeliveredOnceTheNetworkComesBack() throws Exception {
+        dropBefore.set(4);
+        outbox.setSos(true);
+
+        assertTrue(reportedLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(true), reported);
+        assertEquals(1, sosStarts.get());
+        assertTrue("retries " + queued.get(), queued.get() >= 4);
+        assertTrue(store.pending().isEmpty());
+    }
+
+    @Test
+    public void lostReplyIsReplayedWithTheSameKeyWithoutASecondEvent() throws Exception {
+        dropAfter.set(2);
+        outbox.setSos(true);
+
+        assertTrue(reportedLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, sosStarts.get());
+        assertEquals(3, keys.size());
+        assertEquals(1, new HashSet<>(keys).size());
+    }
+
+    @Test
+    public void onAndOffWhileOfflineNeverStartsAnSos() throws Exception {
+        dropBefore.set(Integer.MAX_VALUE);
+        outbox.setSos(true);
+        outbox.setSos(false);
+        waitFor(() -> queued.get() > 0);
+        assertEquals(1, store.pending().size());
+
+        dropBefore.set(0);
+        outbox.kick();
+
+        assertTrue(reportedLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(false), reported);
+        assertEquals(0, sosStarts.get());
+    }
+
+    @Test
+    public void refusedChangeIsReportedAndDropped() throws Exception {
+        rejectWith = 403;
+        outbox.setSos(true);
+
+        assertTrue(reportedLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(403), failed);
+        assertTrue(reported.isEmpty());
+        assertEquals(0, sosStarts.get());
+        waitFor(() -> store.pending().isEmpty());
+    }
+
+    @Test
+    public void staleChangeIsDroppedInsteadOfSent() throws Exception {
+        // Tapped while offline long ago, the app was closed since
+        store.add(new Outbox.Entry("old", Outbox.TYPE_SOS, null, true, System.currentTimeMillis() - 60_000));
+
+        assertTrue(outbox.flush(5000));
+        assertTrue(reportedLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(Outbox.EXPIRED), failed);
+        assertTrue(keys.isEmpty());
+        assertEquals(0, sosStarts.get());
+    }
+
+    @Test
+    public void flushReportsWhatIsLeft() throws Exception {
+        dropBefore.set(Integer.MAX_VALUE);
+        outbox.setSos(true);
+        assertFalse(outbox.flush(5000));
+
+        dropBefore.set(0);
+        assertTrue(outbox.flush(5000));
+        assertEquals(1, sosStarts.get());
+    }
+
+    private interface Condition {
+        boolean met();
+    }
+
+    private static void waitFor(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.met()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    // Same replace-per-target rule as SqliteOutboxStore
+    private static class MemoryStore implements Outbox.Store {
+        private final List<Outbox.Entry> entries = new ArrayList<>();
+
+        @Override
+        public synchronized List<Outbox.Entry> pending() {
+            return new ArrayList<>(entries);
+        }
+
+        @Override
+        public synchronized void add(Outbox.Entry entry) {
+            entries.removeIf(e -> e.type.equals(entry.type)
+                    && Objects.equals(e.target, entry.target));
+            entries.add(entry);
+        }
+
+        @Override
+        public synchronized void remove(String key) {
+            entries.removeIf(e -> e.key.equals(key));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package gabriellopes.safesenior.app.safeseniorapp.models;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ModelTypeAdaptersTest {
+    private final Gson reflective = new Gson();
+    private final Gson generated = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create();
+
+    @Test
+    public void everyModelIsCovered() {
+        Class<?>[] models = {Connection.class, Event.class, Notification.class, LoginResponse.class,
+                SosStartResponse.class, HelpResponse.class, Device.class, LoginRequest.class,
+                RegisterRequest.class, SosStartRequest.class, User.class};
+        for (Class<?> model : models) {
+            assertTrue(model.getSimpleName(),
+                    generated.getAdapter(model).getClass().getName().contains("ModelTypeAdapters"));
+        }
+    }
+
+    @Test
+    public void decodesLikeReflection() throws Exception {
+        assertSame(Connection.class, "{\"other_user_name\":\"Ana\",\"other_user_email\":\"ana@example.com\","
+                + "\"last_sos\":\"2025-11-03T09:00:00Z\",\"device_id\":\"d-1\",\"unknown\":{\"a\":[1,2]}}");
+        assertSame(Connection.class, "{\"user_name\":\"Rui\",\"user_email\":\"rui@example.com\",\"last_sos\":null}");
+        assertSame(Event.class, "{\"event_id\":\"e-1\",\"device_id\":\"d-1\",\"triggered_by\":\"app\","
+                + "\"on_at\":\"2025-11-03T09:00:00+00:00\",\"off_at\":null,\"handled\":true,\"handled_by\":\"c@x.com\"}");
+        assertSame(Event.class, "{\"event_id\":42,\"handled\":null}");
+        assertSame(Event.class, "{\"handled\":\"true\"}");
+        assertSame(Notification.class, "{\"id\":\"n-1\",\"event_id\":\"e-1\",\"notified_user\":\"u\","
+                + "\"sent_at\":\"t\",\"seen_at\":null,\"trigger_name\":\"Ana\",\"trigger_email\":\"ana@example.com\"}");
+        assertSame(LoginResponse.class, "{\"token\":\"jwt\",\"userId\":\"u-1\",\"extra\":false}");
+        assertSame(SosStartResponse.class, "{\"message\":\"SOS triggered\",\"active\":true,\"event_id\":\"e-9\"}");
+        assertSame(HelpResponse.class, "{\"help\":false}");
+        assertSame(Device.class, "{\"device_id\":\"d-1\",\"owner_id\":\"u-1\",\"is_online\":true,\"last_triggered_at\":null}");
+    }
+
+    @Test
+    public void encodesLikeReflection() {
+        assertEquals(reflective.toJson(new LoginRequest("a@b.c", "pw")), generated.toJson(new LoginRequest("a@b.c", "pw")));
+        assertEquals(reflective.toJson(new RegisterRequest("A", "a@b.c", null)),
+                generated.toJson(new RegisterRequest("A", "a@b.c", null)));
+        Event e = new Event();
+        e.event_id = "e-1";
+        e.handled = true;
+        assertEquals(reflective.toJson(e), generated.toJson(e));
+    }
+
+    @Test
+    public void decodesLists() {
+        String json = "[{\"user_email\":\"a@x.com\"},null,{\"user_email\":\"b@x.com\"}]";
+        List<Connection> list = generated.fromJson(json, new TypeToken<List<Connection>>() {}.getType());
+        assertEquals(3, list.size());
+        assertEquals("a@x.com", list.get(0).user_email);
+        assertNull(list.get(1));
+        assertEquals("b@x.com", list.get(2).user_email);
+    }
+
+    private <T> void assertSame(Class<T> type, String json) throws Exception {
+        T expected = reflective.fromJson(json, type);
+        T actual = generated.fromJson(json, type);
+        for (Field f : fields(type)) {
+            f.setAccessible(true);
+            assertEquals(type.getSimpleName() + "." + f.getName() + " in " + json, f.get(expected), f.get(actual));
+        }
+    }
+
+    private static List<Field> fields(Class<?> type) {
+        List<Field> list = new ArrayList<>();
+        for (Field f : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(f.getModifiers())) list.add(f);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,119 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.models.Notification;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class ApiClientCacheTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private MockWebServer server;
+    private ApiInterface api;
+    private AuthSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        // Behaves like the Flask conditional_json helper
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String etag = "\"" + request.getPath().hashCode() + "\"";
+                if (etag.equals(request.getHeader("If-None-Match"))) {
+                    return new MockResponse().setResponseCode(304).setHeader("ETag", etag);
+                }
+                String body;
+                if (request.getPath().startsWith("/connections")) {
+                    body = "[{\"other_user_name\":\"Ana\",\"other_user_email\":\"ana@example.com\",\"last_sos\":\"-\"}]";
+                } else if (request.getPath().startsWith("/sos/events")) {
+                    body = "[{\"event_id\":\"ev-1\",\"on_at\":\"2025-03-01T10:15:30+00:00\",\"handled\":false}]";
+                } else {
+                    body = "[{\"id\":\"n-1\",\"trigger_name\":\"Ana\",\"trigger_email\":\"ana@example.com\"}]";
+                }
+                return new MockResponse()
+                        .setBody(body)
+                        .setHeader("Content-Type", "application/json")
+                        .setHeader("ETag", etag)
+                        .setHeader("Cache-Control", "private, no-cache")
+                        .setHeader("Vary", "Authorization");
+            }
+        });
+        server.start();
+
+        session = new AuthSession(null, "token", "user-1");
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(ApiClient.buildHttpClient(tmp.newFolder("http"), session, server.url("/").toString()))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiInterface.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void repeatedConnectionsLoadIsRevalidated() throws Exception {
+        Response<List<Connection>> first = api.getConnections().execute();
+        assertNull(first.raw().cacheResponse());
+
+        Response<List<Connection>> second = api.getConnections().execute();
+        assertRevalidated(second.raw());
+        assertEquals("ana@example.com", second.body().get(0).user_email);
+    }
+
+    @Test
+    public void repeatedEventsLoadIsRevalidated() throws Exception {
+        api.getEvents("ana@example.com", null, null, null).execute();
+        Response<List<Event>> second = api.getEvents("ana@example.com", null, null, null).execute();
+        assertRevalidated(second.raw());
+        assertEquals("ev-1", second.body().get(0).event_id);
+    }
+
+    @Test
+    public void repeatedNotificationsLoadIsRevalidated() throws Exception {
+        api.getNotifications(null, null).execute();
+        Response<List<Notification>> second = api.getNotifications(null, null).execute();
+        assertRevalidated(second.raw());
+        assertEquals("n-1", second.body().get(0).id);
+    }
+
+    @Test
+    public void otherTokenIsNotServedFromCache() throws Exception {
+        session.save("token-a", "user-a");
+        api.getConnections().execute();
+        session.save("token-b", "user-b");
+        Response<List<Connection>> other = api.getConnections().execute();
+        // Vary: Authorization keeps users on the same phone apart
+        assertNull(other.raw().cacheResponse());
+    }
+
+    private void assertRevalidated(okhttp3.Response raw) throws Exception {
+        assertNotNull("served from cache", raw.cacheResponse());
+        assertNotNull(raw.networkResponse());
+        assertEquals(304, raw.networkResponse().code());
+        server.takeRequest();
+        RecordedRequest conditional = server.takeRequest();
+        assertNotNull(conditional.getHeader("If-None-Match"));
+    }
+}
@@ -0,0 +1,226 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import com.google.gson.JsonObject;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import gabriellopes.safesenior.app.safeseniorapp.data.DashboardRepository;
+import gabriellopes.safesenior.app.safeseniorapp.models.ConnectionRow;
+import gabriellopes.safesenior.app.safeseniorapp.models.DashboardSnapshot;
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.models.HelpResponse;
+import gabriellopes.safesenior.app.safeseniorapp.models.SosStartResponse;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+// Client-side scaling runs against FakeSafeSeniorBackend through the app's own OkHttp stack
+// (cache, JwtInterceptor, single-flight, metrics). The asserts check correctness and the bounds
+// the network settings make certain; throughput numbers belong to the simulator and :benchmark.
+public class ClientLoadTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private FakeSafeSeniorBackend backend;
+
+    @After
+    public void tearDown() throws Exception {
+        if (backend != null) backend.shutdown();
+        ApiClient.getNetworkMetrics().reset();
+    }
+
+    @Test
+    public void dashboardWith2000Connections() throws Exception {
+        backend = new FakeSafeSeniorBackend(2000, 50_000);
+        backend.latency(40, 20);
+        backend.start();
+        DashboardRepository repository = new DashboardRepository(api(), null, Runnable::run);
+
+        // The first load downloads the lists, the others are revalidated with 304s
+        DashboardSnapshot snapshot = null;
+        for (int i = 0; i < 5; i++) {
+            snapshot = load(repository);
+            assertTrue(snapshot.error, snapshot.isComplete());
+        }
+        assertEquals(2000, snapshot.connections.size());
+        assertEquals(backend.activeSosCount(), snapshot.activeSosUsers.size());
+        assertEquals(200, snapshot.notifications.size());
+
+        List<ConnectionRow> rows = RowMapper.withSosState(RowMapper.toConnectionRows(snapshot.connections),
+                RowMapper.activeEmails(snapshot.activeSosUsers));
+        int sos = 0;
+        for (ConnectionRow row : rows) if (row.sosActive) sos++;
+        assertEquals(backend.activeSosCount(), sos);
+    }
+
+    @Test
+    public void pagesThrough50000Events() throws Exception {
+        backend = new FakeSafeSeniorBackend(1, 50_000);
+        backend.start();
+        ApiInterface api = api();
+        String email = "senior0@example.com";
+
+        Set<String> ids = new HashSet<>();
+        int pages = 0;
+        String cursor = null;
+        String cursorId = null;
+        String previous = null;
+        String previousId = null;
+        while (true) {
+            Response<List<Event>> page = api.getEvents(email, cursor, cursorId, 100).execute();
+            pages++;
+            assertTrue(page.isSuccessful());
+            List<Event> events = page.body();
+            for (Event e : events) {
+                assertTrue(e.event_id, ids.add(e.event_id));
+                // Newest first across page boundaries
+                if (previous != null) assertTrue(e.on_at.compareTo(previous) < 0);
+                previous = e.on_at;
+                previousId = e.event_id;
+            }
+            if (events.size() < 100) break;
+            cursor = previous;
+            cursorId = previousId;
+        }
+        assertEquals(50_000, ids.size());
+        assertEquals(501, pages);
+    }
+
+    @Test
+    public void streams50000EventsInOneResponse() throws Exception {
+        backend = new FakeSafeSeniorBackend(1, 50_000);
+        backend.start();
+
+        AtomicInteger windows = new AtomicInteger();
+        AtomicInteger total = new AtomicInteger(-1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        JsonListStreamer.enqueue(api().streamEvents("senior0@example.com", null, null, null), Event.class, 50,
+                new JsonListStreamer.Consumer<Event>() {
+            @Override
+            public void onWindow(List<Event> items) {
+                windows.incrementAndGet();
+            }
+
+            @Override
+            public void onComplete(int count) {
+                total.set(count);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                error.set(t);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertNull(error.get());
+        assertEquals(50_000, total.get());
+        assertEquals(1000, windows.get());
+    }
+
+    @Test
+    public void flakyBackendStillShowsPartialDashboards() throws Exception {
+        backend = new FakeSafeSeniorBackend(200, 2000);
+        backend.latency(20, 0).errorRate(0.25);
+        backend.start();
+        DashboardRepository repository = new DashboardRepository(api(), null, Runnable::run);
+
+        int complete = 0, partial = 0;
+        for (int i = 0; i < 20; i++) {
+            DashboardSnapshot snapshot = load(repository);
+            if (snapshot.isComplete()) {
+                complete++;
+            } else {
+                partial++;
+                assertEquals("Failed: 503", snapshot.error);
+            }
+        }
+        // 60 calls at 25% each: both outcomes are all but certain
+        assertTrue(complete > 0);
+        assertTrue(partial > 0);
+    }
+
+    @Test
+    public void bandwidthBoundsTheConnectionsDownload() throws Exception {
+        backend = new FakeSafeSeniorBackend(2000, 2000);
+        backend.bandwidth(128 * 1024);
+        backend.start();
+
+        long start = System.nanoTime();
+        Response<?> response = api().getConnections().execute();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(response.isSuccessful());
+        long bytes = Long.parseLong(response.raw().networkResponse().header("Content-Length"));
+        long floorMs = bytes * 1000 / (128 * 1024);
+        // Throttled in 100 ms steps, so allow one step of slack
+        assertTrue(elapsedMs + " ms for " + bytes + " bytes", elapsedMs >= floorMs - 100);
+    }
+
+    @Test
+    public void replayedTogglesAreNoOps() throws Exception {
+        backend = new FakeSafeSeniorBackend(10, 100);
+        backend.start();
+        ApiInterface api = api();
+
+        JsonObject on = new JsonObject();
+        on.addProperty("active", true);
+        Response<SosStartResponse> first = api.setSos("k-1", on).execute();
+        Response<SosStartResponse> replay = api.setSos("k-1", on).execute();
+        assertEquals(201, first.code());
+        assertEquals(200, replay.code());
+        assertEquals("k-1", replay.headers().get("Idempotency-Key"));
+        assertEquals(first.body().event_id, replay.body().event_id);
+        assertTrue(backend.isOwnSosActive());
+
+        JsonObject help = new JsonObject();
+        help.addProperty("device_id", "d-0");
+        help.addProperty("help", true);
+        assertTrue(api.setHelp("k-2", help).execute().body().help);
+        Response<HelpResponse> helpReplay = api.setHelp("k-2", help).execute();
+        assertEquals(200, helpReplay.code());
+        assertTrue(helpReplay.body().help);
+        assertTrue(backend.isHelpOnTheWay("d-0"));
+
+        JsonObject unknown = new JsonObject();
+        unknown.addProperty("device_id", "d-missing");
+        assertEquals(404, api.setHelp("k-3", unknown).execute().code());
+    }
+
+    private ApiInterface api() throws Exception {
+        String baseUrl = backend.baseUrl();
+        AuthSession session = new AuthSession(null, FakeSafeSeniorBackend.TOKEN, FakeSafeSeniorBackend.USER_ID);
+        return new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .client(ApiClient.buildHttpClient(tmp.newFolder(), session, baseUrl))
+                .addConverterFactory(GsonConverterFactory.create(ApiClient.getGson()))
+                .build()
+                .create(ApiInterface.class);
+    }
+
+    private static DashboardSnapshot load(DashboardRepository repository) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<DashboardSnapshot> result = new AtomicReference<>();
+        repository.load(snapshot -> {
+            result.set(snapshot);
+            done.countDown();
+        });
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        return result.get();
+    }
+}
@@ -0,0 +1,459 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * In-process stand-in for the Flask backend (API/index.py) with a generated dataset.
+ * Answers every ApiInterface route, plus /token/refresh and /sos/stream, with the same JSON
+ * shapes, status codes, ETags and Idempotency-Key echo as the real server, so the real client
+ * stack can be load tested on any machine without the network.
+ *
+ * Latency, jitter, bandwidth and error rate can be changed while it runs. The dataset is
+ * generated from a seed, so two runs with the same settings see the same data.
+ */
+public class FakeSafeSeniorBackend {
+    public static final String TOKEN = "fake-token";
+    public static final String USER_ID = "u-0";
+    public static final String USER_EMAIL = "caregiver@example.com";
+
+    // Same cap as MAX_EVENTS_PAGE on the server
+    private static final int MAX_EVENTS_PAGE = 100;
+    private static final long THROTTLE_PERIOD_MS = 100;
+    private static final DateTimeFormatter ISO =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'+00:00'").withZone(ZoneOffset.UTC);
+    private static final Instant NEWEST = Instant.parse("2025-11-03T09:00:00Z");
+    private static final Pattern STRING_FIELD = Pattern.compile("\"(\\w+)\"\\s*:\\s*\"([^\"]*)\"");
+    private static final Pattern BOOLEAN_FIELD = Pattern.compile("\"(\\w+)\"\\s*:\\s*(true|false)");
+
+    private static final class Senior {
+        final int index;
+        final String userId, name, email, deviceId;
+        // on_at of each event, newest first
+        final List<String> events = new ArrayList<>();
+        boolean sosActive;
+        boolean help;
+
+        Senior(int index) {
+            this.index = index;
+            userId = "u-" + (index + 1);
+            name = "Senior " + index;
+            email = "senior" + index + "@example.com";
+            deviceId = "d-" + index;
+        }
+    }
+
+    private final MockWebServer server = new MockWebServer();
+    private final List<Senior> seniors = new ArrayList<>();
+    private final Map<String, Senior> byEmail = new HashMap<>();
+    private final Map<String, Senior> byDevice = new HashMap<>();
+    // Notifications for USER_ID, oldest first: {id, event_id, sent_at, senior index}
+    private final List<String[]> notifications = new ArrayList<>();
+    private final Set<String> usedEmails = new HashSet<>();
+    private final Random random;
+
+    private volatile long latencyMs = 0;
+    private volatile long jitterMs = 0;
+    private volatile long bytesPerSecond = 0;
+    private volatile double errorRate = 0;
+    private volatile boolean requireToken = true;
+    // The caller's own SOS (toggled from the app)
+    private String ownSosEventId;
+    private int nextEventId = 0;
+
+    /**
+     * @param connections   caregiver connections (seniors)
+     * @param events        SOS events, spread round-robin over the seniors
+     * @param notifications notifications for the caregiver, one per event from the newest down
+     * @param activeSos     seniors whose newest event is still unhandled
+     */
+    public FakeSafeSeniorBackend(int connections, int events, int notifications, int activeSos, long seed) {
+        random = new Random(seed);
+        for (int i = 0; i < connections; i++) {
+            Senior s = new Senior(i);
+            seniors.add(s);
+            byEmail.put(s.email, s);
+            byDevice.put(s.deviceId, s);
+            usedEmails.add(s.email);
+        }
+        usedEmails.add(USER_EMAIL);
+        // Event k is k minutes (plus a few random seconds) before NEWEST, so every senior's
+        // list is already newest first and on_at strings compare like the timestamps
+        for (int k = 0; k < events && connections > 0; k++) {
+            long ago = k * 60L + random.nextInt(60);
+            seniors.get(k % connections).events.add(ISO.format(NEWEST.minusSeconds(ago)));
+        }
+        for (int i = 0; i < activeSos && i < connections; i++) {
+            seniors.get(i).sosActive = true;
+        }
+        // The newest events, walked from the oldest one so sent_at and id both grow like the server's order
+        for (int k = Math.min(notifications, connections > 0 ? events : 0) - 1; k >= 0; k--) {
+            Senior s = seniors.get(k % connections);
+            String onAt = s.events.get(k / connections);
+            this.notifications.add(new String[]{String.format("n-%08d", this.notifications.size()),
+                    eventId(s, k / connections), onAt, String.valueOf(s.index)});
+        }
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return shape(route(request));
+            }
+        });
+    }
+
+    public FakeSafeSeniorBackend(int connections, int events) {
+        this(connections, events, Math.min(events, 200), Math.min(connections, 3), 42);
+    }
+
+    public void start() throws IOException {
+        server.start();
+    }
+
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    public String baseUrl() {
+        return server.url("/").toString();
+    }
+
+    public int requestCount() {
+        return server.getRequestCount();
+    }
+
+    // Time before the response headers, uniformly spread over [latency, latency + jitter]
+    public FakeSafeSeniorBackend latency(long latencyMs, long jitterMs) {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        return this;
+    }
+
+    // Body download speed, 0 for unlimited
+    public FakeSafeSeniorBackend bandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    // Share of requests answered with a 503 before they reach the route, 0..1
+    public FakeSafeSeniorBackend errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    // false to accept calls without an Authorization header (clients without JwtInterceptor)
+    public FakeSafeSeniorBackend requireToken(boolean requireToken) {
+        this.requireToken = requireToken;
+        return this;
+    }
+
+    public int connectionCount() {
+        return seniors.size();
+    }
+
+    public synchronized int eventCount(String email) {
+        Senior s = byEmail.get(email);
+        return s == null ? 0 : s.events.size();
+    }
+
+    public synchronized int activeSosCount() {
+        int n = 0;
+        for (Senior s : seniors) if (s.sosActive) n++;
+        return n;
+    }
+
+    public synchronized boolean isOwnSosActive() {
+        return ownSosEventId != null;
+    }
+
+    public synchronized boolean isHelpOnTheWay(String deviceId) {
+        Senior s = byDevice.get(deviceId);
+        return s != null && s.help;
+    }
+
+    // ------------------------------------------------------------------ routing
+
+    private MockResponse route(RecordedRequest request) {
+        boolean fail;
+        synchronized (random) {
+            fail = errorRate > 0 && random.nextDouble() < errorRate;
+        }
+        if (fail) return json(503, "{\"message\":\"Service unavailable\"}");
+
+        HttpUrl url = request.getRequestUrl();
+        String path = url.encodedPath();
+        String method = request.getMethod();
+        String body = request.getBody().readUtf8();
+
+        if (method.equals("POST") && path.equals("/login")) return login(body);
+        if (method.equals("POST") && path.equals("/register")) return register(body);
+        if (requireToken && request.getHeader("Authorization") == null) {
+            return json(401, "{\"message\":\"Token is missing\"}");
+        }
+        if (method.equals("POST") && path.equals("/token/refresh")) return loginResponse();
+        if (method.equals("GET") && path.equals("/connections")) return conditional(request, connections());
+        if (method.equals("POST") && path.equals("/sos")) return idempotent(request, sos(body));
+        if (method.equals("GET") && path.equals("/sos/active")) return json(200, activeUsers());
+        if (method.equals("GET") && path.equals("/sos/events")) return events(request, url);
+        if (method.equals("GET") && path.equals("/sos/stream")) return stream();
+        if (method.equals("POST") && path.equals("/help/toggle")) return idempotent(request, help(body));
+        if (method.equals("GET") && path.equals("/notifications")) {
+            return conditional(request, notifications(url.queryParameter("after"), url.queryParameter("after_id")));
+        }
+        if (method.equals("POST") && path.startsWith("/notifications/")) {
+            return json(200, "{\"message\":\"Notifications sent\"}");
+        }
+        return json(404, "{\"message\":\"Not found\"}");
+    }
+
+    private MockResponse login(String body) {
+        Map<String, String> fields = strings(body);
+        if (!fields.containsKey("user_email") || !fields.containsKey("user_password")) {
+            return json(400, "{\"message\":\"Missing credentials\"}");
+        }
+        if (!USER_EMAIL.equals(fields.get("user_email").toLowerCase())) {
+            return json(401, "{\"message\":\"Invalid credentials\"}");
+        }
+        return loginResponse();
+    }
+
+    private MockResponse loginResponse() {
+        return json(200, "{\"token\":\"" + TOKEN + "\",\"userId\":\"" + USER_ID + "\"}");
+    }
+
+    private synchronized MockResponse register(String body) {
+        Map<String, String> fields = strings(body);
+        if (!fields.containsKey("user_email") || !fields.containsKey("user_name")) {
+            return json(400, "{\"message\":\"Missing required fields\"}");
+        }
+        if (!usedEmails.add(fields.get("user_email").toLowerCase())) {
+            return json(409, "{\"message\":\"Email already being used. \"}");
+        }
+        return json(201, "{\"message\":\"User created\"}");
+    }
+
+    private synchronized String connections() {
+        StringBuilder sb = new StringBuilder(seniors.size() * 128).append('[');
+        for (Senior s : seniors) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append("{\"device_id\":").append(quote(s.deviceId))
+                    .append(",\"other_user_name\":").append(quote(s.name))
+                    .append(",\"other_user_email\":").append(quote(s.email))
+                    .append(",\"last_sos\":").append(quote(s.events.isEmpty() ? "-" : s.events.get(0)))
+                    .append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    private synchronized String activeUsers() {
+        StringBuilder sb = new StringBuilder("[");
+        for (Senior s : seniors) {
+            if (!s.sosActive) continue;
+            if (sb.length() > 1) sb.append(',');
+            sb.append("{\"user_id\":").append(quote(s.userId))
+                    .append(",\"user_name\":").append(quote(s.name))
+                    .append(",\"user_email\":").append(quote(s.email))
+                    .append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    private MockResponse events(RecordedRequest request, HttpUrl url) {
+        String email = url.queryParameter("triggered_email");
+        String before = url.queryParameter("before");
+        String limitParam = url.queryParameter("limit");
+        if (email == null) return json(400, "{\"message\":\"Missing triggered_email parameter\"}");
+        int limit = Integer.MAX_VALUE;
+        if (limitParam != null) {
+            limit = Integer.parseInt(limitParam);
+            if (limit <= 0) return json(400, "{\"message\":\"limit must be positive\"}");
+            limit = Math.min(limit, MAX_EVENTS_PAGE);
+        }
+        String page;
+        synchronized (this) {
+            Senior s = byEmail.get(email);
+            if (s == null) return json(200, "[]");
+            // Keyset seek: first event older than the cursor
+            int from = 0;
+            if (before != null) {
+                int lo = 0, hi = s.events.size();
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (s.events.get(mid).compareTo(before) >= 0) lo = mid + 1;
+                    else hi = mid;
+                }
+                from = lo;
+            }
+            int to = (int) Math.min(s.events.size(), (long) from + limit);
+            StringBuilder sb = new StringBuilder((to - from) * 200 + 2).append('[');
+            for (int i = from; i < to; i++) {
+                if (i > from) sb.append(',');
+                // The newest event of an active senior is the unhandled one
+                boolean handled = !(i == 0 && s.sosActive);
+                sb.append("{\"event_id\":").append(quote(eventId(s, i)))
+                        .append(",\"device_id\":").append(quote(s.deviceId))
+                        .append(",\"triggered_by\":").append(quote(s.userId))
+                        .append(",\"on_at\":").append(quote(s.events.get(i)))
+                        .append(",\"off_at\":").append(handled ? quote(s.events.get(i)) : "null")
+                        .append(",\"handled\":").append(handled)
+                        .append(",\"handled_by\":").append(handled ? quote(USER_EMAIL) : "null")
+                        .append('}');
+            }
+            page = sb.append(']').toString();
+        }
+        return conditional(request, page);
+    }
+
+    private synchronized String notifications(String after, String afterId) {
+        StringBuilder sb = new StringBuilder("[");
+        for (String[] n : notifications) {
+            if (after != null) {
+                int c = n[2].compareTo(after);
+                // Same tie-break on id as the server
+                if (c < 0 || (c == 0 && (afterId == null || n[0].compareTo(afterId) <= 0))) continue;
+            }
+            Senior s = seniors.get(Integer.parseInt(n[3]));
+            if (sb.length() > 1) sb.append(',');
+            sb.append("{\"id\":").append(quote(n[0]))
+                    .append(",\"event_id\":").append(quote(n[1]))
+                    .append(",\"notified_user\":").append(quote(USER_ID))
+                    .append(",\"sent_at\":").append(quote(n[2]))
+                    .append(",\"seen_at\":null")
+                    .append(",\"trigger_name\":").append(quote(s.name))
+                    .append(",\"trigger_email\":").append(quote(s.email))
+                    .append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    // Set-or-toggle of the caller's own SOS, same answers as toggle_sos()
+    private synchronized MockResponse sos(String body) {
+        Boolean desired = booleans(body).get("active");
+        if (desired != null && desired == (ownSosEventId != null)) {
+            return json(200, desired
+                    ? "{\"message\":\"SOS already active\",\"active\":true,\"event_id\":" + quote(ownSosEventId) + "}"
+                    : "{\"message\":\"SOS already stopped\",\"active\":false}");
+        }
+        if (ownSosEventId != null) {
+            ownSosEventId = null;
+            return json(200, "{\"message\":\"SOS stopped\",\"active\":false}");
+        }
+        ownSosEventId = "e-own-" + nextEventId++;
+        return json(201, "{\"message\":\"SOS triggered\",\"active\":true,\"event_id\":" + quote(ownSosEventId)
+                + ",\"device_id\":\"d-own\"}");
+    }
+
+    // Set-or-toggle of help for a senior's device, same answers as toggle_help()
+    private synchronized MockResponse help(String body) {
+        String deviceId = strings(body).get("device_id");
+        if (deviceId == null) return json(400, "{\"message\":\"Missing device_id\"}");
+        Senior s = byDevice.get(deviceId);
+        if (s == null) return json(404, "{\"message\":\"Device not registered\"}");
+        Boolean desired = booleans(body).get("help");
+        if (desired != null && desired == s.help) {
+            return json(200, desired
+                    ? "{\"message\":\"Help already on the way\",\"help\":true,\"help_id\":\"h-" + s.index + "\"}"
+                    : "{\"message\":\"Help already cancelled\",\"help\":false}");
+        }
+        s.help = !s.help;
+        if (!s.help) {
+            // Cancelling help closes the senior's SOS as handled by this caregiver
+            s.sosActive = false;
+            return json(200, "{\"help\":false}");
+        }
+        return json(201, "{\"message\":\"Help on the way!\",\"help\":true,\"help_id\":\"h-" + s.index + "\"}");
+    }
+
+    // One window of the SSE stream: the current active users, then the server closes it and the
+    // client reconnects after the retry delay, like the serverless backend does
+    private MockResponse stream() {
+        String data = activeUsers();
+        return new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setHeader("Cache-Control", "no-cache")
+                .setBody("retry: 1000\n\nevent: sos\ndata: " + data + "\n\n");
+    }
+
+    // ------------------------------------------------------------------ response helpers
+
+    // Same ETag and cache headers as conditional_json(), 304 when the client already has it
+    private static MockResponse conditional(RecordedRequest request, String body) {
+        String etag = "\"" + Integer.toHexString(body.hashCode()) + "-" + body.length() + "\"";
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            return new MockResponse().setResponseCode(304).setHeader("ETag", etag);
+        }
+        return json(200, body)
+                .setHeader("ETag", etag)
+                .setHeader("Cache-Control", "private, no-cache")
+                .setHeader("Vary", "Authorization");
+    }
+
+    private static MockResponse idempotent(RecordedRequest request, MockResponse response) {
+        String key = request.getHeader("Idempotency-Key");
+        return key == null ? response : response.setHeader("Idempotency-Key", key);
+    }
+
+    private static MockResponse json(int code, String body) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+
+    // Latency and bandwidth go on every response, errors included
+    private MockResponse shape(MockResponse response) {
+        long delay = latencyMs;
+        if (jitterMs > 0) {
+            synchronized (random) {
+                delay += (long) (random.nextDouble() * jitterMs);
+            }
+        }
+        if (delay > 0) response.setHeadersDelay(delay, TimeUnit.MILLISECONDS);
+        long bps = bytesPerSecond;
+        if (bps > 0) {
+            response.throttleBody(Math.max(1, bps * THROTTLE_PERIOD_MS / 1000), THROTTLE_PERIOD_MS, TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
+    private static String eventId(Senior s, int position) {
+        return "e-" + s.index + "-" + position;
+    }
+
+    // Generated values never contain quotes or backslashes
+    private static String quote(String value) {
+        return value == null ? "null" : "\"" + value + "\"";
+    }
+
+    // Flat request bodies only, which is all the client sends
+    private static Map<String, String> strings(String body) {
+        Map<String, String> fields = new HashMap<>();
+        Matcher m = STRING_FIELD.matcher(body);
+        while (m.find()) fields.put(m.group(1), m.group(2));
+        return fields;
+    }
+
+    private static Map<String, Boolean> booleans(String body) {
+        Map<String, Boolean> fields = new HashMap<>();
+        Matcher m = BOOLEAN_FIELD.matcher(body);
+        while (m.find()) fields.put(m.group(1), Boolean.parseBoolean(m.group(2)));
+        return fields;
+    }
+}
@@ -0,0 +1,91 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the backend's /sos/stream endpoint.
+ * Accepts SSE connections and lets the test push events to them on demand.
+ */
+public class FakeSosStreamServer {
+    private final ServerSocket serverSocket;
+    private final CopyOnWriteArrayList<Socket> clients = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    // End every stream right after its headers, like a proxy that refuses long requests
+    private volatile boolean closeOnConnect = false;
+
+    public FakeSosStreamServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptThread = new Thread(this::acceptLoop, "fake-sos-stream");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/";
+    }
+
+    public void setCloseOnConnect(boolean closeOnConnect) {
+        this.closeOnConnect = closeOnConnect;
+    }
+
+    public int connectionCount() {
+        return connectionCount.get();
+    }
+
+    // Push one SSE event to every connected client
+    public void push(String type, String data) throws IOException {
+        byte[] frame = ("event: " + type + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+        for (Socket client : clients) {
+            OutputStream out = client.getOutputStream();
+            out.write(frame);
+            out.flush();
+        }
+    }
+
+    // Abruptly drop every client, like a mobile network losing coverage
+    public void dropClients() throws IOException {
+        for (Socket client : clients) {
+            client.close();
+        }
+        clients.clear();
+    }
+
+    public void shutdown() throws IOException {
+        dropClients();
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                // Skip the request line and headers
+                String line;
+                while ((line = reader.readLine()) != null && !line.isEmpty()) { }
+
+                OutputStream out = socket.getOutputStream();
+                out.write(("HTTP/1.1 200 OK\r\n"
+                        + "Content-Type: text/event-stream\r\n"
+                        + "Cache-Control: no-cache\r\n"
+                        + "Connection: close\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                connectionCount.incrementAndGet();
+                if (closeOnConnect) socket.close();
+                else clients.add(socket);
+            } catch (IOException ignored) {
+                // Server socket closed
+            }
+        }
+    }
+}
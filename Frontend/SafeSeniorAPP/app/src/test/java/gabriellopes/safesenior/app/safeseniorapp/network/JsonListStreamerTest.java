@@ -0,0 +1,256 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+
+import org.junit.Test;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class JsonListStreamerTest {
+    private static final int WINDOW = 10;
+
+    // Produces a JSON array of n events on the fly, never holding more than one of them
+    private static class EventArrayReader extends Reader {
+        final int total;
+        int produced = 0;
+        private String chunk = "[";
+        private int pos = 0;
+        private boolean closed = false;
+
+        EventArrayReader(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public int read(char[] buf, int off, int len) {
+            if (pos == chunk.length()) {
+                if (closed) return -1;
+                if (produced < total) {
+                    chunk = (produced > 0 ? "," : "") + event(produced++);
+                } else {
+                    chunk = "]";
+                    closed = true;
+                }
+                pos = 0;
+            }
+            int n = Math.min(len, chunk.length() - pos);
+            chunk.getChars(pos, pos + n, buf, off);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    private static String event(int i) {
+        return "{\"event_id\":\"ev-" + i + "\",\"on_at\":\"2025-03-01T10:15:30+00:00\",\"handled\":true}";
+    }
+
+    @Test
+    public void decodesInWindowsWhileReading() throws Exception {
+        EventArrayReader reader = new EventArrayReader(100_000);
+        TypeAdapter<Event> adapter = new Gson().getAdapter(Event.class);
+        AtomicInteger windows = new AtomicInteger();
+        AtomicInteger producedAtFirstWindow = new AtomicInteger(-1);
+
+        int count = JsonListStreamer.decode(reader, adapter, WINDOW, new RecordingConsumer() {
+            int next = 0;
+
+            @Override
+            public void onWindow(List<Event> items) {
+                assertTrue(items.size() <= WINDOW);
+                if (windows.getAndIncrement() == 0) producedAtFirstWindow.set(reader.produced);
+                for (Event e : items) assertEquals("ev-" + next++, e.event_id);
+            }
+        });
+
+        assertEquals(100_000, count);
+        assertEquals(100_000 / WINDOW, windows.get());
+        // The first rows were handed over long before the body ended
+        assertTrue("read ahead " + producedAtFirstWindow.get(), producedAtFirstWindow.get() < 100);
+    }
+
+    @Test
+    public void firstRowsArriveBeforeTheBodyHasDownloaded() throws Exception {
+        MockWebServer server = new MockWebServer();
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) body.append(i > 0 ? "," : "").append(event(i));
+        body.append("]");
+        // About 40 KB at 8 KB every 100 ms
+        server.enqueue(new MockResponse().setBody(body.toString())
+                .setHeader("Content-Type", "application/json")
+                .throttleBody(8 * 1024, 100, TimeUnit.MILLISECONDS));
+        server.start();
+        try {
+            ApiInterface api = new Retrofit.Builder()
+                    .baseUrl(server.url("/"))
+                    .client(ApiClient.buildHttpClient(null, new AuthSession(null, "token", "user-1"),
+                            server.url("/").toString()))
+                    .addConverterFactory(GsonConverterFactory.create())
+                    .build()
+                    .create(ApiInterface.class);
+
+            long start = System.nanoTime();
+            AtomicLong firstWindowMs = new AtomicLong(-1);
+            AtomicLong completeMs = new AtomicLong(-1);
+            AtomicInteger total = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(1);
+            JsonListStreamer.enqueue(api.streamEvents("ana@example.com", null, null, null), Event.class, WINDOW,
+                    new RecordingConsumer() {
+                @Override
+                public void onWindow(List<Event> items) {
+                    firstWindowMs.compareAndSet(-1, (System.nanoTime() - start) / 1_000_000);
+                }
+
+                @Override
+                public void onComplete(int count) {
+                    total.set(count);
+                    completeMs.set((System.nanoTime() - start) / 1_000_000);
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    done.countDown();
+                }
+            });
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(500, total.get());
+            assertTrue("first rows after " + firstWindowMs.get() + " ms, body after " + completeMs.get() + " ms",
+                    firstWindowMs.get() < completeMs.get() - 200);
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void stopsReadingWhenTheConsumerHasEnough() throws Exception {
+        EventArrayReader reader = new EventArrayReader(100_000);
+        AtomicInteger windows = new AtomicInteger();
+
+        int count = JsonListStreamer.decode(reader, new Gson().getAdapter(Event.class), WINDOW, new RecordingConsumer() {
+            @Override
+            public void onWindow(List<Event> items) {
+                windows.incrementAndGet();
+            }
+
+            @Override
+            public boolean wantsMore() {
+                return windows.get() < 3;
+            }
+        });
+
+        assertEquals(3 * WINDOW, count);
+        assertEquals(3, windows.get());
+        // Nothing much past the third window was read
+        assertTrue("read ahead " + reader.produced, reader.produced < 100);
+    }
+
+    @Test
+    public void httpErrorIsReported() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.start();
+        try {
+            ApiInterface api = new Retrofit.Builder()
+                    .baseUrl(server.url("/"))
+                    .addConverterFactory(GsonConverterFactory.create())
+                    .build()
+                    .create(ApiInterface.class);
+            CountDownLatch done = new CountDownLatch(1);
+            AtomicInteger windows = new AtomicInteger();
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            JsonListStreamer.enqueue(api.streamEvents("ana@example.com", null, null, null), Event.class, WINDOW,
+                    new RecordingConsumer() {
+                @Override
+                public void onWindow(List<Event> items) {
+                    windows.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    error.set(t);
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(0, windows.get());
+            assertTrue(error.get() instanceof retrofit2.HttpException);
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void backgroundWorkNeverHoldsUpAVisiblePage() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MockWebServer server = new MockWebServer();
+        // Background lists hang until released, the visible page answers at once
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if (request.getPath().contains("triggered_email=background")) release.await(10, TimeUnit.SECONDS);
+                return new MockResponse().setBody("[" + event(0) + "]").setHeader("Content-Type", "application/json");
+            }
+        });
+        server.start();
+        try {
+            ApiInterface api = new Retrofit.Builder()
+                    .baseUrl(server.url("/"))
+                    .addConverterFactory(GsonConverterFactory.create())
+                    .build()
+                    .create(ApiInterface.class);
+            CountDownLatch background = new CountDownLatch(3);
+            for (int i = 0; i < 3; i++) {
+                JsonListStreamer.enqueueBackground(api.streamEvents("background", null, null, null), Event.class, WINDOW,
+                        new RecordingConsumer() {
+                    @Override
+                    public void onComplete(int count) {
+                        background.countDown();
+                    }
+                });
+            }
+            CountDownLatch page = new CountDownLatch(1);
+            JsonListStreamer.enqueue(api.streamEvents("ana@example.com", null, null, 100), Event.class, WINDOW,
+                    new RecordingConsumer() {
+                @Override
+                public void onComplete(int count) {
+                    page.countDown();
+                }
+            });
+
+            // The page is read while every background list is still stuck
+            assertTrue(page.await(5, TimeUnit.SECONDS));
+            assertEquals(3, background.getCount());
+            release.countDown();
+            assertTrue(background.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            server.shutdown();
+        }
+    }
+
+    private abstract static class RecordingConsumer implements JsonListStreamer.Consumer<Event> {
+        @Override public void onComplete(int count) {}
+        @Override public void onError(Throwable t) {}
+    }
+}
@@ -0,0 +1,100 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class NetworkMetricsTest {
+    private static final long HEADERS_DELAY_MS = 200;
+    private static final long BODY_DELAY_MS = 300;
+
+    private MockWebServer server;
+    private NetworkMetrics metrics;
+    private ApiInterface api;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        metrics = new NetworkMetrics();
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(new OkHttpClient.Builder().eventListenerFactory(metrics).build())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiInterface.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void histogramPercentilesStayWithinBucketError() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 10000; v++) h.record(v * 100);
+
+        assertEquals(10000, h.getCount());
+        assertEquals(1_000_000, h.getMaxMicros());
+        assertClose(500_000, h.percentileMicros(50));
+        assertClose(950_000, h.percentileMicros(95));
+        assertClose(990_000, h.percentileMicros(99));
+        assertEquals(1_000_000, h.percentileMicros(100));
+    }
+
+    @Test
+    public void bucketsRoundTrip() {
+        for (long v : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123_456, 60_000_000L}) {
+            long upper = LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(v));
+            assertTrue(v + " -> " + upper, upper >= v && upper <= v + v / 16);
+        }
+    }
+
+    @Test
+    public void phasesAreRecordedPerEndpoint() throws Exception {
+        server.enqueue(new MockResponse()
+                .setBody("[]")
+                .setHeadersDelay(HEADERS_DELAY_MS, TimeUnit.MILLISECONDS)
+                .setBodyDelay(BODY_DELAY_MS, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        api.getActiveSosUsers().execute();
+        api.getActiveSosUsers().execute();
+
+        NetworkMetrics.EndpointStats stats = metrics.get("getActiveSosUsers");
+        assertNotNull(stats);
+        assertEquals(2, stats.get(NetworkMetrics.Phase.TOTAL).getCount());
+        assertEquals(2, stats.get(NetworkMetrics.Phase.TTFB).getCount());
+        // The second call reuses the connection
+        assertEquals(1, stats.get(NetworkMetrics.Phase.CONNECT).getCount());
+        assertEquals(0, stats.get(NetworkMetrics.Phase.TLS).getCount());
+
+        long ttfbMs = stats.get(NetworkMetrics.Phase.TTFB).getMaxMicros() / 1000;
+        long bodyMs = stats.get(NetworkMetrics.Phase.BODY).getMaxMicros() / 1000;
+        long totalMs = stats.get(NetworkMetrics.Phase.TOTAL).getMaxMicros() / 1000;
+        assertTrue("ttfb " + ttfbMs, ttfbMs >= HEADERS_DELAY_MS);
+        assertTrue("body " + bodyMs, bodyMs >= BODY_DELAY_MS);
+        assertTrue("total " + totalMs, totalMs >= HEADERS_DELAY_MS + BODY_DELAY_MS);
+
+        StringWriter out = new StringWriter();
+        metrics.dump(out);
+        assertTrue(out.toString(), out.toString().startsWith("getActiveSosUsers\n"));
+        assertTrue(out.toString(), out.toString().contains("p99="));
+    }
+
+    private static void assertClose(long expected, long actual) {
+        assertTrue(expected + " vs " + actual, actual >= expected && actual <= expected + expected / 16);
+    }
+}
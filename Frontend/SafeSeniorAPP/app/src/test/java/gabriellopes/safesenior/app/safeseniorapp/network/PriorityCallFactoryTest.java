@@ -0,0 +1,133 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.SosStartResponse;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class PriorityCallFactoryTest {
+    private static final long POLL_MS = 300;
+    private static final int POLLS = 40;
+
+    private MockWebServer server;
+    private PriorityCallFactory factory;
+    private ApiInterface api;
+    private volatile long toggleMs = 0;
+    private final CountDownLatch toggleReceived = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        // Slow polls, the toggle answers after toggleMs
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if (request.getPath().equals("/sos")) {
+                    toggleReceived.countDown();
+                    Thread.sleep(toggleMs);
+                    return new MockResponse().setBody("{\"active\":true}");
+                }
+                Thread.sleep(POLL_MS);
+                return new MockResponse().setBody("[]").setHeader("Content-Type", "application/json");
+            }
+        });
+        server.start();
+
+        factory = new PriorityCallFactory(ApiClient.buildHttpClient(null,
+                new AuthSession(null, "token", "user-1"), server.url("/").toString()));
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .callFactory(factory)
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiInterface.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void toggleSkipsThePollQueue() throws Exception {
+        CountDownLatch polls = new CountDownLatch(POLLS);
+        for (int i = 0; i < POLLS; i++) api.getActiveSosUsers().enqueue(countDown(polls));
+        // Polls now fill the normal lane and queue behind each other
+        Thread.sleep(50);
+
+        CountDownLatch toggled = new CountDownLatch(1);
+        AtomicLong toggleLatency = new AtomicLong();
+        long start = System.nanoTime();
+        api.toggleSos().enqueue(new Callback<SosStartResponse>() {
+            @Override
+            public void onResponse(Call<SosStartResponse> call, Response<SosStartResponse> response) {
+                toggleLatency.set((System.nanoTime() - start) / 1_000_000);
+                toggled.countDown();
+            }
+
+            @Override
+            public void onFailure(Call<SosStartResponse> call, Throwable t) {
+                toggled.countDown();
+            }
+        });
+
+        assertTrue(toggled.await(5, TimeUnit.SECONDS));
+        assertTrue(polls.await(10, TimeUnit.SECONDS));
+        PriorityCallFactory.LaneStats critical = factory.getCriticalStats();
+        PriorityCallFactory.LaneStats normal = factory.getNormalStats();
+        // Shared dispatcher: the toggle would wait at least one full wave of polls
+        assertTrue("toggle took " + toggleLatency.get(), toggleLatency.get() < POLL_MS);
+        assertEquals(1, critical.getCalls());
+        assertTrue("critical wait " + critical.getMaxWaitMillis(), critical.getMaxWaitMillis() < 50);
+        assertEquals(POLLS, normal.getCalls());
+        assertTrue(normal.getMaxWaitMillis() >= POLL_MS);
+    }
+
+    @Test
+    public void newPollsWaitWhileAToggleIsInFlight() throws Exception {
+        toggleMs = 500;
+        CountDownLatch toggled = new CountDownLatch(1);
+        api.toggleSos().enqueue(countDown(toggled));
+        assertTrue(toggleReceived.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch polls = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) api.getActiveSosUsers().enqueue(countDown(polls));
+        // Only one poll may run next to the toggle
+        assertEquals(4, factory.getQueuedNormalCalls());
+
+        assertTrue(toggled.await(5, TimeUnit.SECONDS));
+        // Released once the toggle is done
+        assertTrue(polls.await(5, TimeUnit.SECONDS));
+        assertEquals(0, factory.getQueuedNormalCalls());
+    }
+
+    private static <T> Callback<T> countDown(CountDownLatch latch) {
+        return new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                latch.countDown();
+            }
+        };
+    }
+}
@@ -0,0 +1,171 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightInterceptorTest {
+    private static final int CALLS = 3;
+
+    private MockWebServer server;
+    private OkHttpClient client;
+    private ApiInterface api;
+    private SingleFlightInterceptor singleFlight;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService pool = Executors.newFixedThreadPool(CALLS);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        // Holds every response until the test has queued up its duplicates
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                release.await(5, TimeUnit.SECONDS);
+                if (request.getPath().equals("/sos")) return new MockResponse().setBody("{\"active\":true}");
+                return new MockResponse()
+                        .setBody("[{\"user_name\":\"Ana\",\"user_email\":\"ana@example.com\"}]")
+                        .setHeader("Content-Type", "application/json");
+            }
+        });
+        server.start();
+
+        client = ApiClient.buildHttpClient(null, new AuthSession(null, "token", "user-1"),
+                server.url("/").toString());
+        singleFlight = ApiClient.findSingleFlight(client);
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(client)
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiInterface.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentIdenticalGetsShareOneCall() throws Exception {
+        List<Future<Response<List<Connection>>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLS; i++) {
+            results.add(pool.submit(() -> api.getActiveSosUsers().execute()));
+        }
+        // Wait until the duplicates are parked behind the first call, then answer it
+        awaitCoalesced(CALLS - 1);
+        release.countDown();
+
+        for (Future<Response<List<Connection>>> f : results) {
+            Response<List<Connection>> response = f.get(5, TimeUnit.SECONDS);
+            assertTrue(response.isSuccessful());
+            assertEquals("ana@example.com", response.body().get(0).user_email);
+        }
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, singleFlight.getNetworkCalls());
+        assertEquals(CALLS - 1, singleFlight.getCoalescedCalls());
+    }
+
+    @Test
+    public void postsAreNeverShared() throws Exception {
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < CALLS; i++) {
+            results.add(pool.submit((Callable<Object>) () -> api.toggleSos().execute()));
+        }
+        release.countDown();
+        for (Future<?> f : results) f.get(5, TimeUnit.SECONDS);
+
+        assertEquals(CALLS, server.getRequestCount());
+        assertEquals(0, singleFlight.getCoalescedCalls());
+    }
+
+    @Test
+    public void leaderCrashFailsWaitingCallersWithAnIOException() throws Exception {
+        CountDownLatch crash = new CountDownLatch(1);
+        OkHttpClient crashing = client.newBuilder()
+                .addInterceptor(chain -> {
+                    // Only the leader gets this far
+                    crash.await(5, TimeUnit.SECONDS);
+                    throw new IllegalStateException("interceptor bug");
+                })
+                .build();
+        singleFlight = ApiClient.findSingleFlight(crashing);
+        Request request = new Request.Builder().url(server.url("/sos/active")).build();
+
+        Future<okhttp3.Response> leader = pool.submit(() -> crashing.newCall(request).execute());
+        Future<okhttp3.Response> follower = pool.submit(() -> crashing.newCall(request).execute());
+        awaitCoalesced(1);
+        crash.countDown();
+
+        try {
+            leader.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        try {
+            follower.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+            assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void canceledLeaderDoesNotFailWaitingCallers() throws Exception {
+        Request request = new Request.Builder().url(server.url("/sos/active")).build();
+        okhttp3.Call leaderCall = client.newCall(request);
+        Future<okhttp3.Response> leader = pool.submit(leaderCall::execute);
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        Future<okhttp3.Response> follower = pool.submit(() -> client.newCall(request).execute());
+        awaitCoalesced(1);
+
+        leaderCall.cancel();
+        release.countDown();
+
+        try {
+            leader.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        try (okhttp3.Response response = follower.get(5, TimeUnit.SECONDS)) {
+            assertTrue(response.isSuccessful());
+        }
+        assertEquals(2, singleFlight.getNetworkCalls());
+    }
+
+    private void awaitCoalesced(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (singleFlight.getCoalescedCalls() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, singleFlight.getCoalescedCalls());
+    }
+}
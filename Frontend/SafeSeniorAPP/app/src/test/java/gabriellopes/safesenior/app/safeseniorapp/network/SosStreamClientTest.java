@@ -0,0 +1,160 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.*;
+
+public class SosStreamClientTest {
+    // A reconnect the client asked for, run by the test instead of after the delay
+    private static final class Reconnect {
+        final Runnable connect;
+        final long delayMs;
+
+        Reconnect(Runnable connect, long delayMs) {
+            this.connect = connect;
+            this.delayMs = delayMs;
+        }
+    }
+
+    private FakeSosStreamServer server;
+    private SosStreamClient client;
+
+    private final BlockingQueue<Boolean> states = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Reconnect> reconnects = new LinkedBlockingQueue<>();
+    private final BlockingQueue<List<Connection>> sosUsers = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> helpEvents = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeSosStreamServer();
+        client = new SosStreamClient(new OkHttpClient(), server.baseUrl(),
+                new SosStreamClient.Listener() {
+                    @Override
+                    public void onActiveSosUsers(List<Connection> activeUsers) {
+                        sosUsers.add(activeUsers);
+                    }
+
+                    @Override
+                    public void onHelpStateChanged(String deviceId, boolean help) {
+                        helpEvents.add(deviceId + ":" + help);
+                    }
+
+                    @Override
+                    public void onStreamStateChanged(boolean connected) {
+                        states.add(connected);
+                    }
+                }, Runnable::run,
+                (connect, delayMs) -> reconnects.add(new Reconnect(connect, delayMs)),
+                // Half of the 20% jitter every time
+                () -> 0.5);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        server.shutdown();
+    }
+
+    @Test
+    public void deliversSosEventOverTheOpenConnection() throws Exception {
+        client.start();
+        assertEquals(Boolean.TRUE, states.poll(5, TimeUnit.SECONDS));
+
+        server.push("sos", "[{\"user_email\":\"ana@example.com\",\"user_name\":\"Ana\"}]");
+
+        List<Connection> users = sosUsers.poll(5, TimeUnit.SECONDS);
+        assertNotNull(users);
+        assertEquals("ana@example.com", users.get(0).user_email);
+        // Pushed on the connection that was already open: no new request, nothing waited for
+        assertEquals(1, server.connectionCount());
+        assertTrue(reconnects.isEmpty());
+    }
+
+    @Test
+    public void deliversHelpToggle() throws Exception {
+        client.start();
+        assertEquals(Boolean.TRUE, states.poll(5, TimeUnit.SECONDS));
+
+        server.push("help", "{\"device_id\":\"dev-1\",\"help\":true}");
+        assertEquals("dev-1:true", helpEvents.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void reconnectsWhenServerClosesItsWindow() throws Exception {
+        client.start();
+        assertEquals(Boolean.TRUE, states.poll(5, TimeUnit.SECONDS));
+
+        server.dropClients();
+        Reconnect reconnect = nextReconnect();
+        assertEquals(1100, reconnect.delayMs);
+        reconnect.connect.run();
+        awaitConnections(2);
+        // A normal end of stream must not flip the dashboard back to polling
+        assertNull(states.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void backsOffWhenServerClosesRightAway() throws Exception {
+        server.setCloseOnConnect(true);
+        client.start();
+
+        // Doubles up to 30 s, each plus half of the 20% jitter
+        long[] expected = {1100, 2200, 4400, 8800, 17600, 33000, 33000};
+        for (long delayMs : expected) {
+            Reconnect reconnect = nextReconnect();
+            assertEquals(delayMs, reconnect.delayMs);
+            reconnect.connect.run();
+        }
+    }
+
+    @Test
+    public void backoffStartsOverOnceAnEventCameThrough() throws Exception {
+        server.setCloseOnConnect(true);
+        client.start();
+        Reconnect first = nextReconnect();
+        assertEquals(1100, first.delayMs);
+        first.connect.run();
+        Reconnect second = nextReconnect();
+        assertEquals(2200, second.delayMs);
+        // The third connection stays open and gets an event
+        server.setCloseOnConnect(false);
+        second.connect.run();
+        awaitConnections(3);
+        server.push("sos", "[]");
+        assertNotNull(sosUsers.poll(5, TimeUnit.SECONDS));
+
+        server.dropClients();
+        assertEquals(1100, nextReconnect().delayMs);
+    }
+
+    private Reconnect nextReconnect() throws InterruptedException {
+        Reconnect reconnect = reconnects.poll(5, TimeUnit.SECONDS);
+        assertNotNull("no reconnect scheduled", reconnect);
+        return reconnect;
+    }
+
+    private void awaitConnections(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.connectionCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, server.connectionCount());
+    }
+
+    @Test
+    public void reportsDisconnectedWhenServerUnreachable() throws Exception {
+        server.shutdown();
+        client.start();
+        assertEquals(Boolean.FALSE, states.poll(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,116 @@
+package gabriellopes.safesenior.app.safeseniorapp.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+public class TokenAuthenticatorTest {
+    private static final int CALLS = 50;
+
+    private MockWebServer server;
+    private ApiInterface api;
+    private AuthSession session;
+    private final AtomicInteger refreshes = new AtomicInteger();
+    private final AtomicInteger expired = new AtomicInteger();
+    private volatile boolean refreshAllowed = true;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        // Only "fresh" is valid; the session starts with an expired token
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                String auth = request.getHeader("Authorization");
+                if (request.getPath().equals("/token/refresh")) {
+                    refreshes.incrementAndGet();
+                    // Slow enough that every call has its 401 before the new token arrives
+                    Thread.sleep(200);
+                    if (!refreshAllowed) return new MockResponse().setResponseCode(401);
+                    return new MockResponse().setBody("{\"token\":\"fresh\",\"userId\":\"user-1\"}");
+                }
+                if (!"fresh".equals(auth)) {
+                    return new MockResponse().setResponseCode(401).setBody("{\"message\":\"Token expired\"}");
+                }
+                return new MockResponse().setBody("[]").setHeader("Content-Type", "application/json");
+            }
+        });
+        server.start();
+
+        session = new AuthSession(null, "expired", "user-1");
+        session.setListener(expired::incrementAndGet);
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(ApiClient.buildHttpClient(null, session, server.url("/").toString()))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiInterface.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentExpiredCallsShareOneRefresh() throws Exception {
+        List<Future<Response<List<Connection>>>> results = fireConcurrently();
+
+        for (Future<Response<List<Connection>>> f : results) {
+            Response<List<Connection>> response = f.get(10, TimeUnit.SECONDS);
+            assertTrue("call retried with the new token", response.isSuccessful());
+        }
+        assertEquals("auth round trips", 1, refreshes.get());
+        assertEquals("fresh", session.getToken());
+    }
+
+    @Test
+    public void rejectedRefreshIsNotRetriedByWaitingCalls() throws Exception {
+        refreshAllowed = false;
+        List<Future<Response<List<Connection>>>> results = fireConcurrently();
+
+        for (Future<Response<List<Connection>>> f : results) {
+            assertEquals(401, f.get(10, TimeUnit.SECONDS).code());
+        }
+        assertEquals("auth round trips", 1, refreshes.get());
+        // Session dropped and the app told once, so it sends the user back to login
+        assertFalse(session.isLoggedIn());
+        assertEquals(1, expired.get());
+    }
+
+    // All calls start together and hit the expired token at the same time
+    private List<Future<Response<List<Connection>>>> fireConcurrently() {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Response<List<Connection>>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLS; i++) {
+            results.add(pool.submit(() -> {
+                go.await();
+                return api.getConnections().execute();
+            }));
+        }
+        go.countDown();
+        pool.shutdown();
+        return results;
+    }
+}
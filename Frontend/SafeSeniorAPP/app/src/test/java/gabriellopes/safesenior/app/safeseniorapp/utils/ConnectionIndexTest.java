@@ -0,0 +1,140 @@
+package gabriellopes.safesenior.app.safeseniorapp.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.ConnectionRow;
+
+import static org.junit.Assert.*;
+
+public class ConnectionIndexTest {
+    private static final String[] FIRST = {"Ana", "Jo\u00e3o", "Maria", "Rui", "In\u00eas", "Pedro", "Sofia", "Tiago"};
+    private static final String[] LAST = {"Silva", "Costa", "Rocha", "Lopes", "Pessoa", "Santos", "Ferreira"};
+    private static final long FRAME_NANOS = 16_000_000;
+
+    private static Connection connection(String name, String email, String lastSos) {
+        Connection c = new Connection();
+        c.user_name = name;
+        c.user_email = email;
+        c.last_sos = lastSos;
+        return c;
+    }
+
+    private static List<Connection> people() {
+        return Arrays.asList(
+                connection("Ana Silva", "ana.silva@example.com", "2025-03-01T10:00:00+00:00"),
+                connection("Jo\u00e3o Costa", "jc@example.com", "-"),
+                connection("Anabela Rocha", "bela@example.com", "2025-05-01T10:00:00+00:00"),
+                connection("Rui Lopes", "rui@example.com", "2025-04-01T10:00:00+00:00"));
+    }
+
+    // Generated caregiver list with repeated first and last names and random last SOS dates
+    private static List<Connection> generated(int n, Random random) {
+        List<Connection> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String last = LAST[random.nextInt(LAST.length)];
+            String lastSos = random.nextInt(4) == 0 ? "-"
+                    : String.format("2025-%02d-%02dT10:00:00+00:00", 1 + random.nextInt(12), 1 + random.nextInt(28));
+            list.add(connection(first + " " + last + " " + i,
+                    first.toLowerCase() + "." + last.toLowerCase() + i + "@example.com", lastSos));
+        }
+        return list;
+    }
+
+    private static List<String> names(List<ConnectionRow> rows) {
+        List<String> names = new ArrayList<>();
+        for (ConnectionRow row : rows) names.add(row.name);
+        return names;
+    }
+
+    @Test
+    public void prefixesOfNameWordsAndEmailMatch() {
+        List<ConnectionRow> rows = RowMapper.toConnectionRows(people());
+        ConnectionIndex index = new ConnectionIndex(rows);
+        ConnectionIndex.Order order = ConnectionIndex.Order.SERVER;
+
+        assertEquals(Arrays.asList("Ana Silva", "Anabela Rocha"), names(index.apply(rows, "ana", order)));
+        assertEquals(Arrays.asList("Ana Silva"), names(index.apply(rows, "SIL", order)));
+        // Accents and case are ignored on both sides
+        assertEquals(Arrays.asList("Jo\u00e3o Costa"), names(index.apply(rows, "joao", order)));
+        assertEquals(Arrays.asList("Jo\u00e3o Costa"), names(index.apply(rows, "Jo\u00c3", order)));
+        // Email prefix
+        assertEquals(Arrays.asList("Anabela Rocha"), names(index.apply(rows, "bela@", order)));
+        // Every word has to match, in any order
+        assertEquals(Arrays.asList("Anabela Rocha"), names(index.apply(rows, "rocha an", order)));
+        // Prefixes only, not substrings
+        assertTrue(index.apply(rows, "ilva", order).isEmpty());
+        assertEquals(4, index.apply(rows, "  ", order).size());
+    }
+
+    @Test
+    public void ordersPinActiveSosAndSortByLastSos() {
+        List<ConnectionRow> base = RowMapper.toConnectionRows(people());
+        ConnectionIndex index = new ConnectionIndex(base);
+        Set<String> active = new HashSet<>(Arrays.asList("rui@example.com", "jc@example.com"));
+        List<ConnectionRow> rows = RowMapper.withSosState(base, active);
+
+        assertEquals(Arrays.asList("Jo\u00e3o Costa", "Rui Lopes", "Ana Silva", "Anabela Rocha"),
+                names(index.apply(rows, "", ConnectionIndex.Order.SOS_FIRST)));
+        // No last SOS goes last
+        assertEquals(Arrays.asList("Anabela Rocha", "Rui Lopes", "Ana Silva", "Jo\u00e3o Costa"),
+                names(index.apply(rows, "", ConnectionIndex.Order.RECENT_SOS)));
+        assertEquals(Arrays.asList("Anabela Rocha", "Ana Silva"),
+                names(index.apply(rows, "ana", ConnectionIndex.Order.RECENT_SOS)));
+    }
+
+    // Narrowing the previous matches must give what a fresh search gives
+    @Test
+    public void typingAndDeletingMatchesAFreshSearch() {
+        Random random = new Random(7);
+        List<ConnectionRow> rows = RowMapper.toConnectionRows(generated(2000, random));
+        ConnectionIndex typed = new ConnectionIndex(rows);
+        String[] queries = {"m", "ma", "mar", "mari", "maria", "maria ", "maria s", "maria si", "maria s",
+                "maria ", "mar", "", "p", "pe", "pedro.", "pedro.lopes1", "pedro.lopes12", "s", "so", "sofia 1"};
+        for (String q : queries) {
+            int[] fresh = new ConnectionIndex(rows).match(q);
+            assertArrayEquals(q, fresh, typed.match(q));
+        }
+    }
+
+    @Test
+    public void keystrokeToResultFitsInAFrameAt5000Connections() {
+        Random random = new Random(42);
+        List<Connection> connections = generated(5000, random);
+        List<ConnectionRow> base = RowMapper.toConnectionRows(connections);
+        Set<String> active = new HashSet<>();
+        for (int i = 0; i < connections.size(); i += 50) active.add(connections.get(i).user_email);
+
+        ConnectionIndex index = new ConnectionIndex(base);
+        index.match("");
+
+        String typing = "maria silva 12";
+        // Warm up the JIT like a few sessions of typing would
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i <= typing.length(); i++) {
+                index.apply(RowMapper.withSosState(base, active), typing.substring(0, i), ConnectionIndex.Order.SOS_FIRST);
+            }
+        }
+
+        long worst = 0;
+        for (ConnectionIndex.Order order : ConnectionIndex.Order.values()) {
+            for (int i = 0; i <= typing.length(); i++) {
+                long start = System.nanoTime();
+                // What one keystroke costs on the filter thread: SOS state, search and order
+                List<ConnectionRow> rows = RowMapper.withSosState(base, active);
+                index.apply(rows, typing.substring(0, i), order);
+                long elapsed = System.nanoTime() - start;
+                worst = Math.max(worst, elapsed);
+            }
+        }
+        assertTrue("worst keystroke " + worst / 1000 + " us", worst < FRAME_NANOS);
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.Properties
+
+// Plain JVM module: runs the app's model/mapping code under JMH on a desktop JVM.
+//   ./gradlew :benchmark:jmh
+// Results go to benchmark/build/results/jmh/results.json
+plugins {
+    java
+    id("me.champeau.jmh")
+}
+
+// RowMapper and ConnectionRow reference android.graphics.Color and android.os.Handler, so they
+// compile against the SDK's android.jar. Only compile: the Color values are constants inlined by
+// javac and the Handler path is never benchmarked, so the stubs are kept off the JMH runtime.
+val compileSdk = 36
+val androidJar: File = run {
+    val props = Properties()
+    val local = rootProject.file("local.properties")
+    if (local.exists()) local.inputStream().use { props.load(it) }
+    val sdkDir = listOf(props.getProperty("sdk.dir"), System.getenv("ANDROID_HOME"), System.getenv("ANDROID_SDK_ROOT"))
+        .firstOrNull { !it.isNullOrBlank() }
+        ?: throw GradleException("Android SDK not found: set sdk.dir in local.properties or ANDROID_HOME")
+    val jar = file("$sdkDir/platforms/android-$compileSdk/android.jar")
+    if (!jar.isFile) throw GradleException("$jar not found: install platforms;android-$compileSdk with the SDK manager")
+    jar
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// Only the Android-free parts of the app are compiled in
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/**")
+            include("gabriellopes/safesenior/app/safeseniorapp/utils/RowMapper.java")
+        }
+    }
+}
+
+dependencies {
+    compileOnly(files(androidJar))
+    // Same Gson that converter-gson 2.11.0 brings into the app
+    implementation("com.google.code.gson:gson:2.10.1")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    // Machine-readable, so runs of different releases can be compared
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
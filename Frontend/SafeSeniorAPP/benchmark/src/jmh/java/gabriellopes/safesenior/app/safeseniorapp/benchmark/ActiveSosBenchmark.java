@@ -0,0 +1,67 @@
+package gabriellopes.safesenior.app.safeseniorapp.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.ConnectionRow;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+
+// What ConnectionsAdapter.setActiveSOSUsers does per /sos/active answer: build the set of active
+// emails and apply it to the dashboard rows (rows whose state didn't change are reused)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ActiveSosBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    // Share of the connections with an active SOS
+    @Param({"0.01", "0.2"})
+    public double activeShare;
+
+    private List<ConnectionRow> baseRows;
+    private List<Connection> activeUsers;
+    private Set<String> activeEmails;
+
+    @Setup
+    public void setUp() {
+        List<Connection> connections = Payloads.connections(size, 1);
+        baseRows = RowMapper.toConnectionRows(connections);
+        activeUsers = new ArrayList<>();
+        int step = Math.max(1, (int) Math.round(1 / activeShare));
+        for (int i = 0; i < connections.size(); i += step) {
+            Connection active = new Connection();
+            active.user_email = connections.get(i).user_email;
+            activeUsers.add(active);
+        }
+        activeEmails = RowMapper.activeEmails(activeUsers);
+    }
+
+    @Benchmark
+    public Set<String> activeEmails() {
+        return RowMapper.activeEmails(activeUsers);
+    }
+
+    @Benchmark
+    public List<ConnectionRow> applyToRows() {
+        return RowMapper.withSosState(baseRows, activeEmails);
+    }
+
+    @Benchmark
+    public List<ConnectionRow> reconcile() {
+        return RowMapper.withSosState(baseRows, RowMapper.activeEmails(activeUsers));
+    }
+}
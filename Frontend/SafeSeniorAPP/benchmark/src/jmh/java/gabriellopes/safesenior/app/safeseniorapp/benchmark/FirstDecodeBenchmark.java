@@ -0,0 +1,58 @@
+package gabriellopes.safesenior.app.safeseniorapp.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.ModelTypeAdapters;
+
+// Cold cost of the first decode after app start: a fresh JVM per sample, one Gson and one
+// Connection array, so adapter creation (reflection or not) is inside the measurement
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class FirstDecodeBenchmark {
+
+    private String json;
+
+    // Built by hand: serialising with Gson here would already warm up its reflection
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 10; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"other_user_name\":\"User ").append(i)
+                    .append("\",\"other_user_email\":\"user").append(i)
+                    .append("@example.com\",\"last_sos\":\"2025-11-03T09:12:44.123456Z\",\"device_id\":\"device-")
+                    .append(i).append("\"}");
+        }
+        json = sb.append(']').toString();
+    }
+
+    @Benchmark
+    public Connection[] reflective() {
+        return new Gson().fromJson(json, Connection[].class);
+    }
+
+    @Benchmark
+    public Connection[] generated() {
+        return new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create()
+                .fromJson(json, Connection[].class);
+    }
+}
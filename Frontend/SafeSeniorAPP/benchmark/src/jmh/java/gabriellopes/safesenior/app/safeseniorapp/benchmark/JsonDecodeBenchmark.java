@@ -0,0 +1,81 @@
+package gabriellopes.safesenior.app.safeseniorapp.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.models.ModelTypeAdapters;
+import gabriellopes.safesenior.app.safeseniorapp.models.Notification;
+
+// Gson decoding of whole response bodies, the way GsonConverterFactory does it for ApiInterface:
+// reflective (plain Gson) against the hand-written ModelTypeAdapters the app registers
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonDecodeBenchmark {
+    private static final Type CONNECTIONS = new TypeToken<List<Connection>>() {}.getType();
+    private static final Type EVENTS = new TypeToken<List<Event>>() {}.getType();
+    private static final Type NOTIFICATIONS = new TypeToken<List<Notification>>() {}.getType();
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    // Shared like the converter's instance, so type adapters are already cached
+    private final Gson gson = new Gson();
+    private final Gson generated = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapters()).create();
+    private String connectionsJson;
+    private String eventsJson;
+    private String notificationsJson;
+
+    @Setup
+    public void setUp() {
+        connectionsJson = gson.toJson(Payloads.connections(size, 1));
+        eventsJson = gson.toJson(Payloads.events(size, 2));
+        notificationsJson = gson.toJson(Payloads.notifications(size, 3));
+    }
+
+    @Benchmark
+    public List<Connection> connections() {
+        return gson.fromJson(connectionsJson, CONNECTIONS);
+    }
+
+    @Benchmark
+    public List<Event> events() {
+        return gson.fromJson(eventsJson, EVENTS);
+    }
+
+    @Benchmark
+    public List<Notification> notifications() {
+        return gson.fromJson(notificationsJson, NOTIFICATIONS);
+    }
+
+    @Benchmark
+    public List<Connection> connectionsGenerated() {
+        return generated.fromJson(connectionsJson, CONNECTIONS);
+    }
+
+    @Benchmark
+    public List<Event> eventsGenerated() {
+        return generated.fromJson(eventsJson, EVENTS);
+    }
+
+    @Benchmark
+    public List<Notification> notificationsGenerated() {
+        return generated.fromJson(notificationsJson, NOTIFICATIONS);
+    }
+}
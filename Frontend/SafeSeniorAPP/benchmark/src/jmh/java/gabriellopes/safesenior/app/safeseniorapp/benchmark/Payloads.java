@@ -0,0 +1,75 @@
+package gabriellopes.safesenior.app.safeseniorapp.benchmark;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.models.Notification;
+
+// Realistic API data, shaped like the responses of /connections, /events and /notifications.
+// Seeded, so every run and every release measures the same input.
+final class Payloads {
+    private static final OffsetDateTime BASE = OffsetDateTime.of(2025, 11, 3, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    private Payloads() {}
+
+    // ISO-8601 timestamp with microseconds, e.g. 2025-11-03T09:12:44.123456Z
+    static String timestamp(Random random) {
+        OffsetDateTime t = BASE.minusSeconds(random.nextInt(90 * 24 * 3600))
+                .withNano(random.nextInt(1_000_000) * 1000);
+        return t.toString();
+    }
+
+    static List<Connection> connections(int n, long seed) {
+        Random random = new Random(seed);
+        List<Connection> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Connection c = new Connection();
+            c.user_name = "User " + i;
+            c.user_email = "user" + i + "@example.com";
+            c.device_id = "device-" + Long.toHexString(random.nextLong());
+            c.last_sos = random.nextInt(4) == 0 ? "-" : timestamp(random);
+            list.add(c);
+        }
+        return list;
+    }
+
+    static List<Event> events(int n, long seed) {
+        Random random = new Random(seed);
+        List<Event> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Event e = new Event();
+            e.event_id = "evt-" + i;
+            e.device_id = "device-" + (i % 8);
+            e.triggered_by = random.nextBoolean() ? "app" : "device";
+            e.on_at = timestamp(random);
+            // A few are still active, most were handled by a caregiver
+            e.off_at = random.nextInt(10) == 0 ? null : timestamp(random);
+            e.handled = e.off_at != null;
+            e.handled_by = e.handled && random.nextBoolean() ? "caregiver" + (i % 5) + "@example.com" : null;
+            list.add(e);
+        }
+        return list;
+    }
+
+    static List<Notification> notifications(int n, long seed) {
+        Random random = new Random(seed);
+        List<Notification> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Notification notification = new Notification();
+            notification.id = "ntf-" + i;
+            notification.event_id = "evt-" + i;
+            notification.notified_user = "caregiver@example.com";
+            notification.sent_at = timestamp(random);
+            notification.seen_at = random.nextBoolean() ? timestamp(random) : null;
+            notification.trigger_name = "User " + (i % 50);
+            notification.trigger_email = "user" + (i % 50) + "@example.com";
+            list.add(notification);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,55 @@
+package gabriellopes.safesenior.app.safeseniorapp.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.Connection;
+import gabriellopes.safesenior.app.safeseniorapp.models.ConnectionRow;
+import gabriellopes.safesenior.app.safeseniorapp.models.Event;
+import gabriellopes.safesenior.app.safeseniorapp.models.EventRow;
+import gabriellopes.safesenior.app.safeseniorapp.utils.RowMapper;
+
+// Timestamp parsing and display formatting that ConnectionsAdapter and EventsAdapter get from RowMapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RowFormattingBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private List<Connection> connections;
+    private List<Event> events;
+
+    @Setup
+    public void setUp() {
+        connections = Payloads.connections(size, 1);
+        events = Payloads.events(size, 2);
+    }
+
+    @Benchmark
+    public List<ConnectionRow> connectionRows() {
+        return RowMapper.toConnectionRows(connections);
+    }
+
+    @Benchmark
+    public List<EventRow> eventRows() {
+        return RowMapper.toEventRows(events);
+    }
+
+    // Parsing alone, as used for sorting and paging cursors
+    @Benchmark
+    public void parseMillis(Blackhole bh) {
+        for (Event e : events) bh.consume(RowMapper.parseMillis(e.on_at));
+    }
+}
@@ -1,4 +1,6 @@
 // Top-level build file
 plugins {
     id("com.android.application") version "8.9.1" apply false
+    id("com.android.test") version "8.9.1" apply false
+    id("me.champeau.jmh") version "0.7.2" apply false
 }
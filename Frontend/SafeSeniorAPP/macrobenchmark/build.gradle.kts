@@ -0,0 +1,47 @@
+// Runs on a device against the app's "benchmark" build type:
+//   ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+// The app must already be signed in on the device, otherwise the dashboard is never reached.
+plugins {
+    id("com.android.test")
+}
+
+android {
+    namespace = "gabriellopes.safesenior.app.macrobenchmark"
+    compileSdk = 36
+
+    defaultConfig {
+        // Baseline profiles need API 28+ to be collected
+        minSdk = 28
+        targetSdk = 36
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    buildTypes {
+        create("benchmark") {
+            isDebuggable = true
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+
+    targetProjectPath = ":app"
+    experimentalProperties["android.experimental.self-instrumenting"] = true
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_1_8
+        targetCompatibility = JavaVersion.VERSION_1_8
+    }
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation("androidx.benchmark:benchmark-macro-junit4:1.3.4")
+    implementation("androidx.test.uiautomator:uiautomator:2.3.0")
+}
+
+// Only the benchmark variant makes sense here
+androidComponents {
+    beforeVariants(selector().all()) {
+        it.enable = it.buildType == "benchmark"
+    }
+}
@@ -0,0 +1,30 @@
+package gabriellopes.safesenior.app.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+// Records the classes and methods used from launch to the first dashboard frame.
+// Copy the generated file (see the test output) to app/src/main/baseline-prof.txt;
+// the app ships no profile until then.
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule rule = new BaselineProfileRule();
+
+    @Test
+    public void startup() {
+        rule.collect(Dashboard.PACKAGE, 15, 3, null, true, false,
+                className -> true,
+                scope -> {
+                    Dashboard.launch(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,22 @@
+package gabriellopes.safesenior.app.macrobenchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Until;
+
+// Launch steps shared by the startup benchmark and the baseline profile generator
+final class Dashboard {
+    static final String PACKAGE = "gabriellopes.safesenior.app.safeseniorapp";
+    // Same name as StartupTimer.TRACE_SECTION in the app
+    static final String FIRST_FRAME_SECTION = "FirstDashboardFrame";
+    private static final long ROWS_TIMEOUT_MS = 15_000;
+
+    private Dashboard() {}
+
+    // Cold launch through LoginActivity (which forwards a saved session) until rows are on screen
+    static void launch(MacrobenchmarkScope scope) {
+        scope.pressHome();
+        scope.startActivityAndWait();
+        scope.getDevice().wait(Until.hasObject(By.res(PACKAGE, "txtName")), ROWS_TIMEOUT_MS);
+    }
+}
@@ -0,0 +1,51 @@
+package gabriellopes.safesenior.app.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import kotlin.Unit;
+
+// Time to first dashboard frame on a cold start. StartupTimingMetric reports timeToInitialDisplay
+// and timeToFullDisplay (the app calls reportFullyDrawn() once rows are drawn); the trace section
+// is the part spent in MainActivity. Compared without and with the baseline profile.
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartWithoutProfile() {
+        measure(new CompilationMode.None());
+    }
+
+    // Needs app/src/main/baseline-prof.txt from BaselineProfileGenerator
+    @Test
+    public void coldStartWithBaselineProfile() {
+        measure(new CompilationMode.Partial());
+    }
+
+    private void measure(CompilationMode mode) {
+        rule.measureRepeated(Dashboard.PACKAGE,
+                Arrays.asList(new StartupTimingMetric(),
+                        new TraceSectionMetric(Dashboard.FIRST_FRAME_SECTION, TraceSectionMetric.Mode.First.INSTANCE,
+                                Dashboard.FIRST_FRAME_SECTION, true)),
+                mode, StartupMode.COLD, ITERATIONS,
+                scope -> Unit.INSTANCE,
+                scope -> {
+                    Dashboard.launch(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
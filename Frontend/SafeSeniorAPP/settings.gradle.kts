@@ -11,6 +11,10 @@ pluginManagement {
         gradlePluginPortal()
     }
 }
+plugins {
+    // Downloads the JDK 21 the simulator's toolchain asks for when none is installed
+    id("org.gradle.toolchains.foojay-resolver-convention") version "0.8.0"
+}
 dependencyResolutionManagement {
     repositoriesMode.set(RepositoriesMode.FAIL_ON_PROJECT_REPOS)
     repositories {
@@ -21,3 +25,9 @@ dependencyResolutionManagement {
 
 rootProject.name = "SafeSeniorAPP"
 include(":app")
+// JMH microbenchmarks of the app's models, JSON decoding and row formatting
+include(":benchmark")
+// Cold start measurement and baseline profile generation on a device
+include(":macrobenchmark")
+// Command-line fleet of simulated SOS wearables for load-testing the backend
+include(":simulator")
@@ -0,0 +1,56 @@
+// Plain JVM module: a fleet of simulated SOS wearables, one virtual thread per device.
+//   ./gradlew :simulator:run --args="--devices 5000 --duration 10m"
+//   ./gradlew :simulator:run --args="--url https://staging.example.com/ --device-ids ids.txt"
+// Without --url it starts its own stand-in server. --help lists every option.
+plugins {
+    java
+    application
+}
+
+// Virtual threads
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
+
+// The app's models, Gson adapters and per-endpoint metrics are compiled in as they are
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include("gabriellopes/safesenior/app/safeseniorapp/simulator/**")
+            include("gabriellopes/safesenior/app/safeseniorapp/network/LatencyHistogram.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/network/NetworkMetrics.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/ModelTypeAdapters.java")
+            // Every model ModelTypeAdapters knows about (ConnectionRow and EventRow need Android)
+            include("gabriellopes/safesenior/app/safeseniorapp/models/Connection.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/Device.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/Event.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/HelpResponse.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/LoginRequest.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/LoginResponse.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/Notification.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/RegisterRequest.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/SosStartRequest.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/SosStartResponse.java")
+            include("gabriellopes/safesenior/app/safeseniorapp/models/User.java")
+        }
+    }
+}
+
+dependencies {
+    // Same versions as the app
+    implementation("com.squareup.retrofit2:retrofit:2.11.0")
+    implementation("com.squareup.retrofit2:converter-gson:2.11.0")
+    implementation("com.squareup.okhttp3:okhttp:4.12.0")
+    implementation("com.google.code.gson:gson:2.10.1")
+    // The local stand-in server
+    implementation("com.squareup.okhttp3:mockwebserver:4.12.0")
+
+    testImplementation(libs.junit)
+}
+
+application {
+    mainClass.set("gabriellopes.safesenior.app.safeseniorapp.simulator.FleetSimulator")
+}
@@ -0,0 +1,34 @@
+package gabriellopes.safesenior.app.safeseniorapp.simulator;
+
+import com.google.gson.JsonObject;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.HelpResponse;
+import gabriellopes.safesenior.app.safeseniorapp.models.LoginResponse;
+import gabriellopes.safesenior.app.safeseniorapp.models.SosStartResponse;
+import retrofit2.Call;
+import retrofit2.http.Body;
+import retrofit2.http.GET;
+import retrofit2.http.POST;
+import retrofit2.http.Path;
+
+// The routes a wearable calls (Arduino/script/script.ino). Devices send no Authorization header:
+// the server identifies them by the {"device_id"} body, see auth_device() in API/index.py.
+// Method names are the endpoint names in the report, as with ApiInterface and NetworkMetrics.
+public interface DeviceApi {
+
+    @POST("devices/login")
+    Call<LoginResponse> login(@Body JsonObject body);
+
+    @POST("device/online")
+    Call<Void> online(@Body JsonObject body);
+
+    @POST("device/offline")
+    Call<Void> offline(@Body JsonObject body);
+
+    // Toggle, like the button
+    @POST("sos")
+    Call<SosStartResponse> toggleSos(@Body JsonObject body);
+
+    @GET("help/state/{deviceId}")
+    Call<HelpResponse> helpState(@Path("deviceId") String deviceId);
+}
@@ -0,0 +1,111 @@
+package gabriellopes.safesenior.app.safeseniorapp.simulator;
+
+import java.util.Locale;
+
+// Command-line options of the simulator. Durations take a unit (500ms, 90s, 10m, 1h), a bare
+// number is seconds. Rates are per device and per hour, and the gaps between events are
+// exponential, so a fleet behaves like independent people pressing buttons.
+public final class FleetConfig {
+    static final String USAGE = String.join("\n",
+            "Usage: simulator [options]",
+            "  --url <base url>          backend to load (default: start a local stand-in server)",
+            "  --device-ids <file>       registered device ids, one per line (required with --url)",
+            "  --devices <n>             simulated devices (default 1000)",
+            "  --duration <time>         how long to run (default 5m)",
+            "  --ramp <time>             boots spread over this long, 0 for a boot storm (default 30s)",
+            "  --heartbeat <time>        /device/online every so often, 0 for connect only (default 60s);",
+            "                            note the server closes open help on every /device/online",
+            "  --sos-per-hour <rate>     SOS button presses per device per hour (default 0.5)",
+            "  --sos-hold <time>         mean time until the SOS is pressed off again (default 2m)",
+            "  --help-poll <time>        /help/state poll interval while SOS is on (default 2s)",
+            "  --help-timeout <time>     give up on a poll after this long (default 1500ms)",
+            "  --drops-per-hour <rate>   Wi-Fi drops per device per hour (default 0.2)",
+            "  --reconnect <time>        mean time offline after a drop (default 10s)",
+            "  --keep-alive              reuse connections (the firmware opens one per request)",
+            "  --seed <n>                random seed (default 42)",
+            "  Local stand-in server only:",
+            "  --server-latency <time>   response delay (default 0)",
+            "  --server-jitter <time>    extra random delay (default 0)",
+            "  --server-errors <share>   share of requests answered with 503 (default 0)",
+            "  --help-after <time>       mean time until a caregiver sends help (default 20s)");
+
+    String baseUrl;
+    String deviceIdsFile;
+    int devices = 1000;
+    long durationMs = 5 * 60_000;
+    long rampMs = 30_000;
+    long heartbeatMs = 60_000;
+    double sosPerHour = 0.5;
+    long sosHoldMs = 2 * 60_000;
+    long helpPollMs = 2000;
+    long helpTimeoutMs = 1500;
+    double dropsPerHour = 0.2;
+    long reconnectMs = 10_000;
+    boolean keepAlive;
+    long seed = 42;
+    long serverLatencyMs;
+    long serverJitterMs;
+    double serverErrorRate;
+    long helpAfterMs = 20_000;
+
+    // Throws IllegalArgumentException with a readable message on a bad option
+    public static FleetConfig parse(String[] args) {
+        FleetConfig config = new FleetConfig();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--keep-alive")) {
+                config.keepAlive = true;
+                continue;
+            }
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + option);
+            String value = args[++i];
+            switch (option) {
+                case "--url": config.baseUrl = value.endsWith("/") ? value : value + "/"; break;
+                case "--device-ids": config.deviceIdsFile = value; break;
+                case "--devices": config.devices = positive(option, Integer.parseInt(value)); break;
+                case "--duration": config.durationMs = positive(option, millis(value)); break;
+                case "--ramp": config.rampMs = millis(value); break;
+                case "--heartbeat": config.heartbeatMs = millis(value); break;
+                case "--sos-per-hour": config.sosPerHour = Double.parseDouble(value); break;
+                case "--sos-hold": config.sosHoldMs = positive(option, millis(value)); break;
+                case "--help-poll": config.helpPollMs = positive(option, millis(value)); break;
+                case "--help-timeout": config.helpTimeoutMs = positive(option, millis(value)); break;
+                case "--drops-per-hour": config.dropsPerHour = Double.parseDouble(value); break;
+                case "--reconnect": config.reconnectMs = millis(value); break;
+                case "--seed": config.seed = Long.parseLong(value); break;
+                case "--server-latency": config.serverLatencyMs = millis(value); break;
+                case "--server-jitter": config.serverJitterMs = millis(value); break;
+                case "--server-errors": config.serverErrorRate = Double.parseDouble(value); break;
+                case "--help-after": config.helpAfterMs = millis(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if (config.baseUrl != null && config.deviceIdsFile == null) {
+            throw new IllegalArgumentException("--url needs --device-ids: the server only accepts registered devices");
+        }
+        return config;
+    }
+
+    static long millis(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        try {
+            if (v.endsWith("ms")) return Long.parseLong(v.substring(0, v.length() - 2));
+            if (v.endsWith("s")) return Math.round(Double.parseDouble(v.substring(0, v.length() - 1)) * 1000);
+            if (v.endsWith("m")) return Math.round(Double.parseDouble(v.substring(0, v.length() - 1)) * 60_000);
+            if (v.endsWith("h")) return Math.round(Double.parseDouble(v.substring(0, v.length() - 1)) * 3_600_000);
+            return Math.round(Double.parseDouble(v) * 1000);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a duration: " + value);
+        }
+    }
+
+    private static <N extends Number> N positive(String option, N value) {
+        if (value.doubleValue() <= 0) throw new IllegalArgumentException(option + " must be positive");
+        return value;
+    }
+
+    // Mean gap between events at ratePerHour, 0 when they never happen
+    static long meanGapMs(double ratePerHour) {
+        return ratePerHour <= 0 ? 0 : Math.round(3_600_000 / ratePerHour);
+    }
+}
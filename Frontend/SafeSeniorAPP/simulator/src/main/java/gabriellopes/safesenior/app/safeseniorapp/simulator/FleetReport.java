@@ -0,0 +1,130 @@
+package gabriellopes.safesenior.app.safeseniorapp.simulator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import gabriellopes.safesenior.app.safeseniorapp.network.LatencyHistogram;
+import gabriellopes.safesenior.app.safeseniorapp.network.NetworkMetrics;
+
+// What a run saw. Latency per endpoint and phase comes from the app's NetworkMetrics (an OkHttp
+// EventListener on the fleet's client); this adds the outcome of every call (status code,
+// "timeout" or "io") and the SOS-level numbers. Everything is safe to update from any device.
+public final class FleetReport {
+    static final String TIMEOUT = "timeout";
+    static final String IO_ERROR = "io";
+
+    private final NetworkMetrics metrics;
+    // Endpoint -> outcome -> calls
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> outcomes = new ConcurrentHashMap<>();
+    // SOS pressed on until the device first saw help on the way, in microseconds like every histogram
+    final LatencyHistogram sosToHelp = new LatencyHistogram();
+    final LongAdder booted = new LongAdder();
+    final LongAdder sosStarted = new LongAdder();
+    final LongAdder sosStopped = new LongAdder();
+    final LongAdder reconnects = new LongAdder();
+
+    FleetReport(NetworkMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    void record(String endpoint, String outcome) {
+        outcomes.computeIfAbsent(endpoint, e -> new ConcurrentHashMap<>())
+                .computeIfAbsent(outcome, o -> new LongAdder())
+                .increment();
+    }
+
+    public NetworkMetrics getMetrics() {
+        return metrics;
+    }
+
+    public List<String> getEndpoints() {
+        List<String> names = new ArrayList<>(outcomes.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    public long calls(String endpoint) {
+        long n = 0;
+        for (LongAdder count : outcomesOf(endpoint).values()) n += count.sum();
+        return n;
+    }
+
+    // Calls of endpoint that ended with outcome (a status code, TIMEOUT or IO_ERROR)
+    public long calls(String endpoint, String outcome) {
+        LongAdder count = outcomesOf(endpoint).get(outcome);
+        return count == null ? 0 : count.sum();
+    }
+
+    // Calls that got no 2xx answer
+    public long errors(String endpoint) {
+        long n = 0;
+        for (Map.Entry<String, LongAdder> entry : outcomesOf(endpoint).entrySet()) {
+            if (!entry.getKey().startsWith("2")) n += entry.getValue().sum();
+        }
+        return n;
+    }
+
+    public long totalCalls() {
+        long n = 0;
+        for (String endpoint : outcomes.keySet()) n += calls(endpoint);
+        return n;
+    }
+
+    public long totalErrors() {
+        long n = 0;
+        for (String endpoint : outcomes.keySet()) n += errors(endpoint);
+        return n;
+    }
+
+    public long getSosStarted() {
+        return sosStarted.sum();
+    }
+
+    public LatencyHistogram getSosToHelp() {
+        return sosToHelp;
+    }
+
+    private Map<String, LongAdder> outcomesOf(String endpoint) {
+        Map<String, LongAdder> byOutcome = outcomes.get(endpoint);
+        return byOutcome == null ? Collections.emptyMap() : byOutcome;
+    }
+
+    // Plain-text summary: fleet counters, outcomes per endpoint, then NetworkMetrics' latency table
+    public void print(Writer out, long elapsedMs) throws IOException {
+        double seconds = Math.max(1, elapsedMs) / 1000.0;
+        out.write(String.format(Locale.US, "%d devices booted, %d calls in %.1fs (%.1f/s), %d errors%n",
+                booted.sum(), totalCalls(), seconds, totalCalls() / seconds, totalErrors()));
+        out.write(String.format(Locale.US, "SOS: %d on, %d off, %d Wi-Fi reconnects%n",
+                sosStarted.sum(), sosStopped.sum(), reconnects.sum()));
+        if (sosToHelp.getCount() > 0) {
+            out.write(String.format(Locale.US, "SOS to help seen: n=%d p50=%s p95=%s max=%s%n",
+                    sosToHelp.getCount(), seconds(sosToHelp.percentileMicros(50)),
+                    seconds(sosToHelp.percentileMicros(95)), seconds(sosToHelp.getMaxMicros())));
+        }
+        out.write("\nOutcomes\n");
+        for (String endpoint : getEndpoints()) {
+            long calls = calls(endpoint);
+            StringBuilder line = new StringBuilder(String.format(Locale.US, "  %-10s n=%-7d errors=%.2f%%",
+                    endpoint, calls, calls == 0 ? 0 : 100.0 * errors(endpoint) / calls));
+            for (Map.Entry<String, LongAdder> entry : new TreeMap<>(outcomesOf(endpoint)).entrySet()) {
+                line.append("  ").append(entry.getKey()).append('=').append(entry.getValue().sum());
+            }
+            out.write(line.append('\n').toString());
+        }
+        out.write("\nLatency\n");
+        metrics.dump(out);
+        out.flush();
+    }
+
+    private static String seconds(long micros) {
+        return String.format(Locale.US, "%.1fs", micros / 1_000_000.0);
+    }
+}
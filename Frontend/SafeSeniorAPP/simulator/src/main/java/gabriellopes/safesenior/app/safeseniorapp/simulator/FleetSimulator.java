@@ -0,0 +1,159 @@
+package gabriellopes.safesenior.app.safeseniorapp.simulator;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.ModelTypeAdapters;
+import gabriellopes.safesenior.app.safeseniorapp.network.NetworkMetrics;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+// Entry point: boots the fleet (one virtual thread per device, boots spread over --ramp), lets it
+// run for --duration and prints the report. Without --url the devices talk to a LocalDeviceBackend
+// started in the same process. Progress goes to stderr every 10 seconds.
+public final class FleetSimulator {
+    private static final long PROGRESS_MS = 10_000;
+
+    private FleetSimulator() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && (args[0].equals("--help") || args[0].equals("-h"))) {
+            System.out.println(FleetConfig.USAGE);
+            return;
+        }
+        FleetConfig config;
+        List<String> deviceIds;
+        try {
+            config = FleetConfig.parse(args);
+            deviceIds = deviceIds(config);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println(FleetConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        LocalDeviceBackend local = null;
+        String baseUrl = config.baseUrl;
+        if (baseUrl == null) {
+            local = new LocalDeviceBackend(deviceIds, config);
+            local.start();
+            baseUrl = local.baseUrl();
+        }
+        System.err.println("Simulating " + deviceIds.size() + " devices against " + baseUrl);
+
+        long start = System.currentTimeMillis();
+        FleetReport report = run(config, baseUrl, deviceIds);
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        report.print(out, System.currentTimeMillis() - start);
+        if (local != null) local.shutdown();
+    }
+
+    // Runs the fleet to the end of config.durationMs and returns what it saw
+    public static FleetReport run(FleetConfig config, String baseUrl, List<String> deviceIds)
+            throws InterruptedException {
+        NetworkMetrics metrics = new NetworkMetrics();
+        OkHttpClient client = buildHttpClient(config, metrics);
+        DeviceApi api = new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .client(client)
+                .addConverterFactory(GsonConverterFactory.create(gson()))
+                .build()
+                .create(DeviceApi.class);
+
+        FleetReport report = new FleetReport(metrics);
+        long start = System.currentTimeMillis();
+        long deadline = start + config.durationMs;
+        Thread progress = Thread.ofVirtual().start(() -> progress(report, start, deadline));
+        // close() waits for every device to reach the deadline
+        try (ExecutorService fleet = Executors.newVirtualThreadPerTaskExecutor()) {
+            int n = deviceIds.size();
+            for (int i = 0; i < n; i++) {
+                long bootAt = start + config.rampMs * i / n;
+                fleet.execute(new SimulatedDevice(deviceIds.get(i), api, config, report,
+                        config.seed * 31 + i, bootAt, deadline));
+            }
+        } finally {
+            progress.interrupt();
+            client.connectionPool().evictAll();
+        }
+        return report;
+    }
+
+    // Devices speak HTTP/1.1 without retries, so every failure shows up in the report. By default
+    // every call gets its own connection, as the firmware's HttpClient does (stop() after each
+    // request); --keep-alive pools them instead, one idle connection per device at most.
+    static OkHttpClient buildHttpClient(FleetConfig config, NetworkMetrics metrics) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .protocols(Collections.singletonList(Protocol.HTTP_1_1))
+                .retryOnConnectionFailure(false)
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .callTimeout(30, TimeUnit.SECONDS)
+                .eventListenerFactory(metrics);
+        if (config.keepAlive) {
+            builder.connectionPool(new ConnectionPool(config.devices, 5, TimeUnit.MINUTES));
+        } else {
+            builder.connectionPool(new ConnectionPool(0, 1, TimeUnit.SECONDS))
+                    .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                            .header("Connection", "close")
+                            .build()));
+        }
+        return builder.build();
+    }
+
+    // The app's Gson setup (ApiClient), so the models decode the same way
+    private static Gson gson() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new ModelTypeAdapters())
+                .create();
+    }
+
+    // Ids from --device-ids, or generated ones the local server registers
+    static List<String> deviceIds(FleetConfig config) throws IOException {
+        List<String> ids = new ArrayList<>(config.devices);
+        if (config.deviceIdsFile == null) {
+            for (int i = 0; i < config.devices; i++) ids.add(String.format(Locale.US, "sim-%06d", i));
+            return ids;
+        }
+        for (String line : Files.readAllLines(Paths.get(config.deviceIdsFile), StandardCharsets.UTF_8)) {
+            String id = line.trim();
+            if (!id.isEmpty() && !id.startsWith("#")) ids.add(id);
+            if (ids.size() == config.devices) break;
+        }
+        if (ids.size() < config.devices) {
+            throw new IllegalArgumentException(config.deviceIdsFile + " has " + ids.size()
+                    + " device ids, --devices asks for " + config.devices);
+        }
+        return ids;
+    }
+
+    private static void progress(FleetReport report, long start, long deadline) {
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                Thread.sleep(PROGRESS_MS);
+                System.err.printf(Locale.US, "%3ds: %d devices up, %d calls, %d errors, %d SOS%n",
+                        (System.currentTimeMillis() - start) / 1000, report.booted.sum(),
+                        report.totalCalls(), report.totalErrors(), report.getSosStarted());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package gabriellopes.safesenior.app.safeseniorapp.simulator;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Stand-in for the device routes of the Flask backend (API/index.py): /devices/login,
+ * /device/online, /device/offline, the device side of /sos and /help/state/&lt;device_id&gt;,
+ * with the same status codes and JSON. A caregiver sends help some time after each SOS
+ * (exponential, mean helpAfterMs), so polling devices see help:true like they would for real.
+ *
+ * It measures the client and the network, not the Flask app: the answers cost nothing beyond
+ * the configured latency. Point the simulator at a real deployment for server numbers.
+ */
+public class LocalDeviceBackend {
+    private static final class DeviceState {
+        boolean online;
+        String eventId;
+        // When help is sent for the active SOS, 0 without one
+        long helpAt;
+    }
+
+    private final MockWebServer server = new MockWebServer();
+    private final Map<String, DeviceState> devices = new HashMap<>();
+    private final Random random;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final long helpAfterMs;
+    private final AtomicInteger nextEventId = new AtomicInteger();
+
+    public LocalDeviceBackend(List<String> deviceIds, FleetConfig config) {
+        for (String id : deviceIds) devices.put(id, new DeviceState());
+        random = new Random(config.seed);
+        latencyMs = config.serverLatencyMs;
+        jitterMs = config.serverJitterMs;
+        errorRate = config.serverErrorRate;
+        helpAfterMs = config.helpAfterMs;
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return shape(route(request));
+            }
+        });
+    }
+
+    public void start() throws IOException {
+        server.start();
+    }
+
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    public String baseUrl() {
+        return server.url("/").toString();
+    }
+
+    public synchronized int onlineCount() {
+        int n = 0;
+        for (DeviceState d : devices.values()) if (d.online) n++;
+        return n;
+    }
+
+    public synchronized int activeSosCount() {
+        int n = 0;
+        for (DeviceState d : devices.values()) if (d.eventId != null) n++;
+        return n;
+    }
+
+    // ------------------------------------------------------------------ routing
+
+    private MockResponse route(RecordedRequest request) {
+        boolean fail;
+        synchronized (random) {
+            fail = errorRate > 0 && random.nextDouble() < errorRate;
+        }
+        if (fail) return json(503, "{\"message\":\"Service unavailable\"}");
+
+        String path = request.getRequestUrl().encodedPath();
+        String method = request.getMethod();
+        if (method.equals("GET") && path.startsWith("/help/state/")) {
+            return helpState(path.substring("/help/state/".length()));
+        }
+        if (!method.equals("POST")) return json(404, "{\"message\":\"Not found\"}");
+
+        String deviceId = deviceIdOf(request.getBody().readUtf8());
+        switch (path) {
+            case "/devices/login": return login(deviceId);
+            case "/device/online": return online(deviceId, true);
+            case "/device/offline": return online(deviceId, false);
+            case "/sos": return sos(deviceId);
+            default: return json(404, "{\"message\":\"Not found\"}");
+        }
+    }
+
+    private synchronized MockResponse login(String deviceId) {
+        if (deviceId == null) return json(400, "{\"message\":\"Missing device_id\"}");
+        if (!devices.containsKey(deviceId)) return json(404, "{\"message\":\"Device not found\"}");
+        return json(200, "{\"token\":\"device-" + deviceId + "\"}");
+    }
+
+    // Like device_online(): coming online also closes any help still open
+    private synchronized MockResponse online(String deviceId, boolean online) {
+        if (deviceId == null) return json(400, "{\"message\":\"Missing device_id\"}");
+        DeviceState d = devices.get(deviceId);
+        if (online && d == null) return json(404, "{\"message\":\"Device not registered\"}");
+        if (d != null) {
+            d.online = online;
+            if (online) d.helpAt = 0;
+        }
+        return json(200, online ? "{\"message\":\"Device online\"}" : "{\"message\":\"Device offline\"}");
+    }
+
+    // Device side of toggle_sos()
+    private synchronized MockResponse sos(String deviceId) {
+        if (deviceId == null) return json(400, "{\"message\":\"Missing device_id\"}");
+        DeviceState d = devices.get(deviceId);
+        if (d == null) return json(404, "{\"message\":\"Device not registered\"}");
+        if (d.eventId != null) {
+            d.eventId = null;
+            d.helpAt = 0;
+            d.online = false;
+            return json(200, "{\"message\":\"SOS stopped\",\"active\":false}");
+        }
+        d.eventId = "e-" + nextEventId.incrementAndGet();
+        d.online = true;
+        d.helpAt = System.currentTimeMillis() + helpDelay();
+        return json(201, "{\"message\":\"SOS triggered\",\"active\":true,\"event_id\":\"" + d.eventId
+                + "\",\"device_id\":\"" + deviceId + "\"}");
+    }
+
+    // help_get_state() answers for any id, registered or not
+    private synchronized MockResponse helpState(String deviceId) {
+        DeviceState d = devices.get(deviceId);
+        boolean help = d != null && d.helpAt > 0 && System.currentTimeMillis() >= d.helpAt;
+        return json(200, "{\"help\":" + help + "}");
+    }
+
+    // ------------------------------------------------------------------ helpers
+
+    private long helpDelay() {
+        synchronized (random) {
+            return (long) (-Math.log(1 - random.nextDouble()) * helpAfterMs);
+        }
+    }
+
+    private static String deviceIdOf(String body) {
+        try {
+            JsonElement json = JsonParser.parseString(body);
+            if (!json.isJsonObject()) return null;
+            JsonObject object = json.getAsJsonObject();
+            return object.has("device_id") && !object.get("device_id").isJsonNull()
+                    ? object.get("device_id").getAsString() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static MockResponse json(int code, String body) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+
+    private MockResponse shape(MockResponse response) {
+        long delay = latencyMs;
+        if (jitterMs > 0) {
+            synchronized (random) {
+                delay += (long) (random.nextDouble() * jitterMs);
+            }
+        }
+        if (delay > 0) response.setHeadersDelay(delay, TimeUnit.MILLISECONDS);
+        return response;
+    }
+}
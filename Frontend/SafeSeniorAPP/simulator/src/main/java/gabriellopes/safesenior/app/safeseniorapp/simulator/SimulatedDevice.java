@@ -0,0 +1,158 @@
+package gabriellopes.safesenior.app.safeseniorapp.simulator;
+
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import gabriellopes.safesenior.app.safeseniorapp.models.HelpResponse;
+import gabriellopes.safesenior.app.safeseniorapp.models.SosStartResponse;
+import retrofit2.Call;
+import retrofit2.Invocation;
+import retrofit2.Response;
+
+// One wearable, run on its own virtual thread, doing what script.ino does:
+// - boot: /devices/login, then /device/online
+// - a heartbeat /device/online every --heartbeat (the firmware today only sends it on connect)
+// - button presses toggle /sos; while the SOS is on, /help/state is polled every --help-poll
+//   with a --help-timeout, like HELP_INTERVAL and HELP_TIMEOUT
+// - Wi-Fi drops: /device/offline, some time away, /device/online again
+// Blocking calls on a virtual thread are cheap, so the code reads like the firmware's loop.
+final class SimulatedDevice implements Runnable {
+    private final String deviceId;
+    private final DeviceApi api;
+    private final FleetConfig config;
+    private final FleetReport report;
+    private final Random random;
+    private final long bootAt;
+    private final long deadline;
+    private final JsonObject body = new JsonObject();
+
+    private boolean sosActive;
+    private boolean helpSeen;
+    private long sosSince;
+
+    SimulatedDevice(String deviceId, DeviceApi api, FleetConfig config, FleetReport report,
+                    long seed, long bootAt, long deadline) {
+        this.deviceId = deviceId;
+        this.api = api;
+        this.config = config;
+        this.report = report;
+        this.random = new Random(seed);
+        this.bootAt = bootAt;
+        this.deadline = deadline;
+        body.addProperty("device_id", deviceId);
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (!sleepUntil(bootAt)) return;
+            call(api.login(body), 0);
+            call(api.online(body), 0);
+            report.booted.increment();
+
+            long now = now();
+            long nextHeartbeat = config.heartbeatMs > 0 ? now + config.heartbeatMs : Long.MAX_VALUE;
+            long nextPress = now + gap(FleetConfig.meanGapMs(config.sosPerHour));
+            long nextDrop = now + gap(FleetConfig.meanGapMs(config.dropsPerHour));
+            long nextPoll = Long.MAX_VALUE;
+
+            while (true) {
+                long next = Math.min(Math.min(nextHeartbeat, nextPress), Math.min(nextDrop, nextPoll));
+                if (!sleepUntil(next)) return;
+                now = now();
+                if (now >= nextDrop) {
+                    reconnect();
+                    now = now();
+                    nextDrop = now + gap(FleetConfig.meanGapMs(config.dropsPerHour));
+                    if (nextHeartbeat != Long.MAX_VALUE) nextHeartbeat = now + config.heartbeatMs;
+                    continue;
+                }
+                if (now >= nextPress) {
+                    press();
+                    // On: held until pressed again. Off: the next SOS comes at the usual rate
+                    nextPress = now() + (sosActive ? gap(config.sosHoldMs)
+                            : gap(FleetConfig.meanGapMs(config.sosPerHour)));
+                    nextPoll = sosActive ? now() : Long.MAX_VALUE;
+                    continue;
+                }
+                if (now >= nextPoll) {
+                    pollHelp();
+                    nextPoll = now + config.helpPollMs;
+                    continue;
+                }
+                if (now >= nextHeartbeat) {
+                    call(api.online(body), 0);
+                    nextHeartbeat = now + config.heartbeatMs;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void press() {
+        Response<SosStartResponse> response = call(api.toggleSos(body), 0);
+        // The firmware flips its own state whatever the answer; the server's word wins when there is one
+        sosActive = response != null && response.body() != null ? response.body().active : !sosActive;
+        if (sosActive) {
+            report.sosStarted.increment();
+            sosSince = now();
+            helpSeen = false;
+        } else {
+            report.sosStopped.increment();
+        }
+    }
+
+    private void pollHelp() {
+        Response<HelpResponse> response = call(api.helpState(deviceId), config.helpTimeoutMs);
+        if (response == null || response.body() == null) return;
+        if (response.body().help && !helpSeen) {
+            helpSeen = true;
+            report.sosToHelp.record(TimeUnit.MILLISECONDS.toMicros(now() - sosSince));
+        }
+    }
+
+    private void reconnect() throws InterruptedException {
+        call(api.offline(body), 0);
+        report.reconnects.increment();
+        if (!sleepUntil(now() + gap(config.reconnectMs))) return;
+        call(api.online(body), 0);
+    }
+
+    // Executes and records the outcome under the DeviceApi method name. Null unless it was a 2xx.
+    private <T> Response<T> call(Call<T> call, long timeoutMs) {
+        if (timeoutMs > 0) call.timeout().timeout(timeoutMs, TimeUnit.MILLISECONDS);
+        String endpoint = call.request().tag(Invocation.class).method().getName();
+        try {
+            Response<T> response = call.execute();
+            report.record(endpoint, String.valueOf(response.code()));
+            return response.isSuccessful() ? response : null;
+        } catch (InterruptedIOException e) {
+            report.record(endpoint, FleetReport.TIMEOUT);
+        } catch (IOException | RuntimeException e) {
+            report.record(endpoint, FleetReport.IO_ERROR);
+        }
+        return null;
+    }
+
+    // Exponential gap with the given mean; for a mean of 0, one that outlasts any run
+    private long gap(long meanMs) {
+        if (meanMs <= 0) return Long.MAX_VALUE / 2;
+        return (long) (-Math.log(1 - random.nextDouble()) * meanMs);
+    }
+
+    // False once the run is over
+    private boolean sleepUntil(long at) throws InterruptedException {
+        long wait = Math.min(at, deadline) - now();
+        if (wait > 0) Thread.sleep(wait);
+        return at < deadline;
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,95 @@
+package gabriellopes.safesenior.app.safeseniorapp.simulator;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+// Short, sped-up fleets against the local stand-in server
+public class FleetSimulatorTest {
+    private LocalDeviceBackend backend;
+
+    @After
+    public void tearDown() throws Exception {
+        if (backend != null) backend.shutdown();
+    }
+
+    private FleetReport run(FleetConfig config, List<String> registered) throws Exception {
+        backend = new LocalDeviceBackend(registered, config);
+        backend.start();
+        return FleetSimulator.run(config, backend.baseUrl(), FleetSimulator.deviceIds(config));
+    }
+
+    @Test
+    public void fleetBootsPressesSosAndSeesHelp() throws Exception {
+        // SOS about once a second per device, held for ~2 s, help sent ~200 ms in
+        FleetConfig config = FleetConfig.parse(new String[]{
+                "--devices", "300", "--duration", "4s", "--ramp", "500ms", "--heartbeat", "0",
+                "--sos-per-hour", "3600", "--sos-hold", "2s", "--help-poll", "100ms",
+                "--drops-per-hour", "0", "--help-after", "200ms"});
+        FleetReport report = run(config, FleetSimulator.deviceIds(config));
+
+        assertEquals(0, report.totalErrors());
+        assertEquals(300, report.booted.sum());
+        assertEquals(300, report.calls("login", "200"));
+        assertEquals(300, report.calls("online", "200"));
+        assertTrue(report.getSosStarted() > 0);
+        assertTrue(report.getSosToHelp().getCount() > 0);
+        // Every endpoint has its latency histograms
+        assertTrue(report.getMetrics().getEndpoints().containsAll(
+                Arrays.asList("login", "online", "toggleSos", "helpState")));
+        StringWriter out = new StringWriter();
+        report.print(out, 4000);
+        assertTrue(out.toString(), out.toString().startsWith("300 devices booted"));
+    }
+
+    @Test
+    public void unregisteredDevicesAreCountedAsErrors() throws Exception {
+        FleetConfig config = FleetConfig.parse(new String[]{
+                "--devices", "20", "--duration", "1s", "--ramp", "0", "--heartbeat", "0",
+                "--sos-per-hour", "0", "--drops-per-hour", "0"});
+        List<String> ids = FleetSimulator.deviceIds(config);
+        FleetReport report = run(config, ids.subList(0, 10));
+
+        assertEquals(10, report.calls("login", "200"));
+        assertEquals(10, report.calls("login", "404"));
+        assertEquals(10, report.errors("online"));
+        assertEquals(10, backend.onlineCount());
+    }
+
+    @Test
+    public void slowHelpPollsTimeOutLikeTheFirmware() throws Exception {
+        // Every answer takes 300 ms, polls give up after 100 ms
+        FleetConfig config = FleetConfig.parse(new String[]{
+                "--devices", "20", "--duration", "3s", "--ramp", "0", "--heartbeat", "0",
+                "--sos-per-hour", "36000", "--sos-hold", "1h", "--help-poll", "200ms",
+                "--help-timeout", "100ms", "--drops-per-hour", "0", "--server-latency", "300ms",
+                "--help-after", "0"});
+        FleetReport report = run(config, FleetSimulator.deviceIds(config));
+
+        assertEquals(0, report.errors("toggleSos"));
+        assertEquals(20, backend.activeSosCount());
+        assertTrue(report.calls("helpState", FleetReport.TIMEOUT) > 0);
+        assertEquals(report.calls("helpState"), report.errors("helpState"));
+        assertEquals(0, report.getSosToHelp().getCount());
+    }
+
+    @Test
+    public void parsesDurations() {
+        assertEquals(500, FleetConfig.millis("500ms"));
+        assertEquals(90_000, FleetConfig.millis("90s"));
+        assertEquals(600_000, FleetConfig.millis("10m"));
+        assertEquals(3_600_000, FleetConfig.millis("1h"));
+        assertEquals(2_000, FleetConfig.millis("2"));
+        assertEquals(7200, FleetConfig.meanGapMs(500));
+        try {
+            FleetConfig.parse(new String[]{"--url", "http://localhost:8080"});
+            fail("--url without --device-ids");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}